@@ -0,0 +1,84 @@
+package edu.cibertec.appstorecomputer.benchmark;
+
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.model.Categoria;
+import edu.cibertec.appstorecomputer.model.Marca;
+import edu.cibertec.appstorecomputer.model.Producto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic catalog data for the benchmarks, shaped like the sample data
+ */
+final class Datos {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2025, 1, 15, 10, 30);
+
+    private Datos() {
+    }
+
+    static List<Categoria> categorias(int cantidad) {
+        List<Categoria> categorias = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            categorias.add(Categoria.builder()
+                    .id((long) i)
+                    .nombre("Categoria " + i)
+                    .descripcion("Descripción de la categoría número " + i)
+                    .activo(i % 7 != 0)
+                    .productos(new ArrayList<>())
+                    .build());
+        }
+        return categorias;
+    }
+
+    static List<Marca> marcas(int cantidad) {
+        List<Marca> marcas = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            marcas.add(Marca.builder()
+                    .id((long) i)
+                    .nombre("Marca " + i)
+                    .paisOrigen("País " + (i % 12))
+                    .sitioWeb("https://www.marca" + i + ".com")
+                    .activo(i % 9 != 0)
+                    .productos(new ArrayList<>())
+                    .build());
+        }
+        return marcas;
+    }
+
+    static List<Producto> productos(int cantidad) {
+        List<Categoria> categorias = categorias(10);
+        List<Marca> marcas = marcas(10);
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            productos.add(Producto.builder()
+                    .id((long) i)
+                    .nombre("Laptop Modelo " + i)
+                    .descripcion("Laptop con procesador de última generación, 16GB RAM y SSD de 512GB, modelo " + i)
+                    .precio(BigDecimal.valueOf(49_999 + i * 37L, 2))
+                    .stock(i % 50)
+                    .codigo("PRD-" + i)
+                    .imagenUrl("https://cdn.storecomputer.pe/productos/" + i + ".jpg")
+                    .fechaCreacion(FECHA.plusMinutes(i))
+                    .activo(i % 11 != 0)
+                    .categoria(categorias.get(i % categorias.size()))
+                    .marca(marcas.get(i % marcas.size()))
+                    .build());
+        }
+        return productos;
+    }
+
+    static List<ProductoDTO> productoDtos(int cantidad) {
+        List<ProductoDTO> productos = new ArrayList<>(cantidad);
+        for (Producto producto : productos(cantidad)) {
+            productos.add(new ProductoDTO(producto.getId(), producto.getNombre(), producto.getDescripcion(),
+                    producto.getPrecio(), producto.getStock(), producto.getCodigo(), producto.getImagenUrl(),
+                    producto.getFechaCreacion(), producto.getActivo(), producto.getCategoria().getId(),
+                    producto.getMarca().getId(), producto.getCategoria().getNombre(), producto.getMarca().getNombre()));
+        }
+        return productos;
+    }
+}
@@ -0,0 +1,98 @@
+package edu.cibertec.appstorecomputer.benchmark;
+
+import edu.cibertec.appstorecomputer.dto.CategoriaDTO;
+import edu.cibertec.appstorecomputer.dto.MarcaDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.mapper.CategoriaMapper;
+import edu.cibertec.appstorecomputer.mapper.MarcaMapper;
+import edu.cibertec.appstorecomputer.mapper.ProductoMapper;
+import edu.cibertec.appstorecomputer.model.Categoria;
+import edu.cibertec.appstorecomputer.model.Marca;
+import edu.cibertec.appstorecomputer.model.Producto;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the MapStruct conversions done on every request: one entity and whole lists.
+ * Run with {@code -prof gc} to see the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private ProductoMapper productoMapper;
+    private CategoriaMapper categoriaMapper;
+    private MarcaMapper marcaMapper;
+
+    private Producto producto;
+    private List<Producto> productos;
+    private Categoria categoria;
+    private List<Categoria> categorias;
+    private Marca marca;
+    private List<Marca> marcas;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        productoMapper = Mappers.getMapper(ProductoMapper.class);
+        categoriaMapper = Mappers.getMapper(CategoriaMapper.class);
+        marcaMapper = Mappers.getMapper(MarcaMapper.class);
+
+        productos = Datos.productos(size);
+        producto = productos.getFirst();
+        categorias = Datos.categorias(size);
+        categoria = categorias.getFirst();
+        marcas = Datos.marcas(size);
+        marca = marcas.getFirst();
+    }
+
+    @Benchmark
+    public ProductoDTO productoToDto() {
+        return productoMapper.toDto(producto);
+    }
+
+    @Benchmark
+    public List<ProductoDTO> productoToDtoList() {
+        return productoMapper.toDtoList(productos);
+    }
+
+    @Benchmark
+    public CategoriaDTO categoriaToDto() {
+        return categoriaMapper.toDto(categoria);
+    }
+
+    @Benchmark
+    public List<CategoriaDTO> categoriaToDtoList() {
+        return categoriaMapper.toDtoList(categorias);
+    }
+
+    @Benchmark
+    public MarcaDTO marcaToDto() {
+        return marcaMapper.toDto(marca);
+    }
+
+    @Benchmark
+    public List<MarcaDTO> marcaToDtoList() {
+        return marcaMapper.toDtoList(marcas);
+    }
+}
@@ -0,0 +1,88 @@
+package edu.cibertec.appstorecomputer.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of ProductoDTO lists as the controllers return them.
+ * <p>
+ * {@code toBytes} builds the whole body in memory like a regular response; {@code toStream}
+ * writes to a sink as the streaming export does. Run with {@code -prof gc} to see the
+ * allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductoJsonBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<ProductoDTO> productos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same modules and date format as the ObjectMapper Spring Boot configures
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, ProductoDTO.class));
+        productos = Datos.productoDtos(size);
+    }
+
+    @Benchmark
+    public byte[] toBytes() throws JsonProcessingException {
+        return writer.writeValueAsBytes(productos);
+    }
+
+    @Benchmark
+    public long toStream() throws IOException {
+        ContadorBytes salida = new ContadorBytes();
+        writer.writeValue(salida, productos);
+        return salida.bytes;
+    }
+
+    /**
+     * Sink that only counts, so the benchmark measures serialization and not buffering
+     */
+    private static final class ContadorBytes extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package edu.cibertec.appstorecomputer.catalog;
+
+import edu.cibertec.appstorecomputer.config.CatalogoRecargaConfig;
+import edu.cibertec.appstorecomputer.config.ReplicaDataSource;
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
+import edu.cibertec.appstorecomputer.model.Categoria;
+import edu.cibertec.appstorecomputer.model.Marca;
+import edu.cibertec.appstorecomputer.repository.CategoriaRepository;
+import edu.cibertec.appstorecomputer.repository.MarcaRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds the current {@link CatalogoSnapshot} and keeps it in sync with the database.
+ * <p>
+ * The snapshot is loaded once the application is ready, patched after every committed
+ * {@link CatalogoEvent} and fully reloaded on a fixed delay as a safety net. A bulk change
+ * ({@link CatalogoEvent.CatalogoModificado}) is reloaded in the background, so the thread that
+ * committed it does not wait for it. Until the first load finishes (or when disabled)
+ * {@link #current()} is empty and callers go to the database.
+ */
+@Component
+@Slf4j
+public class CatalogoReadModel {
+
+    private final ProductoRepository productoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final MarcaRepository marcaRepository;
+    private final CatalogoVersion catalogoVersion;
+    private final TaskExecutor recargaExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private volatile CatalogoSnapshot snapshot;
+
+    // Events received while a reload is running, replayed on top of the reloaded snapshot
+    private List<CatalogoEvent> pendingEvents;
+    // A reload is queued, or must run again once the running one ends
+    private boolean reloadRequested;
+
+    public CatalogoReadModel(ProductoRepository productoRepository,
+                             CategoriaRepository categoriaRepository,
+                             MarcaRepository marcaRepository,
+                             CatalogoVersion catalogoVersion,
+                             @Qualifier(CatalogoRecargaConfig.RECARGA_EXECUTOR) TaskExecutor recargaExecutor,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${catalogo.read-model.enabled:true}") boolean enabled) {
+        this.productoRepository = productoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.marcaRepository = marcaRepository;
+        this.catalogoVersion = catalogoVersion;
+        this.recargaExecutor = recargaExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    /**
+     * Current snapshot, or empty if the read model is disabled or not loaded yet
+     */
+    public Optional<CatalogoSnapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.read-model.refresh-interval:PT5M}",
+            initialDelayString = "${catalogo.read-model.refresh-interval:PT5M}")
+    public void refresh() {
+        reload();
+    }
+
+    /**
+     * Reload the whole snapshot from the database
+     */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (pendingEvents != null) {
+                reloadRequested = true;
+                return;
+            }
+            pendingEvents = new ArrayList<>();
+            reloadRequested = false;
+        }
+
+        long start = System.nanoTime();
+        CatalogoSnapshot loaded;
+        try {
+            // From the primary: the reload follows commits and the collection ETag, and runs
+            // where no read-your-writes window applies
+            loaded = ReplicaDataSource.enPrimario(() -> readOnlyTransaction.execute(status -> load()));
+        } catch (RuntimeException ex) {
+            log.error("Could not load the catalog read model", ex);
+            synchronized (this) {
+                pendingEvents = null;
+                // Left to the next refresh, so a failing database is not reloaded in a loop
+                reloadRequested = false;
+            }
+            return;
+        }
+
+        boolean again;
+        synchronized (this) {
+            for (CatalogoEvent event : pendingEvents) {
+                loaded = apply(loaded, event);
+            }
+            snapshot = loaded;
+            pendingEvents = null;
+            again = reloadRequested;
+            reloadRequested = false;
+        }
+        // Lists tagged while the reload ran may hold the old rows under the new tag
+        catalogoVersion.refresh();
+        log.info("Catalog read model loaded with {} products in {} ms",
+                loaded.size(), (System.nanoTime() - start) / 1_000_000);
+        if (again) {
+            reload();
+        }
+    }
+
+    /**
+     * Reload in the background. A request made while a reload is queued is merged into it,
+     * and one made while a reload is running makes it run once more when it ends.
+     */
+    private void reloadInBackground() {
+        synchronized (this) {
+            boolean pendiente = reloadRequested;
+            reloadRequested = true;
+            if (pendiente || pendingEvents != null) {
+                return;
+            }
+        }
+        recargaExecutor.execute(this::reload);
+    }
+
+    // Patched before CatalogoVersion publishes the new collection ETag
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogoEvent(CatalogoEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event instanceof CatalogoEvent.CatalogoModificado) {
+            reloadInBackground();
+            return;
+        }
+        synchronized (this) {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+            }
+            if (snapshot != null) {
+                snapshot = apply(snapshot, event);
+            }
+        }
+    }
+
+    private CatalogoSnapshot load() {
+        Map<Long, String> categorias = new LinkedHashMap<>();
+        for (Categoria categoria : categoriaRepository.findAll()) {
+            categorias.put(categoria.getId(), categoria.getNombre());
+        }
+        Map<Long, String> marcas = new LinkedHashMap<>();
+        for (Marca marca : marcaRepository.findAll()) {
+            marcas.put(marca.getId(), marca.getNombre());
+        }
+        return CatalogoSnapshot.of(productoRepository.findAllVersionados(), categorias, marcas);
+    }
+
+    private static CatalogoSnapshot apply(CatalogoSnapshot current, CatalogoEvent event) {
+        return switch (event) {
+            case CatalogoEvent.ProductoGuardado e -> current.withProducto(e.producto(), e.version());
+            case CatalogoEvent.ProductoEliminado e -> current.withoutProducto(e.id());
+            case CatalogoEvent.StockActualizado e -> current.withStock(e.id(), e.stock(), e.version());
+            case CatalogoEvent.CategoriaGuardada e -> current.withCategoria(e.id(), e.nombre());
+            case CatalogoEvent.CategoriaEliminada e -> current.withoutCategoria(e.id());
+            case CatalogoEvent.MarcaGuardada e -> current.withMarca(e.id(), e.nombre());
+            case CatalogoEvent.MarcaEliminada e -> current.withoutMarca(e.id());
+            case CatalogoEvent.CatalogoModificado e -> current;
+        };
+    }
+}
@@ -0,0 +1,925 @@
+package edu.cibertec.appstorecomputer.catalog;
+
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFacetasDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionadoDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, column-oriented copy of the product catalog.
+ * <p>
+ * Rows are ordered by product id and stored in parallel arrays: ids and stock as primitives,
+ * prices as long cents, and categoria/marca as ordinals into small dictionaries so every
+ * name is stored once. Each categoria and marca ordinal has a posting list with the rows
+ * that reference it, and two sorted secondary indexes (by price and by stock) answer range
+ * queries with a binary search. Changes never mutate a snapshot: the {@code with*} methods return a
+ * patched copy, so readers can use a snapshot without any locking.
+ * <p>
+ * A patch only copies the columns it changes and moves the changed row inside the indexes;
+ * inserting or removing a row renumbers the rows after it in place, without sorting again.
+ * Each row keeps the version it was read at, and a change older than it is ignored, as are
+ * changes to products already deleted.
+ */
+public final class CatalogoSnapshot {
+
+    private static final int[] SIN_FILAS = new int[0];
+    private static final long[] SIN_IDS = new long[0];
+    private static final int BITS_FILA = 24;
+    private static final long MASCARA_FILA = (1L << BITS_FILA) - 1;
+    private static final int MAX_FACETAS_EN_CACHE = 256;
+
+    private final long[] ids;
+    private final String[] nombres;
+    private final String[] descripciones;
+    private final String[] codigos;
+    private final String[] imagenUrls;
+    private final LocalDateTime[] fechasCreacion;
+    private final long[] precioCentavos;
+    private final int[] stock;
+    private final boolean[] activos;
+    private final int[] categoriaOrd;
+    private final int[] marcaOrd;
+    private final long[] versiones;
+
+    // Ids of the deleted products, sorted; ids are never reused, so this only grows until a reload
+    private final long[] eliminados;
+
+    private final Diccionario categorias;
+    private final Diccionario marcas;
+
+    private final int[][] filasPorCategoria;
+    private final int[][] filasPorMarca;
+
+    // Secondary indexes: rows ordered by price (or stock) and the key of each of those rows
+    private final int[] filasPorPrecio;
+    private final long[] preciosOrdenados;
+    private final int[] filasPorStock;
+    private final int[] stockOrdenado;
+
+    // Facets computed on this snapshot; a patched copy starts empty, so they are never stale
+    private final Map<ClaveFacetas, ProductoFacetasDTO> facetas = new ConcurrentHashMap<>();
+
+    private CatalogoSnapshot(long[] ids, String[] nombres, String[] descripciones, String[] codigos,
+                             String[] imagenUrls, LocalDateTime[] fechasCreacion, long[] precioCentavos,
+                             int[] stock, boolean[] activos, int[] categoriaOrd, int[] marcaOrd,
+                             long[] versiones, long[] eliminados,
+                             Diccionario categorias, Diccionario marcas,
+                             int[][] filasPorCategoria, int[][] filasPorMarca,
+                             int[] filasPorPrecio, long[] preciosOrdenados,
+                             int[] filasPorStock, int[] stockOrdenado) {
+        this.ids = ids;
+        this.nombres = nombres;
+        this.descripciones = descripciones;
+        this.codigos = codigos;
+        this.imagenUrls = imagenUrls;
+        this.fechasCreacion = fechasCreacion;
+        this.precioCentavos = precioCentavos;
+        this.stock = stock;
+        this.activos = activos;
+        this.categoriaOrd = categoriaOrd;
+        this.marcaOrd = marcaOrd;
+        this.versiones = versiones;
+        this.eliminados = eliminados;
+        this.categorias = categorias;
+        this.marcas = marcas;
+        this.filasPorCategoria = filasPorCategoria;
+        this.filasPorMarca = filasPorMarca;
+        this.filasPorPrecio = filasPorPrecio;
+        this.preciosOrdenados = preciosOrdenados;
+        this.filasPorStock = filasPorStock;
+        this.stockOrdenado = stockOrdenado;
+    }
+
+    /**
+     * Snapshot over the given columns with the posting lists and sorted indexes built from scratch
+     */
+    private static CatalogoSnapshot indexado(long[] ids, String[] nombres, String[] descripciones,
+                                             String[] codigos, String[] imagenUrls,
+                                             LocalDateTime[] fechasCreacion, long[] precioCentavos,
+                                             int[] stock, boolean[] activos, int[] categoriaOrd,
+                                             int[] marcaOrd, long[] versiones,
+                                             Diccionario categorias, Diccionario marcas) {
+        int n = ids.length;
+        int[] filasPorPrecio = new int[n];
+        long[] preciosOrdenados = new long[n];
+        long[] claves = new long[n];
+        for (int fila = 0; fila < n; fila++) {
+            // Price in the high bits, row in the low 24 bits: one primitive sort, ties by id
+            claves[fila] = (precioCentavos[fila] << BITS_FILA) | fila;
+        }
+        Arrays.sort(claves);
+        for (int i = 0; i < n; i++) {
+            filasPorPrecio[i] = (int) (claves[i] & MASCARA_FILA);
+            preciosOrdenados[i] = precioCentavos[filasPorPrecio[i]];
+        }
+
+        int[] filasPorStock = new int[n];
+        int[] stockOrdenado = new int[n];
+        for (int fila = 0; fila < n; fila++) {
+            claves[fila] = ((long) stock[fila] << 32) | fila;
+        }
+        Arrays.sort(claves);
+        for (int i = 0; i < n; i++) {
+            filasPorStock[i] = (int) (claves[i] & 0xFFFFFFFFL);
+            stockOrdenado[i] = stock[filasPorStock[i]];
+        }
+
+        return new CatalogoSnapshot(ids, nombres, descripciones, codigos, imagenUrls, fechasCreacion,
+                precioCentavos, stock, activos, categoriaOrd, marcaOrd, versiones, SIN_IDS, categorias, marcas,
+                postingLists(categoriaOrd, categorias.size()), postingLists(marcaOrd, marcas.size()),
+                filasPorPrecio, preciosOrdenados, filasPorStock, stockOrdenado);
+    }
+
+    /**
+     * Build a snapshot from the full list of products and the categoria/marca names
+     * @param productos Every product in the catalog, with the version of its row
+     * @param categorias Categoria names by ID
+     * @param marcas Marca names by ID
+     * @return New snapshot
+     */
+    public static CatalogoSnapshot of(List<ProductoVersionadoDTO> productos, Map<Long, String> categorias,
+                                      Map<Long, String> marcas) {
+        List<ProductoVersionadoDTO> ordenados = new ArrayList<>(productos);
+        ordenados.sort(Comparator.comparing(versionado -> versionado.producto().id()));
+
+        Diccionario dicCategorias = Diccionario.of(categorias);
+        Diccionario dicMarcas = Diccionario.of(marcas);
+
+        int n = ordenados.size();
+        long[] ids = new long[n];
+        String[] nombres = new String[n];
+        String[] descripciones = new String[n];
+        String[] codigos = new String[n];
+        String[] imagenUrls = new String[n];
+        LocalDateTime[] fechasCreacion = new LocalDateTime[n];
+        long[] precioCentavos = new long[n];
+        int[] stock = new int[n];
+        boolean[] activos = new boolean[n];
+        int[] categoriaOrd = new int[n];
+        int[] marcaOrd = new int[n];
+        long[] versiones = new long[n];
+
+        for (int fila = 0; fila < n; fila++) {
+            ProductoDTO producto = ordenados.get(fila).producto();
+            dicCategorias = dicCategorias.ensure(producto.categoriaId(), producto.categoriaNombre());
+            dicMarcas = dicMarcas.ensure(producto.marcaId(), producto.marcaNombre());
+
+            ids[fila] = producto.id();
+            nombres[fila] = producto.nombre();
+            descripciones[fila] = producto.descripcion();
+            codigos[fila] = producto.codigo();
+            imagenUrls[fila] = producto.imagenUrl();
+            fechasCreacion[fila] = producto.fechaCreacion();
+            precioCentavos[fila] = toCentavos(producto.precio());
+            stock[fila] = producto.stock();
+            activos[fila] = Boolean.TRUE.equals(producto.activo());
+            categoriaOrd[fila] = dicCategorias.ordinal(producto.categoriaId());
+            marcaOrd[fila] = dicMarcas.ordinal(producto.marcaId());
+            versiones[fila] = ordenados.get(fila).version();
+        }
+
+        return indexado(ids, nombres, descripciones, codigos, imagenUrls, fechasCreacion,
+                precioCentavos, stock, activos, categoriaOrd, marcaOrd, versiones, dicCategorias, dicMarcas);
+    }
+
+    /**
+     * Copy of this snapshot with the given product inserted or replaced, unless the snapshot
+     * already holds a newer version of it or it was deleted
+     */
+    public CatalogoSnapshot withProducto(ProductoDTO producto, long version) {
+        int fila = Arrays.binarySearch(ids, producto.id());
+        if (fila >= 0 ? version < versiones[fila] : Arrays.binarySearch(eliminados, producto.id()) >= 0) {
+            return this;
+        }
+        Diccionario dicCategorias = categorias.ensure(producto.categoriaId(), producto.categoriaNombre());
+        Diccionario dicMarcas = marcas.ensure(producto.marcaId(), producto.marcaNombre());
+        if (fila >= 0) {
+            return reemplazar(fila, version, producto.nombre(), producto.descripcion(), producto.codigo(),
+                    producto.imagenUrl(), producto.fechaCreacion(), toCentavos(producto.precio()),
+                    producto.stock(), Boolean.TRUE.equals(producto.activo()), dicCategorias, dicMarcas,
+                    dicCategorias.ordinal(producto.categoriaId()), dicMarcas.ordinal(producto.marcaId()));
+        }
+        return insertar(-fila - 1, producto, version, dicCategorias, dicMarcas);
+    }
+
+    /**
+     * Copy of this snapshot without the given product; the id is remembered so an older event
+     * for it cannot bring it back
+     */
+    public CatalogoSnapshot withoutProducto(long id) {
+        long[] nuevosEliminados = conId(eliminados, id);
+        int fila = Arrays.binarySearch(ids, id);
+        if (fila < 0) {
+            return nuevosEliminados == eliminados ? this
+                    : new CatalogoSnapshot(ids, nombres, descripciones, codigos, imagenUrls, fechasCreacion,
+                            precioCentavos, stock, activos, categoriaOrd, marcaOrd, versiones, nuevosEliminados,
+                            categorias, marcas, filasPorCategoria, filasPorMarca,
+                            filasPorPrecio, preciosOrdenados, filasPorStock, stockOrdenado);
+        }
+        int n = ids.length;
+
+        // Rows after the removed one move up by one
+        int[][] porCategoria = filasPorCategoria.clone();
+        porCategoria[categoriaOrd[fila]] = sinFila(porCategoria[categoriaOrd[fila]], fila);
+        int[][] porMarca = filasPorMarca.clone();
+        porMarca[marcaOrd[fila]] = sinFila(porMarca[marcaOrd[fila]], fila);
+
+        int enPrecio = posicion(preciosOrdenados, filasPorPrecio, precioCentavos[fila], fila);
+        int enStock = posicion(stockOrdenado, filasPorStock, stock[fila], fila);
+
+        return new CatalogoSnapshot(
+                removeSlot(ids, n, fila, new long[n - 1]),
+                removeSlot(nombres, n, fila, new String[n - 1]),
+                removeSlot(descripciones, n, fila, new String[n - 1]),
+                removeSlot(codigos, n, fila, new String[n - 1]),
+                removeSlot(imagenUrls, n, fila, new String[n - 1]),
+                removeSlot(fechasCreacion, n, fila, new LocalDateTime[n - 1]),
+                removeSlot(precioCentavos, n, fila, new long[n - 1]),
+                removeSlot(stock, n, fila, new int[n - 1]),
+                removeSlot(activos, n, fila, new boolean[n - 1]),
+                removeSlot(categoriaOrd, n, fila, new int[n - 1]),
+                removeSlot(marcaOrd, n, fila, new int[n - 1]),
+                removeSlot(versiones, n, fila, new long[n - 1]),
+                nuevosEliminados, categorias, marcas,
+                renumerar(porCategoria, fila + 1, -1), renumerar(porMarca, fila + 1, -1),
+                renumerar(removeSlot(filasPorPrecio, n, enPrecio, new int[n - 1]), fila + 1, -1),
+                removeSlot(preciosOrdenados, n, enPrecio, new long[n - 1]),
+                renumerar(removeSlot(filasPorStock, n, enStock, new int[n - 1]), fila + 1, -1),
+                removeSlot(stockOrdenado, n, enStock, new int[n - 1]));
+    }
+
+    /**
+     * Copy of this snapshot with a new stock level for the given product, unless it already
+     * holds a newer version of the row. Only the stock and version columns and the stock index
+     * are copied, the row moving to its new place in the index; every other column and index is
+     * shared with this snapshot.
+     */
+    public CatalogoSnapshot withStock(long id, int nivel, long version) {
+        int fila = Arrays.binarySearch(ids, id);
+        if (fila < 0 || version < versiones[fila] || (stock[fila] == nivel && version == versiones[fila])) {
+            return this;
+        }
+        return reemplazar(fila, version, nombres[fila], descripciones[fila], codigos[fila], imagenUrls[fila],
+                fechasCreacion[fila], precioCentavos[fila], nivel, activos[fila], categorias, marcas,
+                categoriaOrd[fila], marcaOrd[fila]);
+    }
+
+    /**
+     * Copy with new values for an existing row. Only the columns whose value changes are
+     * copied, and a new price, stock level, categoria or marca moves just this row in its
+     * index or posting lists.
+     */
+    private CatalogoSnapshot reemplazar(int fila, long version, String nombre, String descripcion, String codigo,
+                                        String imagenUrl, LocalDateTime fechaCreacion, long precio, int nivel,
+                                        boolean activo, Diccionario dicCategorias, Diccionario dicMarcas,
+                                        int categoria, int marca) {
+        int[] nuevasFilasPrecio = filasPorPrecio;
+        long[] nuevosPreciosOrdenados = preciosOrdenados;
+        if (precioCentavos[fila] != precio) {
+            nuevasFilasPrecio = filasPorPrecio.clone();
+            nuevosPreciosOrdenados = preciosOrdenados.clone();
+            mover(nuevasFilasPrecio, nuevosPreciosOrdenados,
+                    posicion(preciosOrdenados, filasPorPrecio, precioCentavos[fila], fila),
+                    posicion(preciosOrdenados, filasPorPrecio, precio, fila), fila, precio);
+        }
+        int[] nuevasFilasStock = filasPorStock;
+        int[] nuevoStockOrdenado = stockOrdenado;
+        if (stock[fila] != nivel) {
+            nuevasFilasStock = filasPorStock.clone();
+            nuevoStockOrdenado = stockOrdenado.clone();
+            mover(nuevasFilasStock, nuevoStockOrdenado,
+                    posicion(stockOrdenado, filasPorStock, stock[fila], fila),
+                    posicion(stockOrdenado, filasPorStock, nivel, fila), fila, nivel);
+        }
+
+        return new CatalogoSnapshot(ids,
+                conValor(nombres, fila, nombre),
+                conValor(descripciones, fila, descripcion),
+                conValor(codigos, fila, codigo),
+                conValor(imagenUrls, fila, imagenUrl),
+                conValor(fechasCreacion, fila, fechaCreacion),
+                conValor(precioCentavos, fila, precio),
+                conValor(stock, fila, nivel),
+                conValor(activos, fila, activo),
+                conValor(categoriaOrd, fila, categoria),
+                conValor(marcaOrd, fila, marca),
+                conValor(versiones, fila, version),
+                eliminados, dicCategorias, dicMarcas,
+                moverFila(extend(filasPorCategoria, dicCategorias.size()), categoriaOrd[fila], categoria, fila),
+                moverFila(extend(filasPorMarca, dicMarcas.size()), marcaOrd[fila], marca, fila),
+                nuevasFilasPrecio, nuevosPreciosOrdenados, nuevasFilasStock, nuevoStockOrdenado);
+    }
+
+    /**
+     * Copy with a new row at the given position; the rows from it onwards move down by one.
+     * A new product usually has the highest id, so nothing has to be renumbered.
+     */
+    private CatalogoSnapshot insertar(int fila, ProductoDTO producto, long version,
+                                      Diccionario dicCategorias, Diccionario dicMarcas) {
+        int n = ids.length;
+        long precio = toCentavos(producto.precio());
+        int nivel = producto.stock();
+        int categoria = dicCategorias.ordinal(producto.categoriaId());
+        int marca = dicMarcas.ordinal(producto.marcaId());
+
+        long[] nuevosIds = insertSlot(ids, n, fila, new long[n + 1]);
+        String[] nuevosNombres = insertSlot(nombres, n, fila, new String[n + 1]);
+        String[] nuevasDescripciones = insertSlot(descripciones, n, fila, new String[n + 1]);
+        String[] nuevosCodigos = insertSlot(codigos, n, fila, new String[n + 1]);
+        String[] nuevasImagenUrls = insertSlot(imagenUrls, n, fila, new String[n + 1]);
+        LocalDateTime[] nuevasFechas = insertSlot(fechasCreacion, n, fila, new LocalDateTime[n + 1]);
+        long[] nuevosPrecios = insertSlot(precioCentavos, n, fila, new long[n + 1]);
+        int[] nuevoStock = insertSlot(stock, n, fila, new int[n + 1]);
+        boolean[] nuevosActivos = insertSlot(activos, n, fila, new boolean[n + 1]);
+        int[] nuevasCategorias = insertSlot(categoriaOrd, n, fila, new int[n + 1]);
+        int[] nuevasMarcas = insertSlot(marcaOrd, n, fila, new int[n + 1]);
+        long[] nuevasVersiones = insertSlot(versiones, n, fila, new long[n + 1]);
+        nuevosIds[fila] = producto.id();
+        nuevosNombres[fila] = producto.nombre();
+        nuevasDescripciones[fila] = producto.descripcion();
+        nuevosCodigos[fila] = producto.codigo();
+        nuevasImagenUrls[fila] = producto.imagenUrl();
+        nuevasFechas[fila] = producto.fechaCreacion();
+        nuevosPrecios[fila] = precio;
+        nuevoStock[fila] = nivel;
+        nuevosActivos[fila] = Boolean.TRUE.equals(producto.activo());
+        nuevasCategorias[fila] = categoria;
+        nuevasMarcas[fila] = marca;
+        nuevasVersiones[fila] = version;
+
+        int[][] porCategoria = renumerar(extend(filasPorCategoria, dicCategorias.size()), fila, 1);
+        porCategoria[categoria] = conFila(porCategoria[categoria], fila);
+        int[][] porMarca = renumerar(extend(filasPorMarca, dicMarcas.size()), fila, 1);
+        porMarca[marca] = conFila(porMarca[marca], fila);
+
+        // Searched with the old row numbers: those below the new row keep theirs, the rest move past it
+        int enPrecio = posicion(preciosOrdenados, filasPorPrecio, precio, fila);
+        int[] nuevasFilasPrecio = renumerar(insertSlot(filasPorPrecio, n, enPrecio, new int[n + 1]), fila, 1);
+        long[] nuevosPreciosOrdenados = insertSlot(preciosOrdenados, n, enPrecio, new long[n + 1]);
+        nuevasFilasPrecio[enPrecio] = fila;
+        nuevosPreciosOrdenados[enPrecio] = precio;
+        int enStock = posicion(stockOrdenado, filasPorStock, nivel, fila);
+        int[] nuevasFilasStock = renumerar(insertSlot(filasPorStock, n, enStock, new int[n + 1]), fila, 1);
+        int[] nuevoStockOrdenado = insertSlot(stockOrdenado, n, enStock, new int[n + 1]);
+        nuevasFilasStock[enStock] = fila;
+        nuevoStockOrdenado[enStock] = nivel;
+
+        return new CatalogoSnapshot(nuevosIds, nuevosNombres, nuevasDescripciones, nuevosCodigos,
+                nuevasImagenUrls, nuevasFechas, nuevosPrecios, nuevoStock, nuevosActivos, nuevasCategorias,
+                nuevasMarcas, nuevasVersiones, eliminados, dicCategorias, dicMarcas, porCategoria, porMarca,
+                nuevasFilasPrecio, nuevosPreciosOrdenados, nuevasFilasStock, nuevoStockOrdenado);
+    }
+
+    /**
+     * Copy of this snapshot with the categoria added or renamed
+     */
+    public CatalogoSnapshot withCategoria(long id, String nombre) {
+        return withDiccionarios(categorias.with(id, nombre), marcas);
+    }
+
+    /**
+     * Copy of this snapshot without the given categoria
+     */
+    public CatalogoSnapshot withoutCategoria(long id) {
+        return withDiccionarios(categorias.without(id), marcas);
+    }
+
+    /**
+     * Copy of this snapshot with the marca added or renamed
+     */
+    public CatalogoSnapshot withMarca(long id, String nombre) {
+        return withDiccionarios(categorias, marcas.with(id, nombre));
+    }
+
+    /**
+     * Copy of this snapshot without the given marca
+     */
+    public CatalogoSnapshot withoutMarca(long id) {
+        return withDiccionarios(categorias, marcas.without(id));
+    }
+
+    // Ordinals never change, so the rows and their indexes are shared; a new entry has no rows yet
+    private CatalogoSnapshot withDiccionarios(Diccionario dicCategorias, Diccionario dicMarcas) {
+        return new CatalogoSnapshot(ids, nombres, descripciones, codigos, imagenUrls, fechasCreacion,
+                precioCentavos, stock, activos, categoriaOrd, marcaOrd, versiones, eliminados, dicCategorias, dicMarcas,
+                extend(filasPorCategoria, dicCategorias.size()), extend(filasPorMarca, dicMarcas.size()),
+                filasPorPrecio, preciosOrdenados, filasPorStock, stockOrdenado);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean containsCategoria(long categoriaId) {
+        return categorias.contains(categoriaId);
+    }
+
+    public boolean containsMarca(long marcaId) {
+        return marcas.contains(marcaId);
+    }
+
+    public Optional<ProductoDTO> findById(long id) {
+        int fila = Arrays.binarySearch(ids, id);
+        return fila >= 0 ? Optional.of(toDto(fila)) : Optional.empty();
+    }
+
+    public List<ProductoDTO> findByCategoria(long categoriaId) {
+        return toDtoList(filas(filasPorCategoria, categorias.ordinal(categoriaId)));
+    }
+
+    public List<ProductoDTO> findByMarca(long marcaId) {
+        return toDtoList(filas(filasPorMarca, marcas.ordinal(marcaId)));
+    }
+
+    public List<ProductoDTO> findByCategoriaAndMarca(long categoriaId, long marcaId) {
+        int[] porCategoria = filas(filasPorCategoria, categorias.ordinal(categoriaId));
+        int[] porMarca = filas(filasPorMarca, marcas.ordinal(marcaId));
+        return toDtoList(intersect(porCategoria, porMarca));
+    }
+
+    /**
+     * Products whose price is within the range (both ends included), cheapest first
+     */
+    public List<ProductoDTO> findByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax, long offset, int limit) {
+        int desde = lowerBound(preciosOrdenados, centavosDesde(precioMin));
+        int hasta = upperBound(preciosOrdenados, centavosHasta(precioMax));
+        return slice(filasPorPrecio, desde, hasta, offset, limit);
+    }
+
+    public int countByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax) {
+        int desde = lowerBound(preciosOrdenados, centavosDesde(precioMin));
+        int hasta = upperBound(preciosOrdenados, centavosHasta(precioMax));
+        return Math.max(0, hasta - desde);
+    }
+
+    /**
+     * Products with stock strictly below the threshold, lowest stock first
+     */
+    public List<ProductoDTO> findByStockLessThan(int stockMinimo, long offset, int limit) {
+        return slice(filasPorStock, 0, lowerBound(stockOrdenado, stockMinimo), offset, limit);
+    }
+
+    public int countByStockLessThan(int stockMinimo) {
+        return lowerBound(stockOrdenado, stockMinimo);
+    }
+
+    /**
+     * Products that are active and in stock
+     */
+    public List<ProductoDTO> findAvailable() {
+        List<ProductoDTO> result = new ArrayList<>();
+        for (int fila = 0; fila < ids.length; fila++) {
+            if (activos[fila] && stock[fila] > 0) {
+                result.add(toDto(fila));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Facet counts of the products matching the filter, computed in one pass over the rows and
+     * cached on this snapshot for the next request with the same filter
+     * @param filtro Normalized filter
+     * @param limites Ascending price bucket boundaries
+     */
+    public ProductoFacetasDTO facetas(FiltroFacetas filtro, List<BigDecimal> limites) {
+        ClaveFacetas clave = new ClaveFacetas(filtro, limites);
+        ProductoFacetasDTO cacheadas = facetas.get(clave);
+        if (cacheadas != null) {
+            return cacheadas;
+        }
+        FacetasAcumulador acumulador = new FacetasAcumulador(filtro, limites);
+        for (int fila = 0; fila < ids.length; fila++) {
+            acumulador.agregar(categorias.id(categoriaOrd[fila]), marcas.id(marcaOrd[fila]),
+                    precioCentavos[fila], stock[fila] > 0, activos[fila], 1);
+        }
+        ProductoFacetasDTO resultado = acumulador.resultado(
+                id -> categorias.nombre(categorias.ordinal(id)),
+                id -> marcas.nombre(marcas.ordinal(id)));
+        // Bounded: filters past the limit are computed on every request instead of growing the map
+        if (facetas.size() < MAX_FACETAS_EN_CACHE) {
+            facetas.putIfAbsent(clave, resultado);
+        }
+        return resultado;
+    }
+
+    ProductoDTO toDto(int fila) {
+        int categoria = categoriaOrd[fila];
+        int marca = marcaOrd[fila];
+        return new ProductoDTO(
+                ids[fila],
+                nombres[fila],
+                descripciones[fila],
+                BigDecimal.valueOf(precioCentavos[fila], 2),
+                stock[fila],
+                codigos[fila],
+                imagenUrls[fila],
+                fechasCreacion[fila],
+                activos[fila],
+                categorias.id(categoria),
+                marcas.id(marca),
+                categorias.nombre(categoria),
+                marcas.nombre(marca)
+        );
+    }
+
+    private List<ProductoDTO> toDtoList(int[] filas) {
+        List<ProductoDTO> result = new ArrayList<>(filas.length);
+        for (int fila : filas) {
+            result.add(toDto(fila));
+        }
+        return result;
+    }
+
+    private List<ProductoDTO> slice(int[] filasOrdenadas, int desde, int hasta, long offset, int limit) {
+        if (hasta <= desde || offset >= hasta - desde) {
+            return List.of();
+        }
+        int inicio = desde + (int) offset;
+        int fin = (int) Math.min(hasta, (long) inicio + limit);
+        List<ProductoDTO> result = new ArrayList<>(fin - inicio);
+        for (int i = inicio; i < fin; i++) {
+            result.add(toDto(filasOrdenadas[i]));
+        }
+        return result;
+    }
+
+    private static long centavosDesde(BigDecimal precio) {
+        return precio.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+    }
+
+    private static long centavosHasta(BigDecimal precio) {
+        return precio.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+    }
+
+    /**
+     * First position whose key is greater than or equal to the given one
+     */
+    private static int lowerBound(long[] ordenados, long clave) {
+        int lo = 0;
+        int hi = ordenados.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ordenados[mid] < clave) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * First position whose key is strictly greater than the given one
+     */
+    private static int upperBound(long[] ordenados, long clave) {
+        return clave == Long.MAX_VALUE ? ordenados.length : lowerBound(ordenados, clave + 1);
+    }
+
+    private static int lowerBound(int[] ordenados, int clave) {
+        int lo = 0;
+        int hi = ordenados.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ordenados[mid] < clave) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Position of the (key, row) pair in an index ordered by key and then row, or where it
+     * would be inserted
+     */
+    private static int posicion(long[] ordenados, int[] filas, long clave, int fila) {
+        int lo = 0;
+        int hi = ordenados.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ordenados[mid] < clave || (ordenados[mid] == clave && filas[mid] < fila)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int posicion(int[] ordenados, int[] filas, int clave, int fila) {
+        int lo = 0;
+        int hi = ordenados.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ordenados[mid] < clave || (ordenados[mid] == clave && filas[mid] < fila)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Move a row of an index, in place, from its position to the one of its new key (both
+     * taken before the move); the entries in between shift by one
+     */
+    private static void mover(int[] filas, long[] ordenados, int anterior, int nueva, int fila, long clave) {
+        if (nueva > anterior) {
+            // the row itself is still counted before its new position
+            nueva--;
+            System.arraycopy(filas, anterior + 1, filas, anterior, nueva - anterior);
+            System.arraycopy(ordenados, anterior + 1, ordenados, anterior, nueva - anterior);
+        } else {
+            System.arraycopy(filas, nueva, filas, nueva + 1, anterior - nueva);
+            System.arraycopy(ordenados, nueva, ordenados, nueva + 1, anterior - nueva);
+        }
+        filas[nueva] = fila;
+        ordenados[nueva] = clave;
+    }
+
+    private static void mover(int[] filas, int[] ordenados, int anterior, int nueva, int fila, int clave) {
+        if (nueva > anterior) {
+            nueva--;
+            System.arraycopy(filas, anterior + 1, filas, anterior, nueva - anterior);
+            System.arraycopy(ordenados, anterior + 1, ordenados, anterior, nueva - anterior);
+        } else {
+            System.arraycopy(filas, nueva, filas, nueva + 1, anterior - nueva);
+            System.arraycopy(ordenados, nueva, ordenados, nueva + 1, anterior - nueva);
+        }
+        filas[nueva] = fila;
+        ordenados[nueva] = clave;
+    }
+
+    static long toCentavos(BigDecimal precio) {
+        return precio.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static int[] filas(int[][] postings, int ordinal) {
+        return ordinal < 0 ? SIN_FILAS : postings[ordinal];
+    }
+
+    /**
+     * Rows per ordinal, built with a counting pass so each list comes out already sorted
+     */
+    private static int[][] postingLists(int[] ordinales, int cardinalidad) {
+        int[] cuentas = new int[cardinalidad];
+        for (int ordinal : ordinales) {
+            cuentas[ordinal]++;
+        }
+        int[][] postings = new int[cardinalidad][];
+        for (int ordinal = 0; ordinal < cardinalidad; ordinal++) {
+            postings[ordinal] = cuentas[ordinal] == 0 ? SIN_FILAS : new int[cuentas[ordinal]];
+            cuentas[ordinal] = 0;
+        }
+        for (int fila = 0; fila < ordinales.length; fila++) {
+            int ordinal = ordinales[fila];
+            postings[ordinal][cuentas[ordinal]++] = fila;
+        }
+        return postings;
+    }
+
+    private static int[][] extend(int[][] postings, int cardinalidad) {
+        if (postings.length >= cardinalidad) {
+            return postings;
+        }
+        int[][] extendidas = Arrays.copyOf(postings, cardinalidad);
+        Arrays.fill(extendidas, postings.length, cardinalidad, SIN_FILAS);
+        return extendidas;
+    }
+
+    /**
+     * Posting lists with the row moved from one ordinal to another; shared when it stays
+     */
+    private static int[][] moverFila(int[][] postings, int anterior, int nuevo, int fila) {
+        if (anterior == nuevo) {
+            return postings;
+        }
+        int[][] movidas = postings.clone();
+        movidas[anterior] = sinFila(postings[anterior], fila);
+        movidas[nuevo] = conFila(postings[nuevo], fila);
+        return movidas;
+    }
+
+    private static int[] conFila(int[] filas, int fila) {
+        int pos = -Arrays.binarySearch(filas, fila) - 1;
+        int[] result = insertSlot(filas, filas.length, pos, new int[filas.length + 1]);
+        result[pos] = fila;
+        return result;
+    }
+
+    private static int[] sinFila(int[] filas, int fila) {
+        return removeSlot(filas, filas.length, Arrays.binarySearch(filas, fila), new int[filas.length - 1]);
+    }
+
+    /**
+     * Copy of the posting lists with every row from {@code desde} onwards shifted by the delta;
+     * lists that end before it are shared
+     */
+    private static int[][] renumerar(int[][] postings, int desde, int delta) {
+        int[][] result = postings.clone();
+        for (int ordinal = 0; ordinal < result.length; ordinal++) {
+            int[] filas = result[ordinal];
+            if (filas.length > 0 && filas[filas.length - 1] >= desde) {
+                result[ordinal] = renumerar(filas.clone(), desde, delta);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Shift, in place, every row from {@code desde} onwards by the delta
+     */
+    private static int[] renumerar(int[] filas, int desde, int delta) {
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] >= desde) {
+                filas[i] += delta;
+            }
+        }
+        return filas;
+    }
+
+    private static long[] conId(long[] ordenados, long id) {
+        int pos = Arrays.binarySearch(ordenados, id);
+        if (pos >= 0) {
+            return ordenados;
+        }
+        pos = -pos - 1;
+        long[] result = insertSlot(ordenados, ordenados.length, pos, new long[ordenados.length + 1]);
+        result[pos] = id;
+        return result;
+    }
+
+    // The column itself when the value does not change, otherwise a copy with the new value
+
+    private static <T> T[] conValor(T[] columna, int fila, T valor) {
+        if (Objects.equals(columna[fila], valor)) {
+            return columna;
+        }
+        T[] copia = columna.clone();
+        copia[fila] = valor;
+        return copia;
+    }
+
+    private static long[] conValor(long[] columna, int fila, long valor) {
+        if (columna[fila] == valor) {
+            return columna;
+        }
+        long[] copia = columna.clone();
+        copia[fila] = valor;
+        return copia;
+    }
+
+    private static int[] conValor(int[] columna, int fila, int valor) {
+        if (columna[fila] == valor) {
+            return columna;
+        }
+        int[] copia = columna.clone();
+        copia[fila] = valor;
+        return copia;
+    }
+
+    private static boolean[] conValor(boolean[] columna, int fila, boolean valor) {
+        if (columna[fila] == valor) {
+            return columna;
+        }
+        boolean[] copia = columna.clone();
+        copia[fila] = valor;
+        return copia;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    private static <A> A insertSlot(A source, int length, int pos, A target) {
+        System.arraycopy(source, 0, target, 0, pos);
+        System.arraycopy(source, pos, target, pos + 1, length - pos);
+        return target;
+    }
+
+    private static <A> A removeSlot(A source, int length, int pos, A target) {
+        System.arraycopy(source, 0, target, 0, pos);
+        System.arraycopy(source, pos + 1, target, pos, length - pos - 1);
+        return target;
+    }
+
+    private record ClaveFacetas(FiltroFacetas filtro, List<BigDecimal> limites) {
+    }
+
+    /**
+     * Append-only id/name dictionary. Ordinals never change once assigned, so rows keep
+     * pointing at the right entry; removed entries are kept as tombstones (null name).
+     */
+    private static final class Diccionario {
+
+        private final long[] ids;
+        private final String[] nombres;
+        private final Map<Long, Integer> ordinales;
+
+        private Diccionario(long[] ids, String[] nombres, Map<Long, Integer> ordinales) {
+            this.ids = ids;
+            this.nombres = nombres;
+            this.ordinales = ordinales;
+        }
+
+        static Diccionario of(Map<Long, String> entradas) {
+            long[] ids = new long[entradas.size()];
+            String[] nombres = new String[entradas.size()];
+            Map<Long, Integer> ordinales = new HashMap<>();
+            int ordinal = 0;
+            for (Map.Entry<Long, String> entrada : entradas.entrySet()) {
+                ids[ordinal] = entrada.getKey();
+                nombres[ordinal] = entrada.getValue();
+                ordinales.put(entrada.getKey(), ordinal);
+                ordinal++;
+            }
+            return new Diccionario(ids, nombres, ordinales);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int ordinal(long id) {
+            Integer ordinal = ordinales.get(id);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        boolean contains(long id) {
+            int ordinal = ordinal(id);
+            return ordinal >= 0 && nombres[ordinal] != null;
+        }
+
+        long id(int ordinal) {
+            return ids[ordinal];
+        }
+
+        String nombre(int ordinal) {
+            return nombres[ordinal];
+        }
+
+        /**
+         * This dictionary if it already knows the id, otherwise a copy that adds it
+         */
+        Diccionario ensure(long id, String nombre) {
+            return ordinal(id) >= 0 ? this : with(id, nombre);
+        }
+
+        Diccionario with(long id, String nombre) {
+            int ordinal = ordinal(id);
+            if (ordinal >= 0) {
+                String[] nuevosNombres = nombres.clone();
+                nuevosNombres[ordinal] = nombre;
+                return new Diccionario(ids, nuevosNombres, ordinales);
+            }
+            int n = ids.length;
+            long[] nuevosIds = Arrays.copyOf(ids, n + 1);
+            String[] nuevosNombres = Arrays.copyOf(nombres, n + 1);
+            nuevosIds[n] = id;
+            nuevosNombres[n] = nombre;
+            Map<Long, Integer> nuevosOrdinales = new HashMap<>(ordinales);
+            nuevosOrdinales.put(id, n);
+            return new Diccionario(nuevosIds, nuevosNombres, nuevosOrdinales);
+        }
+
+        Diccionario without(long id) {
+            int ordinal = ordinal(id);
+            if (ordinal < 0) {
+                return this;
+            }
+            String[] nuevosNombres = nombres.clone();
+            nuevosNombres[ordinal] = null;
+            return new Diccionario(ids, nuevosNombres, ordinales);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.cibertec.appstorecomputer.catalog;
+
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide version used as the ETag of the product collections.
+ * <p>
+ * Every {@link CatalogoEvent} bumps it twice: before the commit, so a list read while the
+ * transaction commits never gets the final tag, and after the commit, once the read model and
+ * the search index have been patched, so the final tag always describes the new data. A
+ * client can only get a 304 for data that has not changed since its copy.
+ * <p>
+ * The counter lives in memory: the tag embeds the start time of this instance, so a restart
+ * or another instance never matches an old tag, and it is also bumped on the read-model
+ * refresh interval so writes made through other instances are picked up like the read model
+ * picks them up.
+ */
+@Component
+public class CatalogoVersion {
+
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long modificado = System.currentTimeMillis();
+
+    /**
+     * Strong ETag value (unquoted) of the current catalog version
+     */
+    public String etag() {
+        return instancia + "-" + version.get();
+    }
+
+    /**
+     * Time of the last change, in epoch milliseconds
+     */
+    public long lastModified() {
+        return modificado;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void beforeCommit(CatalogoEvent event) {
+        incrementar();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void afterCommit(CatalogoEvent event) {
+        incrementar();
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.read-model.refresh-interval:PT5M}",
+            initialDelayString = "${catalogo.read-model.refresh-interval:PT5M}")
+    public void refresh() {
+        incrementar();
+    }
+
+    private void incrementar() {
+        modificado = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,126 @@
+package edu.cibertec.appstorecomputer.catalog;
+
+import edu.cibertec.appstorecomputer.dto.FacetaDTO;
+import edu.cibertec.appstorecomputer.dto.FacetaPrecioDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFacetasDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Computes every facet of a {@link FiltroFacetas} in a single pass over the products.
+ * <p>
+ * Each product is checked against the four conditions once. A product that fails none of them
+ * counts in the total and in every facet; one that fails exactly one counts only in the facet
+ * of that condition, which is what the client needs to show the alternatives; one that fails
+ * more counts nowhere. Rows can carry a weight, so the same accumulator works over single
+ * products and over the groups of a grouped query.
+ */
+public final class FacetasAcumulador {
+
+    private final FiltroFacetas filtro;
+    private final List<BigDecimal> limites;
+    private final long[] limitesCentavos;
+    private final long desdeCentavos;
+    private final long hastaCentavos;
+
+    private final Map<Long, long[]> porCategoria = new HashMap<>();
+    private final Map<Long, long[]> porMarca = new HashMap<>();
+    private final long[] porRango;
+    private long conStock;
+    private long sinStock;
+    private long total;
+
+    /**
+     * @param filtro Filter to count
+     * @param limites Ascending bucket boundaries; n boundaries give n + 1 price buckets
+     */
+    public FacetasAcumulador(FiltroFacetas filtro, List<BigDecimal> limites) {
+        this.filtro = filtro;
+        this.limites = List.copyOf(limites);
+        this.limitesCentavos = this.limites.stream().mapToLong(CatalogoSnapshot::toCentavos).toArray();
+        this.desdeCentavos = filtro.precioMin() != null
+                ? filtro.precioMin().movePointRight(2).setScale(0, RoundingMode.CEILING).longValue()
+                : Long.MIN_VALUE;
+        this.hastaCentavos = filtro.precioMax() != null
+                ? filtro.precioMax().movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue()
+                : Long.MAX_VALUE;
+        this.porRango = new long[limitesCentavos.length + 1];
+    }
+
+    public void agregar(long categoriaId, long marcaId, BigDecimal precio, boolean enStock,
+                        boolean activo, long cantidad) {
+        agregar(categoriaId, marcaId, CatalogoSnapshot.toCentavos(precio), enStock, activo, cantidad);
+    }
+
+    void agregar(long categoriaId, long marcaId, long precioCentavos, boolean enStock,
+                 boolean activo, long cantidad) {
+        if (filtro.soloActivos() && !activo) {
+            return;
+        }
+        boolean categoriaOk = filtro.categoriaId() == null || filtro.categoriaId() == categoriaId;
+        boolean marcaOk = filtro.marcaId() == null || filtro.marcaId() == marcaId;
+        boolean precioOk = precioCentavos >= desdeCentavos && precioCentavos <= hastaCentavos;
+        boolean stockOk = filtro.enStock() == null || filtro.enStock() == enStock;
+
+        if (marcaOk && precioOk && stockOk) {
+            porCategoria.computeIfAbsent(categoriaId, id -> new long[1])[0] += cantidad;
+        }
+        if (categoriaOk && precioOk && stockOk) {
+            porMarca.computeIfAbsent(marcaId, id -> new long[1])[0] += cantidad;
+        }
+        if (categoriaOk && marcaOk && stockOk) {
+            porRango[rango(precioCentavos)] += cantidad;
+        }
+        if (categoriaOk && marcaOk && precioOk) {
+            if (enStock) {
+                conStock += cantidad;
+            } else {
+                sinStock += cantidad;
+            }
+            if (stockOk) {
+                total += cantidad;
+            }
+        }
+    }
+
+    /**
+     * Counts gathered so far; categorias and marcas with the most products first
+     * @param nombreCategoria Name of a categoria by ID
+     * @param nombreMarca Name of a marca by ID
+     */
+    public ProductoFacetasDTO resultado(LongFunction<String> nombreCategoria, LongFunction<String> nombreMarca) {
+        List<FacetaPrecioDTO> precios = new ArrayList<>(porRango.length);
+        for (int i = 0; i < porRango.length; i++) {
+            precios.add(new FacetaPrecioDTO(
+                    i > 0 ? limites.get(i - 1) : null,
+                    i < limites.size() ? limites.get(i) : null,
+                    porRango[i]));
+        }
+        return new ProductoFacetasDTO(total, facetas(porCategoria, nombreCategoria),
+                facetas(porMarca, nombreMarca), precios, conStock, sinStock);
+    }
+
+    private int rango(long precioCentavos) {
+        int pos = Arrays.binarySearch(limitesCentavos, precioCentavos);
+        // A price equal to a boundary opens the next bucket
+        return pos >= 0 ? pos + 1 : -pos - 1;
+    }
+
+    private static List<FacetaDTO> facetas(Map<Long, long[]> cuentas, LongFunction<String> nombres) {
+        List<FacetaDTO> facetas = new ArrayList<>(cuentas.size());
+        for (Map.Entry<Long, long[]> cuenta : cuentas.entrySet()) {
+            facetas.add(new FacetaDTO(cuenta.getKey(), nombres.apply(cuenta.getKey()), cuenta.getValue()[0]));
+        }
+        facetas.sort(Comparator.comparingLong(FacetaDTO::cantidad).reversed()
+                .thenComparing(FacetaDTO::id));
+        return facetas;
+    }
+}
@@ -0,0 +1,28 @@
+package edu.cibertec.appstorecomputer.catalog;
+
+import java.math.BigDecimal;
+
+/**
+ * Filter of a facet request, normalized so that equivalent requests are equal and share a
+ * cached result: prices without trailing zeros and absent conditions as null.
+ * @param categoriaId Only products of this categoria, or null
+ * @param marcaId Only products of this marca, or null
+ * @param precioMin Minimum price (included), or null
+ * @param precioMax Maximum price (included), or null
+ * @param enStock Only products with (true) or without (false) stock, or null
+ * @param soloActivos Only active products
+ */
+public record FiltroFacetas(
+        Long categoriaId,
+        Long marcaId,
+        BigDecimal precioMin,
+        BigDecimal precioMax,
+        Boolean enStock,
+        boolean soloActivos
+) {
+
+    public FiltroFacetas {
+        precioMin = precioMin != null ? precioMin.stripTrailingZeros() : null;
+        precioMax = precioMax != null ? precioMax.stripTrailingZeros() : null;
+    }
+}
@@ -0,0 +1,371 @@
+package edu.cibertec.appstorecomputer.catalog;
+
+import edu.cibertec.appstorecomputer.config.CatalogoRecargaConfig;
+import edu.cibertec.appstorecomputer.config.ReplicaDataSource;
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionadoDTO;
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over the nombre, descripcion and codigo of active products.
+ * <p>
+ * Text is folded to lower-case ASCII (accents removed) and split on anything that is not a
+ * letter or a digit. Every query term must match; the last one also matches as a prefix so
+ * results follow the user while typing. Hits are ranked by a field-weighted TF-IDF score.
+ * <p>
+ * Like {@link CatalogoReadModel}, the index keeps the row version of every product and
+ * ignores events older than it, and reloads in the background after a bulk change.
+ */
+@Component
+@Slf4j
+public class ProductoSearchIndex {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final int PESO_CODIGO = 5;
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_DESCRIPCION = 1;
+    private static final double FACTOR_PREFIJO = 0.8;
+    private static final int MAX_EXPANSION_PREFIJO = 64;
+
+    private final ProductoRepository productoRepository;
+    private final CatalogoVersion catalogoVersion;
+    private final TaskExecutor recargaExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, Map<String, Integer>> terminosPorProducto = new HashMap<>();
+    // Row version of every product, indexed or not; deleted products keep Long.MAX_VALUE
+    private Map<Long, Long> versiones = new HashMap<>();
+    private boolean loaded;
+
+    // Events received while a reload is running, replayed on top of the reloaded index
+    private List<CatalogoEvent> pendingEvents;
+    // A reload is queued, or must run again once the running one ends
+    private boolean reloadRequested;
+
+    public ProductoSearchIndex(ProductoRepository productoRepository,
+                               CatalogoVersion catalogoVersion,
+                               @Qualifier(CatalogoRecargaConfig.RECARGA_EXECUTOR) TaskExecutor recargaExecutor,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${catalogo.search.enabled:true}") boolean enabled) {
+        this.productoRepository = productoRepository;
+        this.catalogoVersion = catalogoVersion;
+        this.recargaExecutor = recargaExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    /**
+     * Page of search hits, ordered by relevance
+     * @param ids Product IDs in the page
+     * @param total Total number of matching products
+     */
+    public record Resultado(List<Long> ids, int total) {
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search the index
+     * @param query Free text typed by the user
+     * @param offset Index of the first hit to return
+     * @param limit Maximum number of hits to return
+     * @return Page of matching product IDs and the total number of matches
+     */
+    public Resultado search(String query, long offset, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new Resultado(List.of(), 0);
+        }
+
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            int documentos = Math.max(1, terminosPorProducto.size());
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                Map<Long, Double> termScores = new HashMap<>();
+                accumulate(termScores, postings.get(term), 1.0, documentos);
+                if (i == terms.size() - 1) {
+                    int expandidos = 0;
+                    for (Map<Long, Integer> conPrefijo : postings
+                            .subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                        if (++expandidos > MAX_EXPANSION_PREFIJO) {
+                            break;
+                        }
+                        accumulate(termScores, conPrefijo, FACTOR_PREFIJO, documentos);
+                    }
+                }
+
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> ids = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.<Long, Double>comparingByKey()))
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return new Resultado(ids, scores.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Rebuild the whole index from the database
+     */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingEvents != null) {
+                reloadRequested = true;
+                return;
+            }
+            pendingEvents = new ArrayList<>();
+            reloadRequested = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        NavigableMap<String, Map<Long, Integer>> nuevosPostings = new TreeMap<>();
+        Map<Long, Map<String, Integer>> nuevosTerminos = new HashMap<>();
+        Map<Long, Long> nuevasVersiones = new HashMap<>();
+        try {
+            // From the primary, like the read model: a lagging replica would undo recent changes
+            ReplicaDataSource.enPrimario(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ProductoVersionadoDTO> productos = productoRepository.streamAllVersionados()) {
+                    productos.forEach(versionado -> {
+                        nuevasVersiones.put(versionado.producto().id(), versionado.version());
+                        index(nuevosPostings, nuevosTerminos, versionado.producto());
+                    });
+                }
+            }));
+        } catch (RuntimeException ex) {
+            log.error("Could not build the product search index", ex);
+            lock.writeLock().lock();
+            try {
+                pendingEvents = null;
+                // Left to the next reload, so a failing database is not reloaded in a loop
+                reloadRequested = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        boolean again;
+        lock.writeLock().lock();
+        try {
+            for (CatalogoEvent event : pendingEvents) {
+                apply(nuevosPostings, nuevosTerminos, nuevasVersiones, event);
+            }
+            postings = nuevosPostings;
+            terminosPorProducto = nuevosTerminos;
+            versiones = nuevasVersiones;
+            loaded = true;
+            pendingEvents = null;
+            again = reloadRequested;
+            reloadRequested = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Searches answered while the reload ran may be cached under the new tag
+        catalogoVersion.refresh();
+        log.info("Product search index built with {} products and {} terms in {} ms",
+                nuevosTerminos.size(), nuevosPostings.size(), (System.nanoTime() - start) / 1_000_000);
+        if (again) {
+            reload();
+        }
+    }
+
+    /**
+     * Rebuild in the background, merged with any reload already queued or running
+     */
+    private void reloadInBackground() {
+        lock.writeLock().lock();
+        try {
+            boolean pendiente = reloadRequested;
+            reloadRequested = true;
+            if (pendiente || pendingEvents != null) {
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        recargaExecutor.execute(this::reload);
+    }
+
+    // Patched before CatalogoVersion publishes the new collection ETag
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogoEvent(CatalogoEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event instanceof CatalogoEvent.CatalogoModificado) {
+            reloadInBackground();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+            }
+            apply(postings, terminosPorProducto, versiones, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-case, accent-free tokens of the given text
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static void apply(NavigableMap<String, Map<Long, Integer>> postings,
+                              Map<Long, Map<String, Integer>> terminos, Map<Long, Long> versiones,
+                              CatalogoEvent event) {
+        switch (event) {
+            case CatalogoEvent.ProductoGuardado e -> {
+                // An older event that arrives late must not overwrite what is already indexed
+                if (e.version() >= versiones.getOrDefault(e.producto().id(), Long.MIN_VALUE)) {
+                    versiones.put(e.producto().id(), e.version());
+                    index(postings, terminos, e.producto());
+                }
+            }
+            case CatalogoEvent.ProductoEliminado e -> {
+                versiones.put(e.id(), Long.MAX_VALUE);
+                remove(postings, terminos, e.id());
+            }
+            default -> {
+                // Stock, categoria and marca changes do not affect the indexed fields
+            }
+        }
+    }
+
+    private static void index(NavigableMap<String, Map<Long, Integer>> postings,
+                              Map<Long, Map<String, Integer>> terminos, ProductoDTO producto) {
+        remove(postings, terminos, producto.id());
+        if (!Boolean.TRUE.equals(producto.activo())) {
+            return;
+        }
+
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        addTerms(pesos, producto.nombre(), PESO_NOMBRE);
+        addTerms(pesos, producto.descripcion(), PESO_DESCRIPCION);
+        addTerms(pesos, producto.codigo(), PESO_CODIGO);
+        // The whole code without separators, so "hppav15" finds "HP-PAV-15"
+        String codigoCompacto = String.join("", tokenize(producto.codigo()));
+        if (!codigoCompacto.isEmpty()) {
+            pesos.merge(codigoCompacto, PESO_CODIGO, Integer::sum);
+        }
+
+        pesos.forEach((term, peso) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(producto.id(), peso));
+        terminos.put(producto.id(), pesos);
+    }
+
+    private static void remove(NavigableMap<String, Map<Long, Integer>> postings,
+                               Map<Long, Map<String, Integer>> terminos, Long id) {
+        Map<String, Integer> anteriores = terminos.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String term : anteriores.keySet()) {
+            Map<Long, Integer> documentos = postings.get(term);
+            if (documentos != null) {
+                documentos.remove(id);
+                if (documentos.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> pesos, String text, int peso) {
+        for (String term : tokenize(text)) {
+            pesos.merge(term, peso, Integer::sum);
+        }
+    }
+
+    private static void accumulate(Map<Long, Double> scores, Map<Long, Integer> documentos,
+                                   double factor, int totalDocumentos) {
+        if (documentos == null || documentos.isEmpty()) {
+            return;
+        }
+        double idf = Math.log(1.0 + (double) totalDocumentos / documentos.size());
+        documentos.forEach((id, peso) -> scores.merge(id, factor * peso * idf, Math::max));
+    }
+}
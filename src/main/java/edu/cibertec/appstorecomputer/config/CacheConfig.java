@@ -0,0 +1,52 @@
+package edu.cibertec.appstorecomputer.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+
+/**
+ * Cache configuration for the reference data (categorias and marcas).
+ * <p>
+ * The caches are Caffeine caches bounded by size and TTL (see {@code spring.cache.caffeine.spec}).
+ * The caching advice runs before the transactional one, so a hit never opens a transaction
+ * nor borrows a connection, and the caches are transaction aware so evictions issued inside
+ * a write transaction only happen after it commits.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    public static final String CATEGORIAS = "categorias";
+    public static final String CATEGORIA_POR_ID = "categoriaPorId";
+    public static final String CATEGORIA_POR_NOMBRE = "categoriaPorNombre";
+    public static final String MARCAS = "marcas";
+    public static final String MARCA_POR_ID = "marcaPorId";
+    public static final String MARCA_POR_NOMBRE = "marcaPorNombre";
+    public static final String MARCAS_POR_PAIS = "marcasPorPais";
+
+    /**
+     * Caffeine caches built from the spring.cache properties; CaffeineCacheManager has no
+     * transaction-aware switch, so it is wrapped in a proxy that decorates every cache
+     */
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        String spec = properties.getCaffeine().getSpec();
+        if (StringUtils.hasText(spec)) {
+            caffeineCacheManager.setCacheSpecification(spec);
+        }
+        if (!properties.getCacheNames().isEmpty()) {
+            caffeineCacheManager.setCacheNames(properties.getCacheNames());
+        }
+        caffeineCacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
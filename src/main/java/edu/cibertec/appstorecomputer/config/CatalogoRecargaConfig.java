@@ -0,0 +1,35 @@
+package edu.cibertec.appstorecomputer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor for the full reloads of the in-memory catalog views.
+ * <p>
+ * A bulk change asks the read model and the search index to reload; the reload runs here
+ * instead of on the thread that committed the change. One worker is enough: requests made
+ * while a reload is queued or running are merged into it, so the queue never holds more
+ * than one reload per view.
+ */
+@Configuration
+public class CatalogoRecargaConfig {
+
+    public static final String RECARGA_EXECUTOR = "catalogoRecargaExecutor";
+
+    @Bean(name = RECARGA_EXECUTOR)
+    public ThreadPoolTaskExecutor catalogoRecargaExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("catalogo-recarga-", 0).factory());
+        }
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("catalogo-recarga-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -0,0 +1,136 @@
+package edu.cibertec.appstorecomputer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cibertec.appstorecomputer.exception.GlobalExceptionHandler;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of requests processed at the same time.
+ * <p>
+ * With platform threads the Tomcat pool is the cap; with virtual threads every request gets
+ * a thread and thousands of them would queue on the connection pool. Requests beyond the cap
+ * wait up to {@code catalogo.concurrency.wait-timeout} for a permit and are then rejected with
+ * 503 instead of piling up on the database. An async request, such as the CSV export, keeps
+ * its permit until its response completes.
+ */
+@Component
+@ConditionalOnProperty(name = "catalogo.concurrency.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permisos;
+    private final long esperaMaximaNanos;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(@Value("${catalogo.concurrency.max-requests:200}") int maxRequests,
+                                  @Value("${catalogo.concurrency.wait-timeout:PT1S}") Duration waitTimeout,
+                                  ObjectMapper objectMapper) {
+        this.permisos = new Semaphore(maxRequests, true);
+        this.esperaMaximaNanos = waitTimeout.toNanos();
+        this.objectMapper = objectMapper;
+        log.info("Limiting concurrent requests to {}", maxRequests);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean adquirido;
+        try {
+            adquirido = permisos.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            adquirido = false;
+        }
+        if (!adquirido) {
+            rechazar(request, response);
+            return;
+        }
+        boolean liberarAlSalir = true;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Streaming responses keep working (and holding a connection) after this thread
+                // returns; the permit goes back when the response is done
+                request.getAsyncContext().addListener(new LiberarAlTerminar());
+                liberarAlSalir = false;
+            }
+        } finally {
+            if (liberarAlSalir) {
+                permisos.release();
+            }
+        }
+    }
+
+    /**
+     * Gives the permit of an async request back once, on whichever of complete, error or
+     * timeout comes first
+     */
+    private class LiberarAlTerminar implements AsyncListener {
+
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Started again on a dispatch: this listener must be registered again to be kept
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberar() {
+            if (liberado.compareAndSet(false, true)) {
+                permisos.release();
+            }
+        }
+    }
+
+    private void rechazar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.warn("Rejecting {} {}: too many concurrent requests", request.getMethod(), request.getRequestURI());
+        GlobalExceptionHandler.ErrorResponse errorResponse = new GlobalExceptionHandler.ErrorResponse(
+                "SERVER_BUSY",
+                "El servidor está ocupado, intente nuevamente",
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                LocalDateTime.now()
+        );
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
@@ -0,0 +1,40 @@
+package edu.cibertec.appstorecomputer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor for the CSV product imports.
+ * <p>
+ * Imports run in the background and write to the database in chunks, so only a few run at
+ * the same time and the rest wait in a bounded queue instead of competing for connections.
+ * In virtual-thread mode the workers are virtual threads.
+ */
+@Configuration
+public class ImportacionConfig {
+
+    public static final String IMPORTACION_EXECUTOR = "importacionExecutor";
+
+    @Bean(name = IMPORTACION_EXECUTOR)
+    public ThreadPoolTaskExecutor importacionExecutor(
+            @Value("${catalogo.import.concurrency:1}") int concurrency,
+            @Value("${catalogo.import.queue-capacity:10}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        if (virtualThreads) {
+            // Same bounds, but the workers are virtual threads like the rest of the application
+            executor.setThreadFactory(Thread.ofVirtual().name("importacion-", 0).factory());
+        }
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("importacion-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        // Imports compare rows with what was just written, and run out of reach of the
+        // read-your-writes window
+        executor.setTaskDecorator(tarea -> () -> ReplicaDataSource.enPrimario(tarea));
+        return executor;
+    }
+}
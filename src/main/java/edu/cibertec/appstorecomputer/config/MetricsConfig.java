@@ -0,0 +1,40 @@
+package edu.cibertec.appstorecomputer.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics exposed on /actuator/prometheus.
+ * <p>
+ * Endpoints are timed by Spring MVC ({@code http.server.requests}, tagged by URI template),
+ * service methods by the {@code @Timed} advice on the service classes ({@value #SERVICE_TIMER},
+ * tagged by class and method) and connection borrowing by Hikari
+ * ({@code hikaricp.connections.acquire}); the histograms for all three are enabled in
+ * application.properties. Hibernate session statistics (statements, entity loads, second-level
+ * and query cache hits) are bound by Spring Boot when {@code hibernate.generate_statistics} is
+ * on; this class adds the per-query execution timers on top.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "catalogo.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        // One timer per JPQL string; the queries are static, so the tag set stays bounded
+        return new HibernateQueryMetrics(sessionFactory, "entityManagerFactory", Tags.empty());
+    }
+}
@@ -0,0 +1,91 @@
+package edu.cibertec.appstorecomputer.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes window over the replica routing.
+ * <p>
+ * Every write request reads from the primary and gets a cookie with the time of the write;
+ * for the next {@code catalogo.datasource.read-your-writes} the requests of that client also
+ * read from the primary, so they see their own changes whatever the replication lag. Clients
+ * without a cookie, or whose window expired, read from the replicas.
+ */
+@Component
+@ConditionalOnProperty(name = "catalogo.datasource.replicas.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "catalogo-escritura";
+
+    private final long ventanaMillis;
+
+    public ReadYourWritesFilter(@Value("${catalogo.datasource.read-your-writes:PT5S}") Duration ventana) {
+        this.ventanaMillis = ventana.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (ventanaMillis <= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        boolean escritura = esEscritura(request);
+        if (escritura) {
+            // Set before the chain: the response is usually committed when it returns
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(ahora))
+                    .path("/")
+                    .maxAge(Duration.ofMillis(ventanaMillis).toSeconds() + 1)
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+        ReplicaDataSource.leerDelPrimario(escritura || enVentana(request, ahora));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaDataSource.leerDelPrimario(false);
+        }
+    }
+
+    private static boolean esEscritura(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        return method != HttpMethod.GET && method != HttpMethod.HEAD
+                && method != HttpMethod.OPTIONS && method != HttpMethod.TRACE;
+    }
+
+    private boolean enVentana(HttpServletRequest request, long ahora) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return ahora - Long.parseLong(cookie.getValue()) < ventanaMillis;
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+package edu.cibertec.appstorecomputer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Read-only side of the replica routing: hands out connections from the replica pools in
+ * round-robin order.
+ * <p>
+ * A replica whose pool cannot produce a connection is skipped for
+ * {@code catalogo.datasource.replicas.retry-interval} and the next one is tried; when no replica
+ * is available, or the current request falls in the read-your-writes window of its client, the
+ * connection comes from the primary, so reads never fail because of the replicas.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private static final ThreadLocal<Boolean> LEER_DEL_PRIMARIO = new ThreadLocal<>();
+
+    private final DataSource primario;
+    private final List<Replica> replicas;
+    private final long reintentoNanos;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primario, List<HikariDataSource> replicas, Duration reintento) {
+        this.primario = primario;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.reintentoNanos = reintento.toNanos();
+    }
+
+    /**
+     * Send the read-only transactions of the current thread to the primary (or stop doing so)
+     */
+    static void leerDelPrimario(boolean activo) {
+        if (activo) {
+            LEER_DEL_PRIMARIO.set(Boolean.TRUE);
+        } else {
+            LEER_DEL_PRIMARIO.remove();
+        }
+    }
+
+    /**
+     * Run a read on the primary whatever the current thread is set to. For reads whose result
+     * must not be older than the last commit, and for reads off request threads, where the
+     * read-your-writes window never applies
+     */
+    public static <T> T enPrimario(Supplier<T> lectura) {
+        Boolean anterior = LEER_DEL_PRIMARIO.get();
+        LEER_DEL_PRIMARIO.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            if (anterior == null) {
+                LEER_DEL_PRIMARIO.remove();
+            }
+        }
+    }
+
+    public static void enPrimario(Runnable tarea) {
+        enPrimario(() -> {
+            tarea.run();
+            return null;
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (LEER_DEL_PRIMARIO.get() != null) {
+            return primario.getConnection();
+        }
+        int cantidad = replicas.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Replica replica = replicas.get((inicio + i) % cantidad);
+            long ahora = System.nanoTime();
+            if (!replica.disponible(ahora)) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException ex) {
+                replica.caidaHasta = ahora + reintentoNanos;
+                log.warn("Replica {} is unavailable, skipping it for {} ms",
+                        replica.dataSource.getPoolName(), reintentoNanos / 1_000_000, ex);
+            }
+        }
+        log.debug("No replica available, reading from the primary");
+        return primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        // System.nanoTime() until which the replica is skipped; 0 while it is healthy
+        private volatile long caidaHasta;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean disponible(long ahora) {
+            long hasta = caidaHasta;
+            return hasta == 0 || ahora - hasta >= 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.cibertec.appstorecomputer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to the read replicas and everything else to the primary.
+ * <p>
+ * The DataSource seen by JPA is a {@link LazyConnectionDataSourceProxy}: the transaction
+ * manager marks the connection of a {@code @Transactional(readOnly = true)} method read-only
+ * before any statement runs, and the proxy then takes the physical connection from
+ * {@link ReplicaDataSource} instead of the primary pool. Read-only methods joining a write
+ * transaction keep using its primary connection. Every replica gets its own Hikari pool with
+ * the credentials of {@code spring.datasource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalogo.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            DataSourceProperties properties,
+            @Value("${catalogo.datasource.replicas.urls}") List<String> urls,
+            @Value("${catalogo.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${catalogo.datasource.replicas.connection-timeout:PT2S}") Duration connectionTimeout,
+            @Value("${catalogo.datasource.replicas.retry-interval:PT10S}") Duration retryInterval) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setMaximumPoolSize(maximumPoolSize);
+            // Fail over quickly instead of waiting the primary's timeout on a dead replica
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, retryInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
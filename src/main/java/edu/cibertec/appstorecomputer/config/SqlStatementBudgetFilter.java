@@ -0,0 +1,150 @@
+package edu.cibertec.appstorecomputer.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * SQL statement budget per request.
+ * <p>
+ * Counts the statements each request runs ({@link SqlStatementCounter}) and returns the count
+ * in the {@value #HEADER} response header. The header is written right before the body, when
+ * the handler has already run all its queries. When the count exceeds the budget of the
+ * endpoint the request is logged ({@code LOG}) or fails ({@code FAIL}, meant for tests, since
+ * by then the response has usually been sent).
+ * <p>
+ * Budgets are keyed by handler pattern, with or without the HTTP method in front, e.g.
+ * {@code catalogo.sql-budget.endpoints[/productos/{id}]=2}; endpoints without one use
+ * {@code catalogo.sql-budget.default-max}. Streamed responses run their queries on another
+ * thread after the request returns and are not counted.
+ */
+@Component
+@ConditionalOnProperty(name = "catalogo.sql-budget.enabled", havingValue = "true", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-SQL-Statements";
+
+    public enum Modo {
+        LOG, FAIL
+    }
+
+    private final SqlStatementCounter counter;
+    private final Modo modo;
+    private final int maximoPorDefecto;
+    private final Map<String, Integer> presupuestos;
+
+    public SqlStatementBudgetFilter(SqlStatementCounter counter,
+                                    @Value("${catalogo.sql-budget.mode:LOG}") Modo modo,
+                                    @Value("${catalogo.sql-budget.default-max:10}") int maximoPorDefecto,
+                                    Environment environment) {
+        this.counter = counter;
+        this.modo = modo;
+        this.maximoPorDefecto = maximoPorDefecto;
+        this.presupuestos = Binder.get(environment)
+                .bind("catalogo.sql-budget.endpoints", Bindable.mapOf(String.class, Integer.class))
+                .orElse(Map.of());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        counter.start();
+        int total;
+        try {
+            filterChain.doFilter(request, new ConteoResponse(response));
+        } finally {
+            total = counter.stop();
+        }
+        if (isAsyncStarted(request)) {
+            return;
+        }
+        if (!response.isCommitted()) {
+            response.setIntHeader(HEADER, total);
+        }
+        verificar(request, total);
+    }
+
+    private void verificar(HttpServletRequest request, int total) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (patron == null) {
+            return;
+        }
+        String endpoint = request.getMethod() + " " + patron;
+        Integer presupuesto = presupuestos.getOrDefault(endpoint, presupuestos.get(patron.toString()));
+        int maximo = presupuesto != null ? presupuesto : maximoPorDefecto;
+        if (total <= maximo) {
+            return;
+        }
+        String mensaje = endpoint + " ran " + total + " SQL statements, budget is " + maximo;
+        if (modo == Modo.FAIL) {
+            throw new IllegalStateException(mensaje);
+        }
+        log.warn(mensaje);
+    }
+
+    /**
+     * Writes the count so far as soon as the body or an error is about to be sent
+     */
+    private final class ConteoResponse extends HttpServletResponseWrapper {
+
+        private ConteoResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private void escribirCabecera() {
+            if (!isCommitted()) {
+                setIntHeader(HEADER, counter.current());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            escribirCabecera();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            escribirCabecera();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            escribirCabecera();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            escribirCabecera();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            escribirCabecera();
+            super.sendError(sc);
+        }
+    }
+}
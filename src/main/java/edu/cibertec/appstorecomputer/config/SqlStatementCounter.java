@@ -0,0 +1,54 @@
+package edu.cibertec.appstorecomputer.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * <p>
+ * Registered as Hibernate's statement inspector, it sees every statement generated or
+ * declared through JPA (queries, inserts, updates, deletes, lazy loads); statements run
+ * outside Hibernate are not counted. Counting only happens between {@link #start()} and
+ * {@link #stop()}, which {@link SqlStatementBudgetFilter} calls around each request.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<int[]> CONTADOR = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] contador = CONTADOR.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql;
+    }
+
+    public void start() {
+        CONTADOR.set(new int[1]);
+    }
+
+    /**
+     * Statements counted so far on this thread
+     */
+    public int current() {
+        int[] contador = CONTADOR.get();
+        return contador != null ? contador[0] : 0;
+    }
+
+    public int stop() {
+        int total = current();
+        CONTADOR.remove();
+        return total;
+    }
+}
@@ -0,0 +1,93 @@
+package edu.cibertec.appstorecomputer.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import edu.cibertec.appstorecomputer.dto.CacheEstadisticasDTO;
+import edu.cibertec.appstorecomputer.dto.RegionCacheEstadisticasDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Cache", description = "API para consultar el estado de las cachés de la aplicación")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/estadisticas")
+    @Operation(summary = "Obtener estadísticas de las cachés", description = "Retorna aciertos, fallos, tasa de aciertos y desalojos de cada caché")
+    @ApiResponse(responseCode = "200", description = "Estadísticas encontradas",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CacheEstadisticasDTO.class)))
+    public ResponseEntity<List<CacheEstadisticasDTO>> getEstadisticas() {
+        log.info("REST request to get cache statistics");
+        List<CacheEstadisticasDTO> estadisticas = new ArrayList<>();
+        for (String nombre : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache instanceof TransactionAwareCacheDecorator decorator) {
+                cache = decorator.getTargetCache();
+            }
+            if (cache instanceof CaffeineCache caffeineCache) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+                CacheStats stats = nativeCache.stats();
+                estadisticas.add(new CacheEstadisticasDTO(
+                        nombre,
+                        nativeCache.estimatedSize(),
+                        stats.hitCount(),
+                        stats.missCount(),
+                        stats.hitRate(),
+                        stats.evictionCount()
+                ));
+            }
+        }
+        return ResponseEntity.ok(estadisticas);
+    }
+
+    @GetMapping("/estadisticas/hibernate")
+    @Operation(summary = "Obtener estadísticas de la caché de Hibernate",
+            description = "Retorna aciertos, fallos y escrituras de cada región de la caché de segundo nivel y de consultas")
+    @ApiResponse(responseCode = "200", description = "Estadísticas encontradas",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RegionCacheEstadisticasDTO.class)))
+    public ResponseEntity<List<RegionCacheEstadisticasDTO>> getEstadisticasHibernate() {
+        log.info("REST request to get Hibernate cache region statistics");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<RegionCacheEstadisticasDTO> estadisticas = new ArrayList<>();
+        for (String region : Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted().toList()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats == null) {
+                continue;
+            }
+            long consultas = stats.getHitCount() + stats.getMissCount();
+            estadisticas.add(new RegionCacheEstadisticasDTO(
+                    region,
+                    stats.getHitCount(),
+                    stats.getMissCount(),
+                    stats.getPutCount(),
+                    consultas == 0 ? 0.0 : (double) stats.getHitCount() / consultas
+            ));
+        }
+        return ResponseEntity.ok(estadisticas);
+    }
+}
@@ -1,6 +1,9 @@
 package edu.cibertec.appstorecomputer.controller;
 
+import edu.cibertec.appstorecomputer.config.BinaryFormatsConfig;
+import edu.cibertec.appstorecomputer.dto.ActivacionDTO;
 import edu.cibertec.appstorecomputer.dto.CategoriaDTO;
+import edu.cibertec.appstorecomputer.dto.VersionDTO;
 import edu.cibertec.appstorecomputer.service.CategoriaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +15,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,11 +34,14 @@ public class CategoriaController {
     @GetMapping
     @Operation(summary = "Obtener todas las categorías", description = "Retorna una lista de todas las categorías")
     @ApiResponse(responseCode = "200", description = "Categorías encontradas",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoriaDTO.class)))
+            content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = CategoriaDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_CBOR, schema = @Schema(implementation = CategoriaDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_SMILE, schema = @Schema(implementation = CategoriaDTO.class))})
     public ResponseEntity<List<CategoriaDTO>> getAllCategorias() {
         log.info("REST request to get all Categorias");
         List<CategoriaDTO> categorias = categoriaService.findAll();
-        return ResponseEntity.ok(categorias);
+        return RespuestasCondicionales.ok(categorias, CategoriaController::version);
     }
 
     @GetMapping("/activas")
@@ -44,7 +51,7 @@ public class CategoriaController {
     public ResponseEntity<List<CategoriaDTO>> getActiveCategorias() {
         log.info("REST request to get active Categorias");
         List<CategoriaDTO> categorias = categoriaService.findAllActive();
-        return ResponseEntity.ok(categorias);
+        return RespuestasCondicionales.ok(categorias, CategoriaController::version);
     }
 
     @GetMapping("/{id}")
@@ -60,7 +67,7 @@ public class CategoriaController {
             @PathVariable Long id) {
         log.info("REST request to get Categoria : {}", id);
         CategoriaDTO categoria = categoriaService.findById(id);
-        return ResponseEntity.ok(categoria);
+        return RespuestasCondicionales.ok(categoria, version(categoria));
     }
 
     @GetMapping("/nombre/{nombre}")
@@ -76,7 +83,7 @@ public class CategoriaController {
             @PathVariable String nombre) {
         log.info("REST request to get Categoria by nombre : {}", nombre);
         CategoriaDTO categoria = categoriaService.findByNombre(nombre);
-        return ResponseEntity.ok(categoria);
+        return RespuestasCondicionales.ok(categoria, version(categoria));
     }
 
     @PostMapping
@@ -107,15 +114,54 @@ public class CategoriaController {
             @ApiResponse(responseCode = "404", description = "Categoría no encontrada",
                     content = @Content),
             @ApiResponse(responseCode = "409", description = "Nombre de categoría ya existe",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match no coincide con la versión actual de la categoría",
                     content = @Content)
     })
     public ResponseEntity<CategoriaDTO> updateCategoria(
             @Parameter(description = "ID de la categoría", required = true)
             @PathVariable Long id,
             @Parameter(description = "Datos de la categoría", required = true)
-            @Valid @RequestBody CategoriaDTO categoriaDTO) {
+            @Valid @RequestBody CategoriaDTO categoriaDTO,
+            @Parameter(description = "ETag leído previamente; si ya no es el actual la actualización falla con 412")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("REST request to update Categoria : {}, {}", id, categoriaDTO);
-        CategoriaDTO result = categoriaService.update(id, categoriaDTO);
+        Long version = RespuestasCondicionales.versionEsperada(ifMatch, "Categoria", id);
+        CategoriaDTO result = categoriaService.update(id, categoriaDTO, version);
+        return RespuestasCondicionales.ok(result, version(result));
+    }
+
+    @PostMapping("/{id}/activar")
+    @Operation(summary = "Activar una categoría y sus productos",
+            description = "Activa la categoría y todos sus productos con dos sentencias UPDATE, sin cargarlos en memoria")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Categoría activada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ActivacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Categoría no encontrada",
+                    content = @Content)
+    })
+    public ResponseEntity<ActivacionDTO> activarCategoria(
+            @Parameter(description = "ID de la categoría", required = true)
+            @PathVariable Long id) {
+        log.info("REST request to activate Categoria and its Productos : {}", id);
+        ActivacionDTO result = categoriaService.activar(id);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/{id}/desactivar")
+    @Operation(summary = "Desactivar una categoría y sus productos",
+            description = "Desactiva la categoría y todos sus productos con dos sentencias UPDATE, sin cargarlos en memoria")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Categoría desactivada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ActivacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Categoría no encontrada",
+                    content = @Content)
+    })
+    public ResponseEntity<ActivacionDTO> desactivarCategoria(
+            @Parameter(description = "ID de la categoría", required = true)
+            @PathVariable Long id) {
+        log.info("REST request to deactivate Categoria and its Productos : {}", id);
+        ActivacionDTO result = categoriaService.desactivar(id);
         return ResponseEntity.ok(result);
     }
 
@@ -134,4 +180,8 @@ public class CategoriaController {
         categoriaService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static VersionDTO version(CategoriaDTO categoria) {
+        return new VersionDTO(categoria.id(), categoria.version(), categoria.fechaModificacion());
+    }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package edu.cibertec.appstorecomputer.controller;
 
+import edu.cibertec.appstorecomputer.config.BinaryFormatsConfig;
+import edu.cibertec.appstorecomputer.dto.ActivacionDTO;
 import edu.cibertec.appstorecomputer.dto.MarcaDTO;
+import edu.cibertec.appstorecomputer.dto.VersionDTO;
 import edu.cibertec.appstorecomputer.service.MarcaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +15,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,11 +34,14 @@ public class MarcaController {
     @GetMapping
     @Operation(summary = "Obtener todas las marcas", description = "Retorna una lista de todas las marcas")
     @ApiResponse(responseCode = "200", description = "Marcas encontradas",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = MarcaDTO.class)))
+            content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = MarcaDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_CBOR, schema = @Schema(implementation = MarcaDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_SMILE, schema = @Schema(implementation = MarcaDTO.class))})
     public ResponseEntity<List<MarcaDTO>> getAllMarcas() {
         log.info("REST request to get all Marcas");
         List<MarcaDTO> marcas = marcaService.findAll();
-        return ResponseEntity.ok(marcas);
+        return RespuestasCondicionales.ok(marcas, MarcaController::version);
     }
 
     @GetMapping("/activas")
@@ -44,7 +51,7 @@ public class MarcaController {
     public ResponseEntity<List<MarcaDTO>> getActiveMarcas() {
         log.info("REST request to get active Marcas");
         List<MarcaDTO> marcas = marcaService.findAllActive();
-        return ResponseEntity.ok(marcas);
+        return RespuestasCondicionales.ok(marcas, MarcaController::version);
     }
 
     @GetMapping("/{id}")
@@ -60,7 +67,7 @@ public class MarcaController {
             @PathVariable Long id) {
         log.info("REST request to get Marca : {}", id);
         MarcaDTO marca = marcaService.findById(id);
-        return ResponseEntity.ok(marca);
+        return RespuestasCondicionales.ok(marca, version(marca));
     }
 
     @GetMapping("/nombre/{nombre}")
@@ -76,7 +83,7 @@ public class MarcaController {
             @PathVariable String nombre) {
         log.info("REST request to get Marca by nombre : {}", nombre);
         MarcaDTO marca = marcaService.findByNombre(nombre);
-        return ResponseEntity.ok(marca);
+        return RespuestasCondicionales.ok(marca, version(marca));
     }
 
     @GetMapping("/pais/{paisOrigen}")
@@ -88,7 +95,7 @@ public class MarcaController {
             @PathVariable String paisOrigen) {
         log.info("REST request to get Marcas by paisOrigen : {}", paisOrigen);
         List<MarcaDTO> marcas = marcaService.findByPaisOrigen(paisOrigen);
-        return ResponseEntity.ok(marcas);
+        return RespuestasCondicionales.ok(marcas, MarcaController::version);
     }
 
     @PostMapping
@@ -119,15 +126,54 @@ public class MarcaController {
             @ApiResponse(responseCode = "404", description = "Marca no encontrada",
                     content = @Content),
             @ApiResponse(responseCode = "409", description = "Nombre de marca ya existe",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match no coincide con la versión actual de la marca",
                     content = @Content)
     })
     public ResponseEntity<MarcaDTO> updateMarca(
             @Parameter(description = "ID de la marca", required = true)
             @PathVariable Long id,
             @Parameter(description = "Datos de la marca", required = true)
-            @Valid @RequestBody MarcaDTO marcaDTO) {
+            @Valid @RequestBody MarcaDTO marcaDTO,
+            @Parameter(description = "ETag leído previamente; si ya no es el actual la actualización falla con 412")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("REST request to update Marca : {}, {}", id, marcaDTO);
-        MarcaDTO result = marcaService.update(id, marcaDTO);
+        Long version = RespuestasCondicionales.versionEsperada(ifMatch, "Marca", id);
+        MarcaDTO result = marcaService.update(id, marcaDTO, version);
+        return RespuestasCondicionales.ok(result, version(result));
+    }
+
+    @PostMapping("/{id}/activar")
+    @Operation(summary = "Activar una marca y sus productos",
+            description = "Activa la marca y todos sus productos con dos sentencias UPDATE, sin cargarlos en memoria")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Marca activada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ActivacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Marca no encontrada",
+                    content = @Content)
+    })
+    public ResponseEntity<ActivacionDTO> activarMarca(
+            @Parameter(description = "ID de la marca", required = true)
+            @PathVariable Long id) {
+        log.info("REST request to activate Marca and its Productos : {}", id);
+        ActivacionDTO result = marcaService.activar(id);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/{id}/desactivar")
+    @Operation(summary = "Desactivar una marca y sus productos",
+            description = "Desactiva la marca y todos sus productos con dos sentencias UPDATE, sin cargarlos en memoria")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Marca desactivada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ActivacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Marca no encontrada",
+                    content = @Content)
+    })
+    public ResponseEntity<ActivacionDTO> desactivarMarca(
+            @Parameter(description = "ID de la marca", required = true)
+            @PathVariable Long id) {
+        log.info("REST request to deactivate Marca and its Productos : {}", id);
+        ActivacionDTO result = marcaService.desactivar(id);
         return ResponseEntity.ok(result);
     }
 
@@ -146,4 +192,8 @@ public class MarcaController {
         marcaService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static VersionDTO version(MarcaDTO marca) {
+        return new VersionDTO(marca.id(), marca.version(), marca.fechaModificacion());
+    }
 }
\ No newline at end of file
@@ -1,7 +1,24 @@
 package edu.cibertec.appstorecomputer.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cibertec.appstorecomputer.catalog.CatalogoVersion;
+import edu.cibertec.appstorecomputer.config.BinaryFormatsConfig;
+import edu.cibertec.appstorecomputer.config.ReplicaDataSource;
+import edu.cibertec.appstorecomputer.dto.CursorPageDTO;
+import edu.cibertec.appstorecomputer.dto.ImportacionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoBatchResultadoDTO;
 import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFacetasDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFiltroDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoPatchDTO;
+import edu.cibertec.appstorecomputer.dto.StockCalienteDTO;
+import edu.cibertec.appstorecomputer.dto.StockDTO;
+import edu.cibertec.appstorecomputer.dto.StockReservaDTO;
+import edu.cibertec.appstorecomputer.exception.BusinessException;
+import edu.cibertec.appstorecomputer.service.ProductoImportService;
 import edu.cibertec.appstorecomputer.service.ProductoService;
+import edu.cibertec.appstorecomputer.service.StockCalienteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,12 +31,21 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/productos")
@@ -28,16 +54,51 @@ import java.util.List;
 @Tag(name = "Productos", description = "API para la gestión de productos")
 public class ProductoController {
 
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     private final ProductoService productoService;
+    private final ProductoImportService productoImportService;
+    private final StockCalienteService stockCalienteService;
+    private final ObjectMapper objectMapper;
+    private final CatalogoVersion catalogoVersion;
 
     @GetMapping
     @Operation(summary = "Obtener todos los productos", description = "Retorna una lista de todos los productos")
     @ApiResponse(responseCode = "200", description = "Productos encontrados",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class)))
-    public ResponseEntity<List<ProductoDTO>> getAllProductos() {
+            content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_CBOR, schema = @Schema(implementation = ProductoDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_SMILE, schema = @Schema(implementation = ProductoDTO.class))})
+    public ResponseEntity<List<ProductoDTO>> getAllProductos(WebRequest request) {
         log.info("REST request to get all Productos");
-        List<ProductoDTO> productos = productoService.findAll();
-        return ResponseEntity.ok(productos);
+        // Tagged with a version of the rows it lists, so it can be read from a replica
+        return productoService.findAll(version -> request.checkNotModified(version.etag()))
+                .map(ResponseEntity::ok)
+                .orElse(null);
+    }
+
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Exportar el catálogo completo",
+            description = "Transmite todos los productos desde un cursor de base de datos, en NDJSON (un producto por línea) o como un arreglo JSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catálogo exportado",
+                    content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ProductoDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado",
+                    content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportProductos(
+            @Parameter(description = "Formato de salida: ndjson o json")
+            @RequestParam(defaultValue = "ndjson") String formato) {
+        log.info("REST request to export all Productos as {}", formato);
+        boolean ndjson = switch (formato.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> true;
+            case "json" -> false;
+            default -> throw new BusinessException("INVALID_FORMAT", "Formato no soportado: " + formato);
+        };
+        StreamingResponseBody body = outputStream -> writeCatalog(outputStream, ndjson);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/pagina")
@@ -50,14 +111,41 @@ public class ProductoController {
         return ResponseEntity.ok(page);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Obtener productos por cursor",
+            description = "Retorna un bloque de productos usando paginación por cursor (keyset); el costo no depende de la profundidad")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Productos encontrados",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Cursor, orden o tamaño inválido",
+                    content = @Content)
+    })
+    public ResponseEntity<CursorPageDTO<ProductoDTO>> getAllProductosByCursor(
+            @Parameter(description = "Cursor devuelto en el bloque anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por bloque")
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Orden: id, nombre o precio")
+            @RequestParam(defaultValue = "id") String orden,
+            @Parameter(description = "Incluir el total de productos (ejecuta un COUNT)")
+            @RequestParam(defaultValue = "false") boolean incluirTotal) {
+        log.info("REST request to get Productos by cursor");
+        CursorPageDTO<ProductoDTO> page = productoService.findAllByCursor(cursor, size, orden, incluirTotal);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/activos")
     @Operation(summary = "Obtener productos activos", description = "Retorna una lista de productos activos")
     @ApiResponse(responseCode = "200", description = "Productos activos encontrados",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class)))
-    public ResponseEntity<List<ProductoDTO>> getActiveProductos() {
+            content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_CBOR, schema = @Schema(implementation = ProductoDTO.class)),
+                    @Content(mediaType = BinaryFormatsConfig.APPLICATION_SMILE, schema = @Schema(implementation = ProductoDTO.class))})
+    public ResponseEntity<List<ProductoDTO>> getActiveProductos(WebRequest request) {
         log.info("REST request to get active Productos");
-        List<ProductoDTO> productos = productoService.findAllActive();
-        return ResponseEntity.ok(productos);
+        return productoService.findAllActive(version -> request.checkNotModified(version.etag()))
+                .map(ResponseEntity::ok)
+                .orElse(null);
     }
 
     @GetMapping("/activos/pagina")
@@ -70,20 +158,49 @@ public class ProductoController {
         return ResponseEntity.ok(page);
     }
 
+    @GetMapping("/activos/cursor")
+    @Operation(summary = "Obtener productos activos por cursor",
+            description = "Retorna un bloque de productos activos usando paginación por cursor (keyset)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Productos activos encontrados",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPageDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Cursor, orden o tamaño inválido",
+                    content = @Content)
+    })
+    public ResponseEntity<CursorPageDTO<ProductoDTO>> getActiveProductosByCursor(
+            @Parameter(description = "Cursor devuelto en el bloque anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por bloque")
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Orden: id, nombre o precio")
+            @RequestParam(defaultValue = "id") String orden,
+            @Parameter(description = "Incluir el total de productos activos (ejecuta un COUNT)")
+            @RequestParam(defaultValue = "false") boolean incluirTotal) {
+        log.info("REST request to get active Productos by cursor");
+        CursorPageDTO<ProductoDTO> page = productoService.findAllActiveByCursor(cursor, size, orden, incluirTotal);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener producto por ID", description = "Retorna un producto según su ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto encontrado",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Producto sin cambios desde la versión del cliente",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Producto no encontrado",
                     content = @Content)
     })
     public ResponseEntity<ProductoDTO> getProductoById(
             @Parameter(description = "ID del producto", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
         log.info("REST request to get Producto : {}", id);
-        ProductoDTO producto = productoService.findById(id);
-        return ResponseEntity.ok(producto);
+        // The version and the body come from the same transaction, on whichever database serves it
+        return productoService.findById(id,
+                        version -> request.checkNotModified(version.etag(), version.lastModified()))
+                .map(ResponseEntity::ok)
+                .orElse(null);
     }
 
     @GetMapping("/codigo/{codigo}")
@@ -108,9 +225,13 @@ public class ProductoController {
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class)))
     public ResponseEntity<List<ProductoDTO>> getProductosByCategoria(
             @Parameter(description = "ID de la categoría", required = true)
-            @PathVariable Long categoriaId) {
+            @PathVariable Long categoriaId,
+            WebRequest request) {
         log.info("REST request to get Productos by categoria : {}", categoriaId);
-        List<ProductoDTO> productos = productoService.findByCategoria(categoriaId);
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductoDTO> productos = ReplicaDataSource.enPrimario(() -> productoService.findByCategoria(categoriaId));
         return ResponseEntity.ok(productos);
     }
 
@@ -120,9 +241,13 @@ public class ProductoController {
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class)))
     public ResponseEntity<List<ProductoDTO>> getProductosByMarca(
             @Parameter(description = "ID de la marca", required = true)
-            @PathVariable Long marcaId) {
+            @PathVariable Long marcaId,
+            WebRequest request) {
         log.info("REST request to get Productos by marca : {}", marcaId);
-        List<ProductoDTO> productos = productoService.findByMarca(marcaId);
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductoDTO> productos = ReplicaDataSource.enPrimario(() -> productoService.findByMarca(marcaId));
         return ResponseEntity.ok(productos);
     }
 
@@ -134,9 +259,14 @@ public class ProductoController {
             @Parameter(description = "ID de la categoría", required = true)
             @PathVariable Long categoriaId,
             @Parameter(description = "ID de la marca", required = true)
-            @PathVariable Long marcaId) {
+            @PathVariable Long marcaId,
+            WebRequest request) {
         log.info("REST request to get Productos by categoria : {} and marca : {}", categoriaId, marcaId);
-        List<ProductoDTO> productos = productoService.findByCategoriaAndMarca(categoriaId, marcaId);
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductoDTO> productos = ReplicaDataSource.enPrimario(
+                () -> productoService.findByCategoriaAndMarca(categoriaId, marcaId));
         return ResponseEntity.ok(productos);
     }
 
@@ -152,6 +282,20 @@ public class ProductoController {
         return ResponseEntity.ok(productos);
     }
 
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar productos",
+            description = "Búsqueda de texto completo en nombre, descripción y código de los productos activos, ordenada por relevancia. Ignora tildes y mayúsculas; la última palabra se busca como prefijo")
+    @ApiResponse(responseCode = "200", description = "Productos encontrados",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class)))
+    public ResponseEntity<Page<ProductoDTO>> searchProductos(
+            @Parameter(description = "Texto a buscar", required = true)
+            @RequestParam String q,
+            Pageable pageable) {
+        log.info("REST request to search Productos : {}", q);
+        Page<ProductoDTO> page = productoService.search(q, pageable);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/precio")
     @Operation(summary = "Obtener productos por rango de precio", description = "Retorna una lista de productos dentro del rango de precio especificado")
     @ApiResponse(responseCode = "200", description = "Productos encontrados",
@@ -166,6 +310,34 @@ public class ProductoController {
         return ResponseEntity.ok(productos);
     }
 
+    @GetMapping("/precio/pagina")
+    @Operation(summary = "Obtener productos por rango de precio paginados", description = "Retorna una página de productos dentro del rango de precio especificado, del más barato al más caro")
+    @ApiResponse(responseCode = "200", description = "Productos encontrados",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class)))
+    public ResponseEntity<Page<ProductoDTO>> getProductosByPrecioPaginated(
+            @Parameter(description = "Precio mínimo", required = true)
+            @RequestParam BigDecimal min,
+            @Parameter(description = "Precio máximo", required = true)
+            @RequestParam BigDecimal max,
+            Pageable pageable) {
+        log.info("REST request to get a page of Productos by precio between : {} and {}", min, max);
+        Page<ProductoDTO> page = productoService.findByPrecioBetween(min, max, pageable);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/precio/conteo")
+    @Operation(summary = "Contar productos por rango de precio", description = "Retorna la cantidad de productos dentro del rango de precio especificado")
+    @ApiResponse(responseCode = "200", description = "Cantidad de productos",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Long.class)))
+    public ResponseEntity<Long> countProductosByPrecio(
+            @Parameter(description = "Precio mínimo", required = true)
+            @RequestParam BigDecimal min,
+            @Parameter(description = "Precio máximo", required = true)
+            @RequestParam BigDecimal max) {
+        log.info("REST request to count Productos by precio between : {} and {}", min, max);
+        return ResponseEntity.ok(productoService.countByPrecioBetween(min, max));
+    }
+
     @GetMapping("/stock-bajo")
     @Operation(summary = "Obtener productos con stock bajo", description = "Retorna una lista de productos con stock menor al especificado")
     @ApiResponse(responseCode = "200", description = "Productos encontrados",
@@ -178,16 +350,226 @@ public class ProductoController {
         return ResponseEntity.ok(productos);
     }
 
+    @GetMapping("/stock-bajo/pagina")
+    @Operation(summary = "Obtener productos con stock bajo paginados", description = "Retorna una página de productos con stock menor al especificado, del menor stock al mayor")
+    @ApiResponse(responseCode = "200", description = "Productos encontrados",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class)))
+    public ResponseEntity<Page<ProductoDTO>> getProductosByStockBajoPaginated(
+            @Parameter(description = "Stock mínimo", required = true)
+            @RequestParam Integer stockMinimo,
+            Pageable pageable) {
+        log.info("REST request to get a page of Productos with stock less than : {}", stockMinimo);
+        Page<ProductoDTO> page = productoService.findByStockLessThan(stockMinimo, pageable);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/stock-bajo/conteo")
+    @Operation(summary = "Contar productos con stock bajo", description = "Retorna la cantidad de productos con stock menor al especificado")
+    @ApiResponse(responseCode = "200", description = "Cantidad de productos",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Long.class)))
+    public ResponseEntity<Long> countProductosByStockBajo(
+            @Parameter(description = "Stock mínimo", required = true)
+            @RequestParam Integer stockMinimo) {
+        log.info("REST request to count Productos with stock less than : {}", stockMinimo);
+        return ResponseEntity.ok(productoService.countByStockLessThan(stockMinimo));
+    }
+
+    @PostMapping("/{id}/stock/descontar")
+    @Operation(summary = "Descontar stock de un producto",
+            description = "Descuenta unidades con una sola actualización condicional; falla si no hay stock suficiente")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock descontado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Stock insuficiente",
+                    content = @Content)
+    })
+    public ResponseEntity<StockDTO> descontarStock(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Unidades a descontar", required = true)
+            @RequestParam Integer cantidad) {
+        log.info("REST request to decrement stock of Producto {} by {}", id, cantidad);
+        return ResponseEntity.ok(productoService.descontarStock(id, cantidad));
+    }
+
+    @PostMapping("/{id}/stock/reponer")
+    @Operation(summary = "Reponer stock de un producto", description = "Suma unidades al stock con una sola actualización")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock repuesto",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content)
+    })
+    public ResponseEntity<StockDTO> reponerStock(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Unidades a reponer", required = true)
+            @RequestParam Integer cantidad) {
+        log.info("REST request to restock Producto {} with {} units", id, cantidad);
+        return ResponseEntity.ok(productoService.reponerStock(id, cantidad));
+    }
+
+    @PostMapping("/stock/reservar")
+    @Operation(summary = "Reservar stock de un carrito",
+            description = "Descuenta el stock de todas las líneas de un carrito; si alguna no tiene stock suficiente no se descuenta ninguna")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock reservado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Datos del carrito inválidos",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Stock insuficiente en alguna línea",
+                    content = @Content)
+    })
+    public ResponseEntity<List<StockDTO>> reservarStock(
+            @Parameter(description = "Líneas del carrito", required = true)
+            @Valid @RequestBody StockReservaDTO reserva) {
+        log.info("REST request to reserve stock for a cart of {} lines", reserva.lineas().size());
+        return ResponseEntity.ok(productoService.reservarStock(reserva.lineas()));
+    }
+
+    @PostMapping("/stock/liberar")
+    @Operation(summary = "Liberar stock de un carrito",
+            description = "Devuelve al stock las unidades de todas las líneas de un carrito, por ejemplo al cancelar una reserva")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock liberado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Datos del carrito inválidos",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content)
+    })
+    public ResponseEntity<List<StockDTO>> liberarStock(
+            @Parameter(description = "Líneas del carrito", required = true)
+            @Valid @RequestBody StockReservaDTO reserva) {
+        log.info("REST request to release stock for a cart of {} lines", reserva.lineas().size());
+        return ResponseEntity.ok(productoService.liberarStock(reserva.lineas()));
+    }
+
+    @GetMapping("/stock/caliente")
+    @Operation(summary = "Obtener productos con stock caliente",
+            description = "Retorna los productos cuyo stock se maneja en memoria, con las unidades disponibles y el cambio pendiente de escribir")
+    @ApiResponse(responseCode = "200", description = "Productos con stock caliente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockCalienteDTO.class)))
+    public ResponseEntity<List<StockCalienteDTO>> getStockCaliente() {
+        log.info("REST request to get Productos in hot stock mode");
+        return ResponseEntity.ok(stockCalienteService.findAll());
+    }
+
+    @PostMapping("/{id}/stock/caliente")
+    @Operation(summary = "Activar stock caliente",
+            description = "Mueve el stock del producto a contadores en memoria para ventas masivas; los cambios se escriben en la base de datos por lotes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock caliente activado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockCalienteDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content)
+    })
+    public ResponseEntity<StockCalienteDTO> activarStockCaliente(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable Long id) {
+        log.info("REST request to enable hot stock mode for Producto : {}", id);
+        return ResponseEntity.ok(stockCalienteService.activar(id));
+    }
+
+    @DeleteMapping("/{id}/stock/caliente")
+    @Operation(summary = "Desactivar stock caliente",
+            description = "Escribe los cambios pendientes y devuelve el manejo del stock a la base de datos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock caliente desactivado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockCalienteDTO.class))),
+            @ApiResponse(responseCode = "404", description = "El producto no tiene stock caliente",
+                    content = @Content)
+    })
+    public ResponseEntity<StockCalienteDTO> desactivarStockCaliente(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable Long id) {
+        log.info("REST request to disable hot stock mode for Producto : {}", id);
+        return ResponseEntity.ok(stockCalienteService.desactivar(id));
+    }
+
     @GetMapping("/disponibles")
     @Operation(summary = "Obtener productos disponibles", description = "Retorna una lista de productos disponibles (activos y con stock)")
     @ApiResponse(responseCode = "200", description = "Productos disponibles encontrados",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class)))
-    public ResponseEntity<List<ProductoDTO>> getAvailableProductos() {
+    public ResponseEntity<List<ProductoDTO>> getAvailableProductos(WebRequest request) {
         log.info("REST request to get available Productos");
-        List<ProductoDTO> productos = productoService.findAvailableProducts();
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductoDTO> productos = ReplicaDataSource.enPrimario(productoService::findAvailableProducts);
         return ResponseEntity.ok(productos);
     }
 
+    @GetMapping("/filtro")
+    @Operation(summary = "Filtrar productos",
+            description = "Retorna una página de productos que cumplen todas las condiciones indicadas (categoría, marca, rango de precio, rango de stock, estado y prefijo del nombre). Se puede ordenar por id, nombre, precio o stock")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Productos encontrados",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class))),
+            @ApiResponse(responseCode = "400", description = "Orden no soportado",
+                    content = @Content)
+    })
+    public ResponseEntity<Page<ProductoDTO>> getProductosByFiltro(
+            @Parameter(description = "ID de la categoría")
+            @RequestParam(required = false) Long categoriaId,
+            @Parameter(description = "ID de la marca")
+            @RequestParam(required = false) Long marcaId,
+            @Parameter(description = "Precio mínimo")
+            @RequestParam(required = false) BigDecimal min,
+            @Parameter(description = "Precio máximo")
+            @RequestParam(required = false) BigDecimal max,
+            @Parameter(description = "Stock mínimo (incluido)")
+            @RequestParam(required = false) Integer stockDesde,
+            @Parameter(description = "Stock máximo (incluido)")
+            @RequestParam(required = false) Integer stockHasta,
+            @Parameter(description = "Estado del producto")
+            @RequestParam(required = false) Boolean activo,
+            @Parameter(description = "Prefijo del nombre")
+            @RequestParam(required = false) String nombre,
+            Pageable pageable) {
+        log.info("REST request to get a page of Productos by filtro");
+        ProductoFiltroDTO filtro = new ProductoFiltroDTO(categoriaId, marcaId, min, max,
+                stockDesde, stockHasta, activo, nombre);
+        Page<ProductoDTO> page = productoService.findByFiltro(filtro, pageable);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/facetas")
+    @Operation(summary = "Obtener facetas de productos",
+            description = "Retorna, para el filtro dado, la cantidad de productos por categoría, por marca, por rango de precio y con o sin stock. Cada faceta ignora su propia condición")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Facetas calculadas",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoFacetasDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Catálogo sin cambios desde la versión del cliente",
+                    content = @Content)
+    })
+    public ResponseEntity<ProductoFacetasDTO> getFacetas(
+            @Parameter(description = "ID de la categoría")
+            @RequestParam(required = false) Long categoriaId,
+            @Parameter(description = "ID de la marca")
+            @RequestParam(required = false) Long marcaId,
+            @Parameter(description = "Precio mínimo")
+            @RequestParam(required = false) BigDecimal min,
+            @Parameter(description = "Precio máximo")
+            @RequestParam(required = false) BigDecimal max,
+            @Parameter(description = "Solo productos con stock (true) o sin stock (false)")
+            @RequestParam(required = false) Boolean enStock,
+            @Parameter(description = "Contar solo productos activos")
+            @RequestParam(defaultValue = "true") boolean soloActivos,
+            WebRequest request) {
+        log.info("REST request to get Producto facets");
+        if (notModified(request)) {
+            return null;
+        }
+        ProductoFacetasDTO facetas = ReplicaDataSource.enPrimario(
+                () -> productoService.findFacetas(categoriaId, marcaId, min, max, enStock, soloActivos));
+        return ResponseEntity.ok(facetas);
+    }
+
     @PostMapping
     @Operation(summary = "Crear un nuevo producto", description = "Crea un nuevo producto y retorna el producto creado")
     @ApiResponses(value = {
@@ -208,6 +590,60 @@ public class ProductoController {
         return new ResponseEntity<>(result, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar productos desde CSV",
+            description = "Recibe un archivo CSV con cabecera (nombre, descripcion, precio, stock, codigo, imagenUrl, categoriaId, marcaId, activo) y lo procesa en segundo plano, creando o actualizando productos por código")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Importación en cola",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportacionDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Archivo vacío, sin cabecera o con columnas faltantes",
+                    content = @Content)
+    })
+    public ResponseEntity<ImportacionDTO> importarProductos(
+            @Parameter(description = "Archivo CSV (UTF-8, separado por coma o punto y coma)", required = true)
+            @RequestParam("archivo") MultipartFile archivo) {
+        log.info("REST request to import Productos from file: {}", archivo.getOriginalFilename());
+        ImportacionDTO importacion = productoImportService.importCsv(archivo);
+        return ResponseEntity.accepted().body(importacion);
+    }
+
+    @GetMapping("/importar/{id}")
+    @Operation(summary = "Consultar una importación",
+            description = "Retorna el avance de una importación CSV: filas procesadas, creadas, actualizadas, fallidas, filas por segundo y los errores por fila")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación encontrada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Importación no encontrada",
+                    content = @Content)
+    })
+    public ResponseEntity<ImportacionDTO> getImportacion(
+            @Parameter(description = "ID de la importación", required = true)
+            @PathVariable String id) {
+        log.info("REST request to get Importacion : {}", id);
+        ImportacionDTO importacion = productoImportService.findById(id);
+        return ResponseEntity.ok(importacion);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Crear productos en lote",
+            description = "Valida y crea una lista de productos en una sola transacción con inserciones por lotes. Retorna el resultado de cada elemento")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Todos los productos fueron creados",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoBatchResultadoDTO.class))),
+            @ApiResponse(responseCode = "207", description = "Algunos productos no fueron creados; ver el resultado de cada elemento",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoBatchResultadoDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande",
+                    content = @Content)
+    })
+    public ResponseEntity<ProductoBatchResultadoDTO> createProductosBatch(
+            @Parameter(description = "Productos a crear", required = true)
+            @RequestBody List<ProductoDTO> productosDTO) {
+        log.info("REST request to save a batch of {} Productos", productosDTO.size());
+        ProductoBatchResultadoDTO result = productoService.createBatch(productosDTO);
+        HttpStatus status = result.fallidos() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(result, status);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Actualizar un producto", description = "Actualiza un producto existente y retorna el producto actualizado")
     @ApiResponses(value = {
@@ -218,15 +654,48 @@ public class ProductoController {
             @ApiResponse(responseCode = "404", description = "Producto, categoría o marca no encontrada",
                     content = @Content),
             @ApiResponse(responseCode = "409", description = "Código de producto ya existe",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match no coincide con la versión actual de lo producto",
                     content = @Content)
     })
     public ResponseEntity<ProductoDTO> updateProducto(
             @Parameter(description = "ID del producto", required = true)
             @PathVariable Long id,
             @Parameter(description = "Datos del producto", required = true)
-            @Valid @RequestBody ProductoDTO productoDTO) {
+            @Valid @RequestBody ProductoDTO productoDTO,
+            @Parameter(description = "ETag leído previamente; si ya no es el actual la actualización falla con 412")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("REST request to update Producto : {}, {}", id, productoDTO);
-        ProductoDTO result = productoService.update(id, productoDTO);
+        Long version = RespuestasCondicionales.versionEsperada(ifMatch, "Producto", id);
+        ProductoDTO result = productoService.update(id, productoDTO, version);
+        return ResponseEntity.ok(result);
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(summary = "Actualizar parcialmente un producto",
+            description = "Cambia solo los campos enviados (el stock se modifica con los endpoints de stock) con una única sentencia UPDATE y retorna el producto actualizado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Producto actualizado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductoDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o ningún campo para actualizar",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Producto, categoría o marca no encontrada",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Código de producto ya existe",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match no coincide con la versión actual del producto",
+                    content = @Content)
+    })
+    public ResponseEntity<ProductoDTO> patchProducto(
+            @Parameter(description = "ID del producto", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Campos a cambiar", required = true)
+            @Valid @RequestBody ProductoPatchDTO cambios,
+            @Parameter(description = "ETag leído previamente; si ya no es el actual la actualización falla con 412")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("REST request to patch Producto : {}, {}", id, cambios);
+        Long version = RespuestasCondicionales.versionEsperada(ifMatch, "Producto", id);
+        ProductoDTO result = productoService.patch(id, cambios, version);
         return ResponseEntity.ok(result);
     }
 
@@ -245,4 +714,50 @@ public class ProductoController {
         productoService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Conditional GET of a product collection: any catalog change moves the catalog version,
+     * so a client holding the current one gets 304 before the list is built. The list itself is
+     * then read from the primary, as the version moves when the primary commits and a lagging
+     * replica would send older data under the new tag
+     */
+    private boolean notModified(WebRequest request) {
+        return request.checkNotModified(catalogoVersion.etag(), catalogoVersion.lastModified());
+    }
+
+    /**
+     * Writes the catalog element by element as the rows come out of the database cursor,
+     * flushing regularly so memory stays flat and the first bytes leave immediately.
+     */
+    private void writeCatalog(OutputStream outputStream, boolean ndjson) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            int[] written = {0};
+            try {
+                productoService.exportAll(producto -> {
+                    try {
+                        generator.writeObject(producto);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                        if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+            log.info("Exported {} Productos", written[0]);
+        }
+    }
 }
\ No newline at end of file
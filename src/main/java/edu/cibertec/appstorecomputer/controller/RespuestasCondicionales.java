@@ -0,0 +1,88 @@
+package edu.cibertec.appstorecomputer.controller;
+
+import edu.cibertec.appstorecomputer.dto.ProductoVersionDTO;
+import edu.cibertec.appstorecomputer.dto.VersionDTO;
+import edu.cibertec.appstorecomputer.exception.VersionConflictException;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * ETag handling shared by the catalog controllers: 200 responses carrying ETag and
+ * Last-Modified for bodies that are already in memory, and the If-Match precondition of updates.
+ * <p>
+ * Spring MVC answers a GET whose If-None-Match (or If-Modified-Since) matches these headers
+ * with 304 and no body, so a client revalidating a cached categoria or marca costs neither a
+ * query nor serialization.
+ */
+final class RespuestasCondicionales {
+
+    private static final long MEZCLA = 0x9E3779B97F4A7C15L;
+
+    private RespuestasCondicionales() {
+    }
+
+    /**
+     * Version required by an If-Match header, in the format written by {@link VersionDTO#etag()}
+     * or {@link ProductoVersionDTO#etag()}
+     * @return null when there is no precondition (no header or {@code *})
+     * @throws VersionConflictException when no strong ETag of the header belongs to this resource
+     */
+    static Long versionEsperada(String ifMatch, String recurso, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefijo = "\"" + id + "-";
+        for (String etag : ifMatch.split(",")) {
+            etag = etag.trim();
+            // If-Match uses the strong comparison: a weak ETag never matches
+            if (etag.startsWith(prefijo) && etag.endsWith("\"") && etag.length() > prefijo.length() + 1) {
+                // A product ETag goes on with the versions of its categoria and marca
+                String versiones = etag.substring(prefijo.length(), etag.length() - 1);
+                int fin = versiones.indexOf('-');
+                try {
+                    return Long.parseLong(fin < 0 ? versiones : versiones.substring(0, fin));
+                } catch (NumberFormatException ex) {
+                    // not one of ours, keep looking
+                }
+            }
+        }
+        throw new VersionConflictException(recurso, id);
+    }
+
+    static <T> ResponseEntity<T> ok(T body, VersionDTO version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (version.version() != null) {
+            builder.eTag(version.etag());
+        }
+        if (version.lastModified() > 0) {
+            builder.lastModified(version.lastModified());
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * The ETag of a list is a digest of the id and version of each element, so it changes
+     * when an element is added, removed, reordered or modified
+     */
+    static <T> ResponseEntity<List<T>> ok(List<T> body, Function<T, VersionDTO> versionDe) {
+        long digest = body.size();
+        long ultimaModificacion = -1;
+        for (T elemento : body) {
+            VersionDTO version = versionDe.apply(elemento);
+            if (version.version() == null) {
+                return ResponseEntity.ok(body);
+            }
+            digest = (digest ^ version.id()) * MEZCLA;
+            digest = (digest ^ version.version()) * MEZCLA;
+            ultimaModificacion = Math.max(ultimaModificacion, version.lastModified());
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(body.size() + "-" + Long.toHexString(digest));
+        if (ultimaModificacion > 0) {
+            builder.lastModified(ultimaModificacion);
+        }
+        return builder.body(body);
+    }
+}
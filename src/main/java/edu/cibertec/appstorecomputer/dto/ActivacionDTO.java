@@ -0,0 +1,11 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * DTO with the result of activating or deactivating a category or brand together with its products
+ */
+public record ActivacionDTO(
+        Long id,
+        Boolean activo,
+        Integer productosActualizados
+) {
+}
@@ -0,0 +1,14 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * DTO with the statistics of an application cache
+ */
+public record CacheEstadisticasDTO(
+        String nombre,
+        long entradas,
+        long aciertos,
+        long fallos,
+        double tasaAciertos,
+        long desalojos
+) {
+}
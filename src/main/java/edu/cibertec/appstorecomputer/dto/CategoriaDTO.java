@@ -3,6 +3,8 @@ package edu.cibertec.appstorecomputer.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDateTime;
+
 /**
  * DTO for Categoria entity
  */
@@ -16,7 +18,11 @@ public record CategoriaDTO(
         @Size(max = 255, message = "La descripción no debe exceder los 255 caracteres")
         String descripcion,
         
-        Boolean activo
+        Boolean activo,
+
+        // Response only: optimistic lock version and last modification, exposed as ETag and Last-Modified
+        Long version,
+        LocalDateTime fechaModificacion
 ) {
     // Constructor for creating a new category (without ID)
     public CategoriaDTO(
@@ -29,6 +35,6 @@ public record CategoriaDTO(
             
             Boolean activo
     ) {
-        this(null, nombre, descripcion, activo);
+        this(null, nombre, descripcion, activo, null, null);
     }
 }
\ No newline at end of file
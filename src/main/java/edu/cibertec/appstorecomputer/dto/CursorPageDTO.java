@@ -0,0 +1,18 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.util.List;
+
+/**
+ * Slice of results for keyset (cursor) pagination.
+ * <p>
+ * {@code nextCursor} is an opaque token to pass back to fetch the following slice;
+ * {@code totalElements} is only filled in when the client explicitly asks for it.
+ */
+public record CursorPageDTO<T>(
+        List<T> content,
+        int size,
+        String nextCursor,
+        boolean hasNext,
+        Long totalElements
+) {
+}
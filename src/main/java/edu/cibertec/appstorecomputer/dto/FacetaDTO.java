@@ -0,0 +1,11 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * DTO with the number of products of a categoria or marca within a facet
+ */
+public record FacetaDTO(
+        Long id,
+        String nombre,
+        long cantidad
+) {
+}
@@ -0,0 +1,14 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO with the number of products in a price bucket; {@code desde} is included and
+ * {@code hasta} excluded, and either is null for an open end
+ */
+public record FacetaPrecioDTO(
+        BigDecimal desde,
+        BigDecimal hasta,
+        long cantidad
+) {
+}
@@ -0,0 +1,38 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO with the progress of a CSV product import
+ */
+public record ImportacionDTO(
+        String id,
+        String archivo,
+        String estado,
+        long filasProcesadas,
+        long creados,
+        long actualizados,
+        long fallidos,
+        double filasPorSegundo,
+        LocalDateTime fechaInicio,
+        LocalDateTime fechaFin,
+        String mensaje,
+        List<ErrorFila> errores
+) {
+
+    public static final String EN_COLA = "EN_COLA";
+    public static final String PROCESANDO = "PROCESANDO";
+    public static final String COMPLETADO = "COMPLETADO";
+    public static final String FALLIDO = "FALLIDO";
+
+    /**
+     * Error found in a data row; {@code fila} is the line number in the file (header is line 1)
+     */
+    public record ErrorFila(
+            long fila,
+            String codigo,
+            String error
+    ) {
+    }
+}
@@ -0,0 +1,29 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * Version of a list of products, aggregated in one query over the rows the list shows, for
+ * conditional requests.
+ * <p>
+ * Ids only grow and every change to a product, its categoria or its marca bumps a version, so
+ * the count, the highest id and the sums of the versions of the products and of their
+ * categoria and marca change with any insert, delete or update visible in the list. The sum of
+ * id times version also tells apart two products trading places in a filtered list.
+ */
+public record ListaVersionDTO(
+        Long cantidad,
+        Long maximoId,
+        Long versiones,
+        Long versionesPorId,
+        Long versionesCategoria,
+        Long versionesMarca
+) {
+
+    /**
+     * Strong ETag value (unquoted)
+     */
+    public String etag() {
+        return Long.toString(cantidad, 36) + "-" + Long.toString(maximoId, 36) + "-"
+                + Long.toString(versiones, 36) + "-" + Long.toString(versionesPorId, 36) + "-"
+                + Long.toString(versionesCategoria, 36) + "-" + Long.toString(versionesMarca, 36);
+    }
+}
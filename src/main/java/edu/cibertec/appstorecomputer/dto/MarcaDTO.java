@@ -3,6 +3,8 @@ package edu.cibertec.appstorecomputer.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDateTime;
+
 /**
  * DTO for Marca entity
  */
@@ -19,7 +21,11 @@ public record MarcaDTO(
         @Size(max = 255, message = "El sitio web no debe exceder los 255 caracteres")
         String sitioWeb,
         
-        Boolean activo
+        Boolean activo,
+
+        // Response only: optimistic lock version and last modification, exposed as ETag and Last-Modified
+        Long version,
+        LocalDateTime fechaModificacion
 ) {
     // Constructor for creating a new brand (without ID)
     public MarcaDTO(
@@ -35,6 +41,6 @@ public record MarcaDTO(
             
             Boolean activo
     ) {
-        this(null, nombre, paisOrigen, sitioWeb, activo);
+        this(null, nombre, paisOrigen, sitioWeb, activo, null, null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.util.List;
+
+/**
+ * DTO with the outcome of a batch product creation, one entry per submitted item
+ */
+public record ProductoBatchResultadoDTO(
+        int total,
+        int creados,
+        int fallidos,
+        List<Item> resultados
+) {
+
+    public static final String CREADO = "CREADO";
+    public static final String ERROR = "ERROR";
+
+    /**
+     * Outcome of a single item, in the same position it had in the request
+     */
+    public record Item(
+            int indice,
+            String codigo,
+            String estado,
+            ProductoDTO producto,
+            String error
+    ) {
+    }
+}
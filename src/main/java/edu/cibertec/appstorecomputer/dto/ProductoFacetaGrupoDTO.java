@@ -0,0 +1,17 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO with the number of products sharing categoria, marca, price, stock flag and state,
+ * used to compute facets with a single grouped query
+ */
+public record ProductoFacetaGrupoDTO(
+        Long categoriaId,
+        Long marcaId,
+        BigDecimal precio,
+        Boolean conStock,
+        Boolean activo,
+        Long cantidad
+) {
+}
@@ -0,0 +1,20 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.util.List;
+
+/**
+ * DTO with the facet counts of the products matching a filter.
+ * <p>
+ * {@code total} counts the products matching every condition; each facet counts the products
+ * matching every condition except its own, so the client can show how many products each
+ * alternative value would return.
+ */
+public record ProductoFacetasDTO(
+        long total,
+        List<FacetaDTO> categorias,
+        List<FacetaDTO> marcas,
+        List<FacetaPrecioDTO> precios,
+        long conStock,
+        long sinStock
+) {
+}
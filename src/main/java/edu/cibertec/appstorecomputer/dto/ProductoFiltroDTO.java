@@ -0,0 +1,18 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO with the conditions of the product filter; null fields are not applied
+ */
+public record ProductoFiltroDTO(
+        Long categoriaId,
+        Long marcaId,
+        BigDecimal precioMin,
+        BigDecimal precioMax,
+        Integer stockDesde,
+        Integer stockHasta,
+        Boolean activo,
+        String nombre
+) {
+}
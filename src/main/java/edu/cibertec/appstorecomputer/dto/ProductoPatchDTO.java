@@ -0,0 +1,39 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * Partial update of a Producto: only the non-null fields are changed.
+ * Stock is not part of it, it only changes through the stock endpoints.
+ */
+public record ProductoPatchDTO(
+        @Size(min = 2, max = 150, message = "El nombre debe tener entre 2 y 150 caracteres")
+        String nombre,
+
+        @Size(max = 500, message = "La descripción no debe exceder los 500 caracteres")
+        String descripcion,
+
+        @Positive(message = "El precio debe ser mayor que cero")
+        BigDecimal precio,
+
+        @Size(min = 2, max = 50, message = "El código debe tener entre 2 y 50 caracteres")
+        String codigo,
+
+        @Size(max = 255, message = "La URL de la imagen no debe exceder los 255 caracteres")
+        String imagenUrl,
+
+        Boolean activo,
+
+        Long categoriaId,
+
+        Long marcaId
+) {
+
+    public boolean isEmpty() {
+        return nombre == null && descripcion == null && precio == null && codigo == null
+                && imagenUrl == null && activo == null && categoriaId == null && marcaId == null;
+    }
+}
@@ -0,0 +1,41 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Version of a product together with those of its categoria and marca, read without loading
+ * any of them, for conditional requests: the product body carries their names, so renaming
+ * either one must change the ETag
+ */
+public record ProductoVersionDTO(
+        Long id,
+        Long version,
+        Long categoriaVersion,
+        Long marcaVersion,
+        LocalDateTime fechaModificacion,
+        LocalDateTime categoriaFechaModificacion,
+        LocalDateTime marcaFechaModificacion
+) {
+
+    /**
+     * Strong ETag value (unquoted); starts like {@link VersionDTO#etag()}, so If-Match still
+     * finds the version of the product right after the id
+     */
+    public String etag() {
+        return id + "-" + version + "-" + categoriaVersion + "-" + marcaVersion;
+    }
+
+    /**
+     * Latest of the three Last-Modified values in epoch milliseconds, or -1 when unknown
+     */
+    public long lastModified() {
+        return Stream.of(fechaModificacion, categoriaFechaModificacion, marcaFechaModificacion)
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .map(fecha -> fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .orElse(-1L);
+    }
+}
@@ -0,0 +1,23 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO with a product and the version of its row, read in the same statement, so in-memory
+ * views of the catalog can tell a newer change from an older one
+ */
+public record ProductoVersionadoDTO(
+        ProductoDTO producto,
+        Long version
+) {
+
+    // Flat constructor for JPQL constructor expressions
+    public ProductoVersionadoDTO(Long id, String nombre, String descripcion, BigDecimal precio, Integer stock,
+                                 String codigo, String imagenUrl, LocalDateTime fechaCreacion, Boolean activo,
+                                 Long categoriaId, Long marcaId, String categoriaNombre, String marcaNombre,
+                                 Long version) {
+        this(new ProductoDTO(id, nombre, descripcion, precio, stock, codigo, imagenUrl, fechaCreacion, activo,
+                categoriaId, marcaId, categoriaNombre, marcaNombre), version);
+    }
+}
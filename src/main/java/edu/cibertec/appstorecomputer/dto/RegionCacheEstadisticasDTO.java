@@ -0,0 +1,13 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * DTO with the statistics of a Hibernate second-level or query cache region
+ */
+public record RegionCacheEstadisticasDTO(
+        String region,
+        long aciertos,
+        long fallos,
+        long escrituras,
+        double tasaAciertos
+) {
+}
@@ -0,0 +1,13 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * DTO with the state of a product in hot-SKU stock mode
+ */
+public record StockCalienteDTO(
+        Long productoId,
+        boolean activo,
+        Integer disponible,
+        Long pendiente,
+        Long ultimoLote
+) {
+}
@@ -0,0 +1,10 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * DTO with the stock level of a product after a stock movement
+ */
+public record StockDTO(
+        Long productoId,
+        Integer stock
+) {
+}
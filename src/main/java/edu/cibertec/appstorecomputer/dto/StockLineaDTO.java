@@ -0,0 +1,17 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * DTO for one line of a cart stock movement
+ */
+public record StockLineaDTO(
+        @NotNull(message = "El producto es obligatorio")
+        Long productoId,
+
+        @NotNull(message = "La cantidad es obligatoria")
+        @Positive(message = "La cantidad debe ser mayor que cero")
+        Integer cantidad
+) {
+}
@@ -0,0 +1,15 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * DTO for reserving or releasing the stock of a whole cart
+ */
+public record StockReservaDTO(
+        @NotEmpty(message = "El carrito debe tener al menos una línea")
+        List<@Valid StockLineaDTO> lineas
+) {
+}
@@ -0,0 +1,15 @@
+package edu.cibertec.appstorecomputer.dto;
+
+/**
+ * DTO with the stock level of a product and the version of its row after a stock movement
+ */
+public record StockVersionadoDTO(
+        Long productoId,
+        Integer stock,
+        Long version
+) {
+
+    public StockDTO toStockDTO() {
+        return new StockDTO(productoId, stock);
+    }
+}
@@ -0,0 +1,30 @@
+package edu.cibertec.appstorecomputer.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version of a single resource, read without loading it, for conditional requests
+ */
+public record VersionDTO(
+        Long id,
+        Long version,
+        LocalDateTime fechaModificacion
+) {
+
+    /**
+     * Strong ETag value (unquoted); the id keeps it unique across lookups by other keys
+     */
+    public String etag() {
+        return id + "-" + version;
+    }
+
+    /**
+     * Last-Modified in epoch milliseconds, or -1 when unknown
+     */
+    public long lastModified() {
+        return fechaModificacion != null
+                ? fechaModificacion.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+    }
+}
@@ -0,0 +1,62 @@
+package edu.cibertec.appstorecomputer.event;
+
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+
+/**
+ * Changes to the catalog published by the services, so in-memory views of the catalog
+ * can patch themselves once the transaction that produced the change has committed.
+ * <p>
+ * Product events carry absolute state plus the version of the row that state was read at.
+ * Listeners of concurrent transactions may run in any order, so a view keeps the version it
+ * holds for each product and ignores events older than it.
+ */
+public sealed interface CatalogoEvent {
+
+    /**
+     * A product was created or updated; carries its full state at the given row version
+     */
+    record ProductoGuardado(ProductoDTO producto, long version) implements CatalogoEvent {
+    }
+
+    /**
+     * A product was deleted
+     */
+    record ProductoEliminado(Long id) implements CatalogoEvent {
+    }
+
+    /**
+     * The stock of a product changed; carries the new level at the given row version
+     */
+    record StockActualizado(Long id, int stock, long version) implements CatalogoEvent {
+    }
+
+    /**
+     * A category was created or updated
+     */
+    record CategoriaGuardada(Long id, String nombre) implements CatalogoEvent {
+    }
+
+    /**
+     * A category was deleted
+     */
+    record CategoriaEliminada(Long id) implements CatalogoEvent {
+    }
+
+    /**
+     * A brand was created or updated
+     */
+    record MarcaGuardada(Long id, String nombre) implements CatalogoEvent {
+    }
+
+    /**
+     * A brand was deleted
+     */
+    record MarcaEliminada(Long id) implements CatalogoEvent {
+    }
+
+    /**
+     * Many rows changed at once (bulk statements, imports); views should reload from the database
+     */
+    record CatalogoModificado() implements CatalogoEvent {
+    }
+}
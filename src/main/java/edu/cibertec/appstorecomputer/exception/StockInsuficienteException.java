@@ -0,0 +1,13 @@
+package edu.cibertec.appstorecomputer.exception;
+
+/**
+ * Exception thrown when a product does not have enough stock for the requested quantity
+ */
+public class StockInsuficienteException extends BusinessException {
+
+    public StockInsuficienteException(Long productoId, int solicitado, int disponible) {
+        super("INSUFFICIENT_STOCK",
+              String.format("Insufficient stock for Producto '%s': requested %d, available %d",
+                      productoId, solicitado, disponible));
+    }
+}
@@ -0,0 +1,19 @@
+package edu.cibertec.appstorecomputer.exception;
+
+/**
+ * Exception thrown when a conditional update targets a version of a resource that is no
+ * longer the current one
+ */
+public class VersionConflictException extends BusinessException {
+
+    public VersionConflictException(String resourceName, Object id) {
+        super("VERSION_CONFLICT",
+              String.format("%s '%s' does not match the If-Match precondition", resourceName, id));
+    }
+
+    public VersionConflictException(String resourceName, Object id, Long esperada, Long actual) {
+        super("VERSION_CONFLICT",
+              String.format("%s '%s' was modified: expected version %d, current version %d",
+                      resourceName, id, esperada, actual));
+    }
+}
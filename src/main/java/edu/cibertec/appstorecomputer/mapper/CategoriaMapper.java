@@ -21,9 +21,13 @@ public interface CategoriaMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "productos", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "fechaModificacion", ignore = true)
     Categoria toEntity(CategoriaDTO categoriaDTO);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "productos", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "fechaModificacion", ignore = true)
     void updateEntityFromDto(CategoriaDTO categoriaDTO, @MappingTarget Categoria categoria);
 }
\ No newline at end of file
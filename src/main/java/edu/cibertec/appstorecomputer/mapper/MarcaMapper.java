@@ -21,9 +21,13 @@ public interface MarcaMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "productos", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "fechaModificacion", ignore = true)
     Marca toEntity(MarcaDTO marcaDTO);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "productos", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "fechaModificacion", ignore = true)
     void updateEntityFromDto(MarcaDTO marcaDTO, @MappingTarget Marca marca);
 }
\ No newline at end of file
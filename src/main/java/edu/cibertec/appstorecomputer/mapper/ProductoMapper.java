@@ -1,8 +1,6 @@
 package edu.cibertec.appstorecomputer.mapper;
 
 import edu.cibertec.appstorecomputer.dto.ProductoDTO;
-import edu.cibertec.appstorecomputer.model.Categoria;
-import edu.cibertec.appstorecomputer.model.Marca;
 import edu.cibertec.appstorecomputer.model.Producto;
 import org.mapstruct.*;
 
@@ -23,30 +21,21 @@ public interface ProductoMapper {
 
     List<ProductoDTO> toDtoList(List<Producto> productos);
 
+    // categoria and marca are set by the callers to managed instances or references; detached
+    // stubs would look transient to Hibernate now that both entities are versioned
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "categoria", ignore = true)
     @Mapping(target = "marca", ignore = true)
     @Mapping(target = "fechaCreacion", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "fechaModificacion", ignore = true)
     Producto toEntity(ProductoDTO productoDTO);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "categoria", ignore = true)
     @Mapping(target = "marca", ignore = true)
     @Mapping(target = "fechaCreacion", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "fechaModificacion", ignore = true)
     void updateEntityFromDto(ProductoDTO productoDTO, @MappingTarget Producto producto);
-
-    @AfterMapping
-    default void setCategoriaAndMarca(ProductoDTO dto, @MappingTarget Producto producto) {
-        if (dto.categoriaId() != null) {
-            Categoria categoria = new Categoria();
-            categoria.setId(dto.categoriaId());
-            producto.setCategoria(categoria);
-        }
-        
-        if (dto.marcaId() != null) {
-            Marca marca = new Marca();
-            marca.setId(dto.marcaId());
-            producto.setMarca(marca);
-        }
-    }
 }
\ No newline at end of file
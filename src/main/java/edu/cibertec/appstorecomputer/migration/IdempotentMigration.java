@@ -0,0 +1,61 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+
+/**
+ * Schema step that only adds what is missing.
+ * <p>
+ * Databases created from data.sql already have the current schema, while older ones lack the
+ * columns, indexes and tables added since; MySQL has no IF NOT EXISTS for columns and indexes,
+ * so every step looks them up in the JDBC metadata first. Steps on a table that does not exist
+ * at all are skipped: such a database gets the whole schema from data.sql.
+ */
+public abstract class IdempotentMigration extends BaseJavaMigration {
+
+    @Override
+    public final void migrate(Context context) throws Exception {
+        migrate(context.getConnection());
+    }
+
+    protected abstract void migrate(Connection connection) throws SQLException;
+
+    protected boolean tableExists(Connection connection, String table) throws SQLException {
+        return SchemaMetadata.table(connection, table).isPresent();
+    }
+
+    /**
+     * Add a column to the table unless it is already there
+     * @param definition Type and constraints of the column, as in ALTER TABLE ... ADD COLUMN
+     */
+    protected void addColumn(Connection connection, String table, String column, String definition)
+            throws SQLException {
+        Optional<String> name = SchemaMetadata.table(connection, table);
+        if (name.isPresent() && !SchemaMetadata.hasColumn(connection, name.get(), column)) {
+            execute(connection, "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    /**
+     * Create an index on the table unless one with the same name is already there
+     * @param columns Comma-separated indexed columns
+     */
+    protected void createIndex(Connection connection, String table, String index, String columns)
+            throws SQLException {
+        Optional<String> name = SchemaMetadata.table(connection, table);
+        if (name.isPresent() && !SchemaMetadata.hasIndex(connection, name.get(), index)) {
+            execute(connection, "CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    protected void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Row version of productos, which orders the changes applied to the in-memory catalog views
+ */
+public class V1__VersionProductos extends IdempotentMigration {
+
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        addColumn(connection, "productos", "version", "BIGINT NOT NULL DEFAULT 0");
+    }
+}
@@ -0,0 +1,16 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Indexes behind the price range and low-stock queries
+ */
+public class V2__IndicesPrecioStock extends IdempotentMigration {
+
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        createIndex(connection, "productos", "idx_productos_precio", "precio");
+        createIndex(connection, "productos", "idx_productos_stock", "stock");
+    }
+}
@@ -0,0 +1,41 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Table behind the pooled productos id generator, started past the existing rows
+ */
+public class V3__IdGeneradores extends IdempotentMigration {
+
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        if (!tableExists(connection, "productos")) {
+            return;
+        }
+        if (!tableExists(connection, "id_generadores")) {
+            execute(connection, """
+                    CREATE TABLE id_generadores (
+                        entidad VARCHAR(50) NOT NULL PRIMARY KEY,
+                        siguiente_id BIGINT NOT NULL
+                    )""");
+        }
+        if (!hasGenerator(connection, "productos")) {
+            // the pooled optimizer hands out the block that ends at the stored value
+            execute(connection, "INSERT INTO id_generadores (entidad, siguiente_id) " +
+                    "SELECT 'productos', COALESCE(MAX(id), 0) + 100 FROM productos");
+        }
+    }
+
+    private boolean hasGenerator(Connection connection, String entidad) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM id_generadores WHERE entidad = ?")) {
+            statement.setString(1, entidad);
+            try (ResultSet row = statement.executeQuery()) {
+                return row.next();
+            }
+        }
+    }
+}
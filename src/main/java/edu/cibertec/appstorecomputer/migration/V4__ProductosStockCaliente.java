@@ -0,0 +1,25 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Products in hot-SKU stock mode and the last stock batch flushed for each
+ */
+public class V4__ProductosStockCaliente extends IdempotentMigration {
+
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        if (!tableExists(connection, "productos") || tableExists(connection, "productos_stock_caliente")) {
+            return;
+        }
+        execute(connection, """
+                CREATE TABLE productos_stock_caliente (
+                    producto_id BIGINT NOT NULL PRIMARY KEY,
+                    activo BOOLEAN NOT NULL DEFAULT TRUE,
+                    ultimo_lote BIGINT NOT NULL DEFAULT 0,
+                    fecha_actualizacion DATETIME,
+                    FOREIGN KEY (producto_id) REFERENCES productos(id)
+                )""");
+    }
+}
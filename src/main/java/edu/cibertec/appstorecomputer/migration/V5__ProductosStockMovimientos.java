@@ -0,0 +1,26 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Log of the hot-SKU stock changes not yet applied to productos.stock
+ */
+public class V5__ProductosStockMovimientos extends IdempotentMigration {
+
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        if (!tableExists(connection, "productos") || tableExists(connection, "productos_stock_movimientos")) {
+            return;
+        }
+        execute(connection, """
+                CREATE TABLE productos_stock_movimientos (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    producto_id BIGINT NOT NULL,
+                    delta INT NOT NULL,
+                    fecha DATETIME NOT NULL,
+                    FOREIGN KEY (producto_id) REFERENCES productos(id)
+                )""");
+        createIndex(connection, "productos_stock_movimientos", "idx_stock_movimientos_producto", "producto_id, id");
+    }
+}
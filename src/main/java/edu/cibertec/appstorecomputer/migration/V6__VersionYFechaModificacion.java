@@ -0,0 +1,22 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Optimistic locking version of categorias and marcas (productos has it since V1), and last
+ * modification date of categorias, marcas and productos
+ */
+public class V6__VersionYFechaModificacion extends IdempotentMigration {
+
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        for (String table : List.of("categorias", "marcas")) {
+            addColumn(connection, table, "version", "BIGINT NOT NULL DEFAULT 0");
+        }
+        for (String table : List.of("categorias", "marcas", "productos")) {
+            addColumn(connection, table, "fecha_modificacion", "DATETIME");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Indexes behind the combined product filter: name prefix, and price within a category or brand
+ */
+public class V7__IndicesFiltro extends IdempotentMigration {
+
+    @Override
+    protected void migrate(Connection connection) throws SQLException {
+        createIndex(connection, "productos", "idx_productos_nombre", "nombre");
+        createIndex(connection, "productos", "idx_productos_categoria_precio", "categoria_id, precio");
+        createIndex(connection, "productos", "idx_productos_marca_precio", "marca_id, precio");
+    }
+}
@@ -7,12 +7,17 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "categorias")
+// Reference data loaded by every product write; region declared in application.conf
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categorias-entidad")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -34,6 +39,20 @@ public class Categoria {
     @Column(name = "activo")
     private Boolean activo;
 
+    // Optimistic lock; also the ETag of the resource
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "fecha_modificacion")
+    private LocalDateTime fechaModificacion;
+
     @OneToMany(mappedBy = "categoria", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Producto> productos = new ArrayList<>();
-}
\ No newline at end of file
+
+    @PrePersist
+    @PreUpdate
+    public void actualizarFechaModificacion() {
+        this.fechaModificacion = LocalDateTime.now();
+    }
+}
@@ -7,12 +7,17 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "marcas")
+// Reference data loaded by every product write; region declared in application.conf
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "marcas-entidad")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,6 +42,20 @@ public class Marca {
     @Column(name = "activo")
     private Boolean activo;
 
+    // Optimistic lock; also the ETag of the resource
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "fecha_modificacion")
+    private LocalDateTime fechaModificacion;
+
     @OneToMany(mappedBy = "marca", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Producto> productos = new ArrayList<>();
-}
\ No newline at end of file
+
+    @PrePersist
+    @PreUpdate
+    public void actualizarFechaModificacion() {
+        this.fechaModificacion = LocalDateTime.now();
+    }
+}
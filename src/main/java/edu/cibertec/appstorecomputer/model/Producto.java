@@ -12,7 +12,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+        @Index(name = "idx_productos_precio", columnList = "precio"),
+        @Index(name = "idx_productos_stock", columnList = "stock"),
+        @Index(name = "idx_productos_nombre", columnList = "nombre"),
+        @Index(name = "idx_productos_categoria_precio", columnList = "categoria_id, precio"),
+        @Index(name = "idx_productos_marca_precio", columnList = "marca_id, precio")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,8 +27,11 @@ import java.time.LocalDateTime;
 @ToString
 public class Producto {
 
+    // Pooled table generator instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "producto_id")
+    @TableGenerator(name = "producto_id", table = "id_generadores", pkColumnName = "entidad",
+            valueColumnName = "siguiente_id", pkColumnValue = "productos", allocationSize = 50)
     private Long id;
 
     @Column(name = "nombre", nullable = false, length = 150)
@@ -49,6 +58,14 @@ public class Producto {
     @Column(name = "activo")
     private Boolean activo;
 
+    // Optimistic lock; also the ETag of the product (bulk stock updates bump it explicitly)
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "fecha_modificacion")
+    private LocalDateTime fechaModificacion;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id", nullable = false)
     private Categoria categoria;
@@ -60,8 +77,14 @@ public class Producto {
     @PrePersist
     public void prePersist() {
         this.fechaCreacion = LocalDateTime.now();
+        this.fechaModificacion = this.fechaCreacion;
         if (this.activo == null) {
             this.activo = true;
         }
     }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.fechaModificacion = LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package edu.cibertec.appstorecomputer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hot-SKU registration of a product: while active its stock lives in memory and is written
+ * back in numbered batches; {@code ultimoLote} is the last batch applied to productos.stock
+ */
+@Entity
+@Table(name = "productos_stock_caliente")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ProductoStockCaliente {
+
+    @Id
+    @Column(name = "producto_id")
+    private Long productoId;
+
+    @Column(name = "activo", nullable = false)
+    private Boolean activo;
+
+    @Column(name = "ultimo_lote", nullable = false)
+    private Long ultimoLote;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+}
@@ -0,0 +1,42 @@
+package edu.cibertec.appstorecomputer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock change accepted by the hot-SKU mode, appended in the transaction that accepted it and
+ * removed in the one that applies it to productos.stock; the rows left are the changes the
+ * database stock does not include yet
+ */
+@Entity
+@Table(name = "productos_stock_movimientos", indexes = {
+        @Index(name = "idx_stock_movimientos_producto", columnList = "producto_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ProductoStockMovimiento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "delta", nullable = false)
+    private Integer delta;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+}
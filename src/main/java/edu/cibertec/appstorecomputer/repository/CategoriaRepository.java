@@ -1,7 +1,13 @@
 package edu.cibertec.appstorecomputer.repository;
 
 import edu.cibertec.appstorecomputer.model.Categoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,10 +15,31 @@ import java.util.Optional;
 
 @Repository
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
-    
+
+    // Results kept in the query cache until a write to the table invalidates them
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "referencias-consultas")
+    })
+    @Override
+    List<Categoria> findAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "referencias-consultas")
+    })
     Optional<Categoria> findByNombre(String nombre);
     
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "referencias-consultas")
+    })
     List<Categoria> findByActivoTrue();
     
     boolean existsByNombre(String nombre);
+
+    @Modifying
+    @Query("UPDATE Categoria c SET c.activo = :activo, c.version = c.version + 1, " +
+           "c.fechaModificacion = CURRENT_TIMESTAMP WHERE c.id = :id")
+    int actualizarActivo(@Param("id") Long id, @Param("activo") boolean activo);
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package edu.cibertec.appstorecomputer.repository;
 
 import edu.cibertec.appstorecomputer.model.Marca;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,12 +15,37 @@ import java.util.Optional;
 
 @Repository
 public interface MarcaRepository extends JpaRepository<Marca, Long> {
-    
+
+    // Results kept in the query cache until a write to the table invalidates them
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "referencias-consultas")
+    })
+    @Override
+    List<Marca> findAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "referencias-consultas")
+    })
     Optional<Marca> findByNombre(String nombre);
     
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "referencias-consultas")
+    })
     List<Marca> findByActivoTrue();
     
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "referencias-consultas")
+    })
     List<Marca> findByPaisOrigen(String paisOrigen);
     
     boolean existsByNombre(String nombre);
+
+    @Modifying
+    @Query("UPDATE Marca m SET m.activo = :activo, m.version = m.version + 1, " +
+           "m.fechaModificacion = CURRENT_TIMESTAMP WHERE m.id = :id")
+    int actualizarActivo(@Param("id") Long id, @Param("activo") boolean activo);
 }
\ No newline at end of file
@@ -1,25 +1,59 @@
 package edu.cibertec.appstorecomputer.repository;
 
+import edu.cibertec.appstorecomputer.dto.ListaVersionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFacetaGrupoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionadoDTO;
+import edu.cibertec.appstorecomputer.dto.StockVersionadoDTO;
+import edu.cibertec.appstorecomputer.dto.VersionDTO;
 import edu.cibertec.appstorecomputer.model.Categoria;
 import edu.cibertec.appstorecomputer.model.Marca;
 import edu.cibertec.appstorecomputer.model.Producto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
     /*
     * ESTE ES EL CODIGO DE JORGITO EL EUNUCO
     * */
 
+    /**
+     * Projection that builds {@link ProductoDTO} straight from the joined row, so listing
+     * products never initializes the lazy categoria/marca associations nor keeps entities
+     * managed in the persistence context.
+     */
+    String PRODUCTO_DTO_SELECT = "SELECT new edu.cibertec.appstorecomputer.dto.ProductoDTO(" +
+            "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.codigo, p.imagenUrl, " +
+            "p.fechaCreacion, p.activo, c.id, m.id, c.nombre, m.nombre) " +
+            "FROM Producto p JOIN p.categoria c JOIN p.marca m ";
+
+    // Same row plus its version, for the in-memory views that order changes by it
+    String PRODUCTO_VERSIONADO_SELECT = "SELECT new edu.cibertec.appstorecomputer.dto.ProductoVersionadoDTO(" +
+            "p.id, p.nombre, p.descripcion, p.precio, p.stock, p.codigo, p.imagenUrl, " +
+            "p.fechaCreacion, p.activo, c.id, m.id, c.nombre, m.nombre, p.version) " +
+            "FROM Producto p JOIN p.categoria c JOIN p.marca m ";
+
+    // Rows per round trip of streamAllAsDto
+    int STREAM_FETCH_SIZE = 500;
+
     Optional<Producto> findByCodigo(String codigo);
     
     List<Producto> findByActivoTrue();
@@ -43,4 +77,219 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     Page<Producto> findByActivoTrue(Pageable pageable);
     
     boolean existsByCodigo(String codigo);
+
+    boolean existsByCategoriaId(Long categoriaId);
+
+    boolean existsByMarcaId(Long marcaId);
+
+    // Set-based cascade of a category or brand (de)activation, driven by the foreign key index
+    @Modifying
+    @Query("UPDATE Producto p SET p.activo = :activo, p.version = p.version + 1, " +
+           "p.fechaModificacion = CURRENT_TIMESTAMP " +
+           "WHERE p.categoria.id = :categoriaId AND (p.activo IS NULL OR p.activo <> :activo)")
+    int actualizarActivoPorCategoria(@Param("categoriaId") Long categoriaId, @Param("activo") boolean activo);
+
+    @Modifying
+    @Query("UPDATE Producto p SET p.activo = :activo, p.version = p.version + 1, " +
+           "p.fechaModificacion = CURRENT_TIMESTAMP " +
+           "WHERE p.marca.id = :marcaId AND (p.activo IS NULL OR p.activo <> :activo)")
+    int actualizarActivoPorMarca(@Param("marcaId") Long marcaId, @Param("activo") boolean activo);
+
+    // Product to update with categoria and marca in the same row, so mapping it back is not N+1
+    @Query("SELECT p FROM Producto p JOIN FETCH p.categoria JOIN FETCH p.marca WHERE p.id = :id")
+    Optional<Producto> findWithCategoriaAndMarcaById(@Param("id") Long id);
+
+    @Query(PRODUCTO_DTO_SELECT)
+    List<ProductoDTO> findAllAsDto();
+
+    @Query(value = PRODUCTO_DTO_SELECT,
+            countQuery = "SELECT COUNT(p) FROM Producto p")
+    Page<ProductoDTO> findAllAsDto(Pageable pageable);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.activo = true")
+    List<ProductoDTO> findActiveAsDto();
+
+    // Conditional GET of the product lists, read in the transaction that then reads the list
+    String LISTA_VERSION_SELECT = "SELECT new edu.cibertec.appstorecomputer.dto.ListaVersionDTO(COUNT(p), " +
+            "COALESCE(MAX(p.id), 0L), COALESCE(SUM(p.version), 0L), COALESCE(SUM(p.id * p.version), 0L), " +
+            "COALESCE(SUM(c.version), 0L), COALESCE(SUM(m.version), 0L)) " +
+            "FROM Producto p JOIN p.categoria c JOIN p.marca m ";
+
+    @Query(LISTA_VERSION_SELECT)
+    ListaVersionDTO findListaVersion();
+
+    @Query(LISTA_VERSION_SELECT + "WHERE p.activo = true")
+    ListaVersionDTO findActiveListaVersion();
+
+    @Query(value = PRODUCTO_DTO_SELECT + "WHERE p.activo = true",
+            countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.activo = true")
+    Page<ProductoDTO> findActiveAsDto(Pageable pageable);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.id = :id")
+    Optional<ProductoDTO> findDtoById(@Param("id") Long id);
+
+    @Query(PRODUCTO_VERSIONADO_SELECT + "WHERE p.id = :id")
+    Optional<ProductoVersionadoDTO> findVersionadoById(@Param("id") Long id);
+
+    @Query(PRODUCTO_VERSIONADO_SELECT)
+    List<ProductoVersionadoDTO> findAllVersionados();
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.codigo = :codigo")
+    Optional<ProductoDTO> findDtoByCodigo(@Param("codigo") String codigo);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE c.id = :categoriaId")
+    List<ProductoDTO> findDtoByCategoriaId(@Param("categoriaId") Long categoriaId);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE m.id = :marcaId")
+    List<ProductoDTO> findDtoByMarcaId(@Param("marcaId") Long marcaId);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE c.id = :categoriaId AND m.id = :marcaId")
+    List<ProductoDTO> findDtoByCategoriaAndMarca(@Param("categoriaId") Long categoriaId, @Param("marcaId") Long marcaId);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
+    List<ProductoDTO> findDtoByNombreContaining(@Param("nombre") String nombre);
+
+    // Search while the index is not loaded: the same products (active ones) and fields it covers
+    String ACTIVO_CON_TEXTO = "WHERE p.activo = true AND (LOWER(p.nombre) LIKE LOWER(CONCAT('%', :texto, '%')) " +
+            "OR LOWER(p.descripcion) LIKE LOWER(CONCAT('%', :texto, '%')) " +
+            "OR LOWER(p.codigo) LIKE LOWER(CONCAT('%', :texto, '%'))) ";
+
+    @Query(value = PRODUCTO_DTO_SELECT + ACTIVO_CON_TEXTO + "ORDER BY p.id",
+            countQuery = "SELECT COUNT(p) FROM Producto p " + ACTIVO_CON_TEXTO)
+    Page<ProductoDTO> findActiveDtoByTexto(@Param("texto") String texto, Pageable pageable);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.id IN :ids")
+    List<ProductoDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.precio BETWEEN :precioMin AND :precioMax ORDER BY p.precio, p.id")
+    List<ProductoDTO> findDtoByPrecioBetween(@Param("precioMin") BigDecimal precioMin, @Param("precioMax") BigDecimal precioMax);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.stock < :stockMinimo ORDER BY p.stock, p.id")
+    List<ProductoDTO> findDtoByStockLessThan(@Param("stockMinimo") Integer stockMinimo);
+
+    // Same order as the price index of the read model, so a page is the same on either path
+    @Query(value = PRODUCTO_DTO_SELECT + "WHERE p.precio BETWEEN :precioMin AND :precioMax ORDER BY p.precio, p.id",
+            countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.precio BETWEEN :precioMin AND :precioMax")
+    Page<ProductoDTO> findDtoByPrecioBetween(@Param("precioMin") BigDecimal precioMin, @Param("precioMax") BigDecimal precioMax,
+                                             Pageable pageable);
+
+    long countByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax);
+
+    // One row per distinct combination of the facet dimensions, read over the foreign keys only
+    @Query("SELECT new edu.cibertec.appstorecomputer.dto.ProductoFacetaGrupoDTO(" +
+           "p.categoria.id, p.marca.id, p.precio, CASE WHEN p.stock > 0 THEN true ELSE false END, p.activo, COUNT(p)) " +
+           "FROM Producto p " +
+           "GROUP BY p.categoria.id, p.marca.id, p.precio, CASE WHEN p.stock > 0 THEN true ELSE false END, p.activo")
+    List<ProductoFacetaGrupoDTO> findGruposFacetas();
+
+    @Query(value = PRODUCTO_DTO_SELECT + "WHERE p.stock < :stockMinimo ORDER BY p.stock, p.id",
+            countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.stock < :stockMinimo")
+    Page<ProductoDTO> findDtoByStockLessThan(@Param("stockMinimo") Integer stockMinimo, Pageable pageable);
+
+    long countByStockLessThan(Integer stockMinimo);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.activo = true AND p.stock > 0")
+    List<ProductoDTO> findAvailableDtos();
+
+    // Keyset pagination: the Pageable only carries the limit, the position comes from the cursor
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.id > :lastId ORDER BY p.id")
+    List<ProductoDTO> findSliceAfterId(@Param("lastId") Long lastId, Pageable limit);
+
+    @Query(PRODUCTO_DTO_SELECT + "WHERE p.activo = true AND p.id > :lastId ORDER BY p.id")
+    List<ProductoDTO> findActiveSliceAfterId(@Param("lastId") Long lastId, Pageable limit);
+
+    @Query(PRODUCTO_DTO_SELECT +
+            "WHERE p.nombre > :lastNombre OR (p.nombre = :lastNombre AND p.id > :lastId) " +
+            "ORDER BY p.nombre, p.id")
+    List<ProductoDTO> findSliceAfterNombre(@Param("lastNombre") String lastNombre, @Param("lastId") Long lastId,
+                                           Pageable limit);
+
+    @Query(PRODUCTO_DTO_SELECT +
+            "WHERE p.activo = true AND (p.nombre > :lastNombre OR (p.nombre = :lastNombre AND p.id > :lastId)) " +
+            "ORDER BY p.nombre, p.id")
+    List<ProductoDTO> findActiveSliceAfterNombre(@Param("lastNombre") String lastNombre, @Param("lastId") Long lastId,
+                                                 Pageable limit);
+
+    @Query(PRODUCTO_DTO_SELECT +
+            "WHERE p.precio > :lastPrecio OR (p.precio = :lastPrecio AND p.id > :lastId) " +
+            "ORDER BY p.precio, p.id")
+    List<ProductoDTO> findSliceAfterPrecio(@Param("lastPrecio") BigDecimal lastPrecio, @Param("lastId") Long lastId,
+                                           Pageable limit);
+
+    @Query(PRODUCTO_DTO_SELECT +
+            "WHERE p.activo = true AND (p.precio > :lastPrecio OR (p.precio = :lastPrecio AND p.id > :lastId)) " +
+            "ORDER BY p.precio, p.id")
+    List<ProductoDTO> findActiveSliceAfterPrecio(@Param("lastPrecio") BigDecimal lastPrecio, @Param("lastId") Long lastId,
+                                                 Pageable limit);
+
+    long countByActivoTrue();
+
+    @Query("SELECT p.codigo FROM Producto p WHERE p.codigo IN :codigos")
+    List<String> findExistingCodigos(@Param("codigos") Collection<String> codigos);
+
+    List<Producto> findByCodigoIn(Collection<String> codigos);
+
+    // Conditional stock updates: a single statement, no read-modify-write in the application.
+    // Bulk updates skip @Version and lifecycle callbacks, so they bump both by hand
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.version = p.version + 1, " +
+           "p.fechaModificacion = CURRENT_TIMESTAMP WHERE p.id = :id AND p.stock >= :cantidad")
+    int descontarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad, p.version = p.version + 1, " +
+           "p.fechaModificacion = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int reponerStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    @Query("SELECT p.stock FROM Producto p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    @Query("SELECT new edu.cibertec.appstorecomputer.dto.StockVersionadoDTO(p.id, p.stock, p.version) " +
+           "FROM Producto p WHERE p.id = :id")
+    Optional<StockVersionadoDTO> findStockVersionadoById(@Param("id") Long id);
+
+    // Conditional GET: answers If-None-Match without loading the product
+    @Query("SELECT new edu.cibertec.appstorecomputer.dto.VersionDTO(p.id, p.version, p.fechaModificacion) " +
+           "FROM Producto p WHERE p.id = :id")
+    Optional<VersionDTO> findVersionById(@Param("id") Long id);
+
+    // Conditional GET of a product: its body also shows the names of its categoria and marca
+    @Query("SELECT new edu.cibertec.appstorecomputer.dto.ProductoVersionDTO(p.id, p.version, c.version, m.version, " +
+           "p.fechaModificacion, c.fechaModificacion, m.fechaModificacion) " +
+           "FROM Producto p JOIN p.categoria c JOIN p.marca m WHERE p.id = :id")
+    Optional<ProductoVersionDTO> findVersionConRelacionesById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.stock FROM Producto p WHERE p.id = :id")
+    Optional<Integer> findStockByIdForUpdate(@Param("id") Long id);
+
+    // Net change written back by the hot-SKU stock mode; may be negative
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock + :delta, p.version = p.version + 1, " +
+           "p.fechaModificacion = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int ajustarStock(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Streams every product from a server-side cursor, {@value #STREAM_FETCH_SIZE} rows per round
+     * trip. Connector/J only honours a positive fetch size with useCursorFetch=true on the URL
+     * (otherwise it buffers the whole result set); other drivers take it as is.
+     * Must be consumed (and closed) inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(PRODUCTO_DTO_SELECT + "ORDER BY p.id")
+    Stream<ProductoDTO> streamAllAsDto();
+
+    /**
+     * Like {@link #streamAllAsDto()}, with the version of every row
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(PRODUCTO_VERSIONADO_SELECT + "ORDER BY p.id")
+    Stream<ProductoVersionadoDTO> streamAllVersionados();
 }
\ No newline at end of file
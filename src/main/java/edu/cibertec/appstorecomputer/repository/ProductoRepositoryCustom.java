@@ -0,0 +1,38 @@
+package edu.cibertec.appstorecomputer.repository;
+
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFiltroDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoPatchDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Set;
+
+/**
+ * Queries of ProductoRepository that are built at runtime
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Sort keys of {@link #filtrar}; each one is backed by an index on productos
+     */
+    Set<String> ORDENES_FILTRO = Set.of("id", "nombre", "precio", "stock");
+
+    /**
+     * Apply a partial update as one UPDATE statement that sets only the given fields and bumps
+     * the version. Categoria and marca are written as foreign keys without being loaded, so an
+     * unknown id or a duplicate codigo fails with a DataIntegrityViolationException.
+     * @param version Version the row must still have, or null to update unconditionally
+     * @return Number of rows updated: 0 when the product does not exist or the version differs
+     */
+    int patch(Long id, ProductoPatchDTO cambios, Long version);
+
+    /**
+     * Page of products matching every non-null condition of the filter, as one query with
+     * the conditions and the sort pushed to the database. The count query only runs when the
+     * page alone does not tell the total. The id is appended as the last sort key so pages
+     * never overlap.
+     * @param pageable Page and sort; sort properties must be in {@link #ORDENES_FILTRO}
+     */
+    Page<ProductoDTO> filtrar(ProductoFiltroDTO filtro, Pageable pageable);
+}
@@ -0,0 +1,156 @@
+package edu.cibertec.appstorecomputer.repository;
+
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFiltroDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoPatchDTO;
+import edu.cibertec.appstorecomputer.model.Categoria;
+import edu.cibertec.appstorecomputer.model.Marca;
+import edu.cibertec.appstorecomputer.model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int patch(Long id, ProductoPatchDTO cambios, Long version) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Producto> update = cb.createCriteriaUpdate(Producto.class);
+        Root<Producto> producto = update.from(Producto.class);
+
+        if (cambios.nombre() != null) {
+            update.set(producto.<String>get("nombre"), cambios.nombre());
+        }
+        if (cambios.descripcion() != null) {
+            update.set(producto.<String>get("descripcion"), cambios.descripcion());
+        }
+        if (cambios.precio() != null) {
+            update.set(producto.<BigDecimal>get("precio"), cambios.precio());
+        }
+        if (cambios.codigo() != null) {
+            update.set(producto.<String>get("codigo"), cambios.codigo());
+        }
+        if (cambios.imagenUrl() != null) {
+            update.set(producto.<String>get("imagenUrl"), cambios.imagenUrl());
+        }
+        if (cambios.activo() != null) {
+            update.set(producto.<Boolean>get("activo"), cambios.activo());
+        }
+        // References are proxies: the id goes into the foreign key column without a SELECT
+        if (cambios.categoriaId() != null) {
+            update.set(producto.<Categoria>get("categoria"),
+                    entityManager.getReference(Categoria.class, cambios.categoriaId()));
+        }
+        if (cambios.marcaId() != null) {
+            update.set(producto.<Marca>get("marca"),
+                    entityManager.getReference(Marca.class, cambios.marcaId()));
+        }
+        update.set(producto.<Long>get("version"), cb.sum(producto.<Long>get("version"), 1L));
+        update.set(producto.<LocalDateTime>get("fechaModificacion"), cb.localDateTime());
+
+        Predicate filtro = cb.equal(producto.get("id"), id);
+        if (version != null) {
+            filtro = cb.and(filtro, cb.equal(producto.get("version"), version));
+        }
+        update.where(filtro);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public Page<ProductoDTO> filtrar(ProductoFiltroDTO filtro, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoDTO> query = cb.createQuery(ProductoDTO.class);
+        Root<Producto> producto = query.from(Producto.class);
+        Join<Producto, Categoria> categoria = producto.join("categoria");
+        Join<Producto, Marca> marca = producto.join("marca");
+        query.select(cb.construct(ProductoDTO.class,
+                producto.get("id"), producto.get("nombre"), producto.get("descripcion"), producto.get("precio"),
+                producto.get("stock"), producto.get("codigo"), producto.get("imagenUrl"),
+                producto.get("fechaCreacion"), producto.get("activo"), categoria.get("id"), marca.get("id"),
+                categoria.get("nombre"), marca.get("nombre")));
+        query.where(condiciones(cb, producto, filtro));
+
+        List<Order> orden = new ArrayList<>();
+        for (Sort.Order clave : pageable.getSort()) {
+            orden.add(clave.isAscending()
+                    ? cb.asc(producto.get(clave.getProperty()))
+                    : cb.desc(producto.get(clave.getProperty())));
+        }
+        if (pageable.getSort().getOrderFor("id") == null) {
+            orden.add(cb.asc(producto.get("id")));
+        }
+        query.orderBy(orden);
+
+        TypedQuery<ProductoDTO> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductoDTO> productos = typedQuery.getResultList();
+        return PageableExecutionUtils.getPage(productos, pageable, () -> contar(filtro));
+    }
+
+    private long contar(ProductoFiltroDTO filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Producto> producto = query.from(Producto.class);
+        // No joins: categoria and marca are mandatory, so they cannot change the count
+        query.select(cb.count(producto));
+        query.where(condiciones(cb, producto, filtro));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] condiciones(CriteriaBuilder cb, Root<Producto> producto, ProductoFiltroDTO filtro) {
+        List<Predicate> condiciones = new ArrayList<>();
+        // Compared on the foreign key columns, without touching categorias or marcas
+        if (filtro.categoriaId() != null) {
+            condiciones.add(cb.equal(producto.get("categoria").get("id"), filtro.categoriaId()));
+        }
+        if (filtro.marcaId() != null) {
+            condiciones.add(cb.equal(producto.get("marca").get("id"), filtro.marcaId()));
+        }
+        if (filtro.precioMin() != null) {
+            condiciones.add(cb.greaterThanOrEqualTo(producto.<BigDecimal>get("precio"), filtro.precioMin()));
+        }
+        if (filtro.precioMax() != null) {
+            condiciones.add(cb.lessThanOrEqualTo(producto.<BigDecimal>get("precio"), filtro.precioMax()));
+        }
+        if (filtro.stockDesde() != null) {
+            condiciones.add(cb.greaterThanOrEqualTo(producto.<Integer>get("stock"), filtro.stockDesde()));
+        }
+        if (filtro.stockHasta() != null) {
+            condiciones.add(cb.lessThanOrEqualTo(producto.<Integer>get("stock"), filtro.stockHasta()));
+        }
+        if (filtro.activo() != null) {
+            condiciones.add(cb.equal(producto.get("activo"), filtro.activo()));
+        }
+        if (filtro.nombre() != null && !filtro.nombre().isBlank()) {
+            // Prefix only, on the bare column, so the nombre index can serve it
+            condiciones.add(cb.like(producto.<String>get("nombre"), escaparLike(filtro.nombre().trim()) + "%", '\\'));
+        }
+        return condiciones.toArray(Predicate[]::new);
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,24 @@
+package edu.cibertec.appstorecomputer.repository;
+
+import edu.cibertec.appstorecomputer.model.ProductoStockCaliente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductoStockCalienteRepository extends JpaRepository<ProductoStockCaliente, Long> {
+
+    List<ProductoStockCaliente> findByActivoTrue();
+
+    /**
+     * Count a flushed stock batch of the product
+     */
+    @Modifying
+    @Query("UPDATE ProductoStockCaliente s SET s.ultimoLote = s.ultimoLote + 1, " +
+           "s.fechaActualizacion = CURRENT_TIMESTAMP WHERE s.productoId = :productoId")
+    int avanzarLote(@Param("productoId") Long productoId);
+}
@@ -0,0 +1,33 @@
+package edu.cibertec.appstorecomputer.repository;
+
+import edu.cibertec.appstorecomputer.model.ProductoStockMovimiento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductoStockMovimientoRepository extends JpaRepository<ProductoStockMovimiento, Long> {
+
+    /**
+     * Committed change not yet applied to productos.stock, as an id and a delta
+     */
+    record Pendiente(Long id, Integer delta) {
+    }
+
+    @Query("SELECT new edu.cibertec.appstorecomputer.repository.ProductoStockMovimientoRepository$Pendiente(m.id, m.delta) " +
+           "FROM ProductoStockMovimiento m WHERE m.productoId = :productoId ORDER BY m.id")
+    List<Pendiente> findPendientes(@Param("productoId") Long productoId);
+
+    @Query("SELECT COALESCE(SUM(m.delta), 0) FROM ProductoStockMovimiento m WHERE m.productoId = :productoId")
+    long sumDeltaByProductoId(@Param("productoId") Long productoId);
+
+    // By id, not by product: changes committed after they were read must stay for the next flush
+    @Modifying
+    @Query("DELETE FROM ProductoStockMovimiento m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
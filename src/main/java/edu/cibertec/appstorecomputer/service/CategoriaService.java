@@ -1,5 +1,6 @@
 package edu.cibertec.appstorecomputer.service;
 
+import edu.cibertec.appstorecomputer.dto.ActivacionDTO;
 import edu.cibertec.appstorecomputer.dto.CategoriaDTO;
 
 import java.util.List;
@@ -46,9 +47,10 @@ public interface CategoriaService {
      * Update an existing category
      * @param id Category ID
      * @param categoriaDTO Category data
+     * @param version Version the client last read (If-Match), or null to update unconditionally
      * @return Updated category
      */
-    CategoriaDTO update(Long id, CategoriaDTO categoriaDTO);
+    CategoriaDTO update(Long id, CategoriaDTO categoriaDTO, Long version);
 
     /**
      * Delete a category by ID
@@ -56,6 +58,20 @@ public interface CategoriaService {
      */
     void delete(Long id);
 
+    /**
+     * Activate a category and all of its products
+     * @param id Category ID
+     * @return Result with the number of products that changed
+     */
+    ActivacionDTO activar(Long id);
+
+    /**
+     * Deactivate a category and all of its products
+     * @param id Category ID
+     * @return Result with the number of products that changed
+     */
+    ActivacionDTO desactivar(Long id);
+
     /**
      * Check if a category exists by name
      * @param nombre Category name
@@ -1,5 +1,6 @@
 package edu.cibertec.appstorecomputer.service;
 
+import edu.cibertec.appstorecomputer.dto.ActivacionDTO;
 import edu.cibertec.appstorecomputer.dto.MarcaDTO;
 
 import java.util.List;
@@ -53,9 +54,10 @@ public interface MarcaService {
      * Update an existing brand
      * @param id Brand ID
      * @param marcaDTO Brand data
+     * @param version Version the client last read (If-Match), or null to update unconditionally
      * @return Updated brand
      */
-    MarcaDTO update(Long id, MarcaDTO marcaDTO);
+    MarcaDTO update(Long id, MarcaDTO marcaDTO, Long version);
 
     /**
      * Delete a brand by ID
@@ -63,6 +65,20 @@ public interface MarcaService {
      */
     void delete(Long id);
 
+    /**
+     * Activate a brand and all of its products
+     * @param id Brand ID
+     * @return Result with the number of products that changed
+     */
+    ActivacionDTO activar(Long id);
+
+    /**
+     * Deactivate a brand and all of its products
+     * @param id Brand ID
+     * @return Result with the number of products that changed
+     */
+    ActivacionDTO desactivar(Long id);
+
     /**
      * Check if a brand exists by name
      * @param nombre Brand name
@@ -0,0 +1,24 @@
+package edu.cibertec.appstorecomputer.service;
+
+import edu.cibertec.appstorecomputer.dto.ImportacionDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Service interface for bulk product imports
+ */
+public interface ProductoImportService {
+
+    /**
+     * Start importing a CSV file of products. Rows are upserted by codigo in the background
+     * @param archivo CSV file whose header names the ProductoDTO fields
+     * @return The queued import
+     */
+    ImportacionDTO importCsv(MultipartFile archivo);
+
+    /**
+     * Get the progress of an import
+     * @param id Import ID
+     * @return The import progress and the first row errors
+     */
+    ImportacionDTO findById(String id);
+}
@@ -1,11 +1,23 @@
 package edu.cibertec.appstorecomputer.service;
 
+import edu.cibertec.appstorecomputer.dto.CursorPageDTO;
+import edu.cibertec.appstorecomputer.dto.ListaVersionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoBatchResultadoDTO;
 import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFacetasDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFiltroDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoPatchDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionDTO;
+import edu.cibertec.appstorecomputer.dto.StockDTO;
+import edu.cibertec.appstorecomputer.dto.StockLineaDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Service interface for managing products
@@ -13,10 +25,18 @@ import java.util.List;
 public interface ProductoService {
 
     /**
-     * Get all products
-     * @return List of all products
+     * Get all products unless the client copy is current. The version and the list are read in
+     * the same transaction, so the version always describes the list
+     * @param noModificado Tells whether the client holds the given version; then the list is not read
+     * @return List of all products, or empty when the client copy is current
      */
-    List<ProductoDTO> findAll();
+    Optional<List<ProductoDTO>> findAll(Predicate<ListaVersionDTO> noModificado);
+
+    /**
+     * Stream all products, one at a time, to the given consumer without materializing the catalog
+     * @param consumer Action invoked for every product, ordered by ID
+     */
+    void exportAll(Consumer<ProductoDTO> consumer);
 
     /**
      * Get all products with pagination
@@ -26,10 +46,11 @@ public interface ProductoService {
     Page<ProductoDTO> findAllPaginated(Pageable pageable);
 
     /**
-     * Get all active products
-     * @return List of active products
+     * Get all active products unless the client copy is current, as {@link #findAll(Predicate)}
+     * @param noModificado Tells whether the client holds the given version; then the list is not read
+     * @return List of active products, or empty when the client copy is current
      */
-    List<ProductoDTO> findAllActive();
+    Optional<List<ProductoDTO>> findAllActive(Predicate<ListaVersionDTO> noModificado);
 
     /**
      * Get all active products with pagination
@@ -38,6 +59,26 @@ public interface ProductoService {
      */
     Page<ProductoDTO> findAllActivePaginated(Pageable pageable);
 
+    /**
+     * Get products using keyset (cursor) pagination
+     * @param cursor Cursor returned by the previous slice, or null for the first one
+     * @param size Maximum number of products in the slice
+     * @param orden Sort key (id, nombre or precio)
+     * @param incluirTotal Whether to also count the total number of products
+     * @return Slice of products with the cursor for the next one
+     */
+    CursorPageDTO<ProductoDTO> findAllByCursor(String cursor, int size, String orden, boolean incluirTotal);
+
+    /**
+     * Get active products using keyset (cursor) pagination
+     * @param cursor Cursor returned by the previous slice, or null for the first one
+     * @param size Maximum number of products in the slice
+     * @param orden Sort key (id, nombre or precio)
+     * @param incluirTotal Whether to also count the total number of active products
+     * @return Slice of active products with the cursor for the next one
+     */
+    CursorPageDTO<ProductoDTO> findAllActiveByCursor(String cursor, int size, String orden, boolean incluirTotal);
+
     /**
      * Get a product by ID
      * @param id Product ID
@@ -45,6 +86,16 @@ public interface ProductoService {
      */
     ProductoDTO findById(Long id);
 
+    /**
+     * Get a product unless the client copy is current. The version and the product are read in
+     * the same transaction, so the version always describes the product
+     * @param id Product ID
+     * @param noModificado Tells whether the client holds the given versions of the product, its
+     *                     categoria and its marca; then the product is not read
+     * @return Product with the given ID, or empty when the client copy is current
+     */
+    Optional<ProductoDTO> findById(Long id, Predicate<ProductoVersionDTO> noModificado);
+
     /**
      * Get a product by code
      * @param codigo Product code
@@ -81,6 +132,14 @@ public interface ProductoService {
      */
     List<ProductoDTO> findByNombreContaining(String nombre);
 
+    /**
+     * Full-text search over name, description and code, ranked by relevance
+     * @param query Free text (accents and case are ignored, the last word matches as a prefix)
+     * @param pageable Pagination information
+     * @return Page of active products matching every word of the query
+     */
+    Page<ProductoDTO> search(String query, Pageable pageable);
+
     /**
      * Get products within a price range
      * @param precioMin Minimum price
@@ -89,6 +148,23 @@ public interface ProductoService {
      */
     List<ProductoDTO> findByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax);
 
+    /**
+     * Get products within a price range with pagination
+     * @param precioMin Minimum price
+     * @param precioMax Maximum price
+     * @param pageable Pagination information
+     * @return Page of products within the given price range
+     */
+    Page<ProductoDTO> findByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax, Pageable pageable);
+
+    /**
+     * Count products within a price range
+     * @param precioMin Minimum price
+     * @param precioMax Maximum price
+     * @return Number of products within the given price range
+     */
+    long countByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax);
+
     /**
      * Get products with stock below a threshold
      * @param stockMinimo Minimum stock threshold
@@ -96,12 +172,48 @@ public interface ProductoService {
      */
     List<ProductoDTO> findByStockLessThan(Integer stockMinimo);
 
+    /**
+     * Get products with stock below a threshold with pagination
+     * @param stockMinimo Minimum stock threshold
+     * @param pageable Pagination information
+     * @return Page of products with stock below the threshold
+     */
+    Page<ProductoDTO> findByStockLessThan(Integer stockMinimo, Pageable pageable);
+
+    /**
+     * Count products with stock below a threshold
+     * @param stockMinimo Minimum stock threshold
+     * @return Number of products with stock below the threshold
+     */
+    long countByStockLessThan(Integer stockMinimo);
+
     /**
      * Get available products (active and in stock)
      * @return List of available products
      */
     List<ProductoDTO> findAvailableProducts();
 
+    /**
+     * Get a page of products matching any combination of conditions, in one query
+     * @param filtro Conditions to apply; null fields are ignored
+     * @param pageable Page and sort (id, nombre, precio or stock)
+     * @return Page of matching products
+     */
+    Page<ProductoDTO> findByFiltro(ProductoFiltroDTO filtro, Pageable pageable);
+
+    /**
+     * Count the products matching a filter per categoria, marca, price bucket and stock flag
+     * @param categoriaId Categoria ID, or null for any
+     * @param marcaId Marca ID, or null for any
+     * @param precioMin Minimum price, or null
+     * @param precioMax Maximum price, or null
+     * @param enStock Whether the products must have stock, or null for both
+     * @param soloActivos Count active products only
+     * @return Total and facet counts; each facet ignores its own condition
+     */
+    ProductoFacetasDTO findFacetas(Long categoriaId, Long marcaId, BigDecimal precioMin, BigDecimal precioMax,
+                                   Boolean enStock, boolean soloActivos);
+
     /**
      * Create a new product
      * @param productoDTO Product data
@@ -109,13 +221,31 @@ public interface ProductoService {
      */
     ProductoDTO create(ProductoDTO productoDTO);
 
+    /**
+     * Create many products at once. Each item is validated on its own; valid items are
+     * inserted with JDBC batching and invalid ones are reported without aborting the batch
+     * @param productosDTO Products to create
+     * @return Outcome of every item, in request order
+     */
+    ProductoBatchResultadoDTO createBatch(List<ProductoDTO> productosDTO);
+
     /**
      * Update an existing product
      * @param id Product ID
      * @param productoDTO Product data
+     * @param version Version the client last read (If-Match), or null to update unconditionally
+     * @return Updated product
+     */
+    ProductoDTO update(Long id, ProductoDTO productoDTO, Long version);
+
+    /**
+     * Change only the given fields of a product with a single UPDATE statement
+     * @param id Product ID
+     * @param cambios Fields to change; null fields are left as they are
+     * @param version Version the client last read (If-Match), or null to update unconditionally
      * @return Updated product
      */
-    ProductoDTO update(Long id, ProductoDTO productoDTO);
+    ProductoDTO patch(Long id, ProductoPatchDTO cambios, Long version);
 
     /**
      * Delete a product by ID
@@ -123,6 +253,36 @@ public interface ProductoService {
      */
     void delete(Long id);
 
+    /**
+     * Decrement the stock of a product, only if it has enough
+     * @param id Product ID
+     * @param cantidad Units to take
+     * @return The new stock level
+     */
+    StockDTO descontarStock(Long id, int cantidad);
+
+    /**
+     * Add units to the stock of a product
+     * @param id Product ID
+     * @param cantidad Units to add
+     * @return The new stock level
+     */
+    StockDTO reponerStock(Long id, int cantidad);
+
+    /**
+     * Decrement the stock of every line of a cart; either all lines succeed or none does
+     * @param lineas Cart lines; lines for the same product are added up
+     * @return The new stock level of each product, by product ID
+     */
+    List<StockDTO> reservarStock(List<StockLineaDTO> lineas);
+
+    /**
+     * Give back the stock of every line of a cart, e.g. when a reservation is cancelled
+     * @param lineas Cart lines; lines for the same product are added up
+     * @return The new stock level of each product, by product ID
+     */
+    List<StockDTO> liberarStock(List<StockLineaDTO> lineas);
+
     /**
      * Check if a product exists by code
      * @param codigo Product code
@@ -0,0 +1,65 @@
+package edu.cibertec.appstorecomputer.service;
+
+import edu.cibertec.appstorecomputer.dto.StockCalienteDTO;
+import edu.cibertec.appstorecomputer.dto.StockDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service interface for the hot-SKU stock mode, where the stock of selected products is kept
+ * in memory and written back to the database in batches
+ */
+public interface StockCalienteService {
+
+    /**
+     * Get all products in hot-SKU mode
+     * @return State of every hot product
+     */
+    List<StockCalienteDTO> findAll();
+
+    /**
+     * Move the stock of a product to memory
+     * @param productoId Product ID
+     * @return State of the hot product
+     */
+    StockCalienteDTO activar(Long productoId);
+
+    /**
+     * Write back the pending changes of a product and return its stock to the database
+     * @param productoId Product ID
+     * @return Final state of the product
+     */
+    StockCalienteDTO desactivar(Long productoId);
+
+    /**
+     * Check whether a product is in hot-SKU mode
+     * @param productoId Product ID
+     * @return true if its stock lives in memory
+     */
+    boolean isActivo(Long productoId);
+
+    /**
+     * Take units from a hot product. Inside a transaction they are given back if it rolls back
+     * @param productoId Product ID
+     * @param cantidad Units to take
+     * @return The new stock level, or empty if the product is not in hot-SKU mode; the caller
+     * then changes the stock on the database, and the product cannot be enabled until its
+     * transaction completes
+     */
+    Optional<StockDTO> descontar(Long productoId, int cantidad);
+
+    /**
+     * Add units to a hot product. Inside a transaction they are taken back if it rolls back
+     * @param productoId Product ID
+     * @param cantidad Units to add
+     * @return The new stock level, or empty if the product is not in hot-SKU mode, with the
+     * same rule as {@link #descontar(Long, int)}
+     */
+    Optional<StockDTO> reponer(Long productoId, int cantidad);
+
+    /**
+     * Write the pending stock changes of every hot product to the database
+     */
+    void flush();
+}
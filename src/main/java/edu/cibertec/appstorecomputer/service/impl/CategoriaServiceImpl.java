@@ -1,30 +1,48 @@
 package edu.cibertec.appstorecomputer.service.impl;
 
+import edu.cibertec.appstorecomputer.config.CacheConfig;
+import edu.cibertec.appstorecomputer.config.MetricsConfig;
+import edu.cibertec.appstorecomputer.dto.ActivacionDTO;
 import edu.cibertec.appstorecomputer.dto.CategoriaDTO;
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
 import edu.cibertec.appstorecomputer.exception.ResourceAlreadyExistsException;
 import edu.cibertec.appstorecomputer.exception.ResourceNotFoundException;
+import edu.cibertec.appstorecomputer.exception.VersionConflictException;
 import edu.cibertec.appstorecomputer.mapper.CategoriaMapper;
 import edu.cibertec.appstorecomputer.model.Categoria;
 import edu.cibertec.appstorecomputer.repository.CategoriaRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
 import edu.cibertec.appstorecomputer.service.CategoriaService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class CategoriaServiceImpl implements CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
+    private final ProductoRepository productoRepository;
     private final CategoriaMapper categoriaMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS, key = "'todas'")
     public List<CategoriaDTO> findAll() {
         log.info("Fetching all categories");
         List<Categoria> categorias = categoriaRepository.findAll();
@@ -33,6 +51,7 @@ public class CategoriaServiceImpl implements CategoriaService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS, key = "'activas'")
     public List<CategoriaDTO> findAllActive() {
         log.info("Fetching all active categories");
         List<Categoria> categorias = categoriaRepository.findByActivoTrue();
@@ -41,6 +60,7 @@ public class CategoriaServiceImpl implements CategoriaService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORIA_POR_ID, key = "#id")
     public CategoriaDTO findById(Long id) {
         log.info("Fetching category with id: {}", id);
         Categoria categoria = categoriaRepository.findById(id)
@@ -50,6 +70,7 @@ public class CategoriaServiceImpl implements CategoriaService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORIA_POR_NOMBRE, key = "#nombre")
     public CategoriaDTO findByNombre(String nombre) {
         log.info("Fetching category with nombre: {}", nombre);
         Categoria categoria = categoriaRepository.findByNombre(nombre)
@@ -58,6 +79,7 @@ public class CategoriaServiceImpl implements CategoriaService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true)
     public CategoriaDTO create(CategoriaDTO categoriaDTO) {
         log.info("Creating new category: {}", categoriaDTO.nombre());
         
@@ -73,17 +95,26 @@ public class CategoriaServiceImpl implements CategoriaService {
         }
         
         Categoria savedCategoria = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CatalogoEvent.CategoriaGuardada(savedCategoria.getId(), savedCategoria.getNombre()));
         log.info("Category created with id: {}", savedCategoria.getId());
         
         return categoriaMapper.toDto(savedCategoria);
     }
 
     @Override
-    public CategoriaDTO update(Long id, CategoriaDTO categoriaDTO) {
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIA_POR_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIA_POR_NOMBRE, key = "#categoriaDTO.nombre()")
+    })
+    public CategoriaDTO update(Long id, CategoriaDTO categoriaDTO, Long version) {
         log.info("Updating category with id: {}", id);
         
         Categoria existingCategoria = categoriaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Categoria", "id", id));
+        if (version != null && !version.equals(existingCategoria.getVersion())) {
+            throw new VersionConflictException("Categoria", id, version, existingCategoria.getVersion());
+        }
         
         // Check if name is being changed and if the new name already exists
         if (!existingCategoria.getNombre().equals(categoriaDTO.nombre()) && 
@@ -91,23 +122,32 @@ public class CategoriaServiceImpl implements CategoriaService {
             throw new ResourceAlreadyExistsException("Categoria", "nombre", categoriaDTO.nombre());
         }
         
+        // The entry under the previous name is only known here; evicted once the transaction commits
+        evict(CacheConfig.CATEGORIA_POR_NOMBRE, existingCategoria.getNombre());
         categoriaMapper.updateEntityFromDto(categoriaDTO, existingCategoria);
         
-        Categoria updatedCategoria = categoriaRepository.save(existingCategoria);
+        // Flushed so the returned DTO carries the new version
+        Categoria updatedCategoria = categoriaRepository.saveAndFlush(existingCategoria);
+        eventPublisher.publishEvent(new CatalogoEvent.CategoriaGuardada(updatedCategoria.getId(), updatedCategoria.getNombre()));
         log.info("Category updated: {}", updatedCategoria.getId());
         
         return categoriaMapper.toDto(updatedCategoria);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIA_POR_ID, key = "#id")
+    })
     public void delete(Long id) {
         log.info("Deleting category with id: {}", id);
         
         Categoria categoria = categoriaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Categoria", "id", id));
+        evict(CacheConfig.CATEGORIA_POR_NOMBRE, categoria.getNombre());
         
         // Check if the category has associated products
-        if (!categoria.getProductos().isEmpty()) {
+        if (productoRepository.existsByCategoriaId(id)) {
             log.warn("Cannot delete category with id: {} because it has associated products", id);
             // Instead of deleting, mark as inactive
             categoria.setActivo(false);
@@ -115,13 +155,58 @@ public class CategoriaServiceImpl implements CategoriaService {
             log.info("Category marked as inactive: {}", id);
         } else {
             categoriaRepository.delete(categoria);
+            eventPublisher.publishEvent(new CatalogoEvent.CategoriaEliminada(id));
             log.info("Category deleted: {}", id);
         }
     }
 
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIA_POR_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIA_POR_NOMBRE, allEntries = true)
+    })
+    public ActivacionDTO activar(Long id) {
+        return cambiarActivo(id, true);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIA_POR_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIA_POR_NOMBRE, allEntries = true)
+    })
+    public ActivacionDTO desactivar(Long id) {
+        return cambiarActivo(id, false);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean existsByNombre(String nombre) {
         return categoriaRepository.existsByNombre(nombre);
     }
+
+    /**
+     * One UPDATE for the category by primary key and one for its products through the
+     * foreign key index; no entity or collection is loaded into memory
+     */
+    private ActivacionDTO cambiarActivo(Long id, boolean activo) {
+        log.info("Setting activo={} on category {} and its products", activo, id);
+        if (categoriaRepository.actualizarActivo(id, activo) == 0) {
+            throw new ResourceNotFoundException("Categoria", "id", id);
+        }
+        int productos = productoRepository.actualizarActivoPorCategoria(id, activo);
+        if (productos > 0) {
+            eventPublisher.publishEvent(new CatalogoEvent.CatalogoModificado());
+        }
+        log.info("Category {} set to activo={} with {} products", id, activo, productos);
+        return new ActivacionDTO(id, activo, productos);
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+package edu.cibertec.appstorecomputer.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Striped stock counter of a hot product.
+ * <p>
+ * The available units are spread over several stripes and every thread starts at its own
+ * stripe, so concurrent reservations mostly CAS different cache lines instead of fighting
+ * for one row lock or one atomic. Net changes not yet applied to the database are tracked
+ * per stripe for reporting. Operations run between {@link #entrar(int)} and {@link #salir(int)}
+ * so that {@link #cerrar()} can wait for the ones in flight, and those made inside a
+ * transaction stay registered until it completes so the last flush can wait for their
+ * outcome.
+ */
+class ContadorStock {
+
+    // Stride between used slots so each stripe sits on its own 64-byte cache line
+    private static final int PASO_INT = 16;
+    private static final int PASO_LONG = 8;
+
+    private final long productoId;
+    private final int stripes;
+    private final AtomicIntegerArray unidades;
+    private final AtomicIntegerArray enCurso;
+    private final AtomicLongArray deltas;
+    private final AtomicInteger transaccionesEnCurso = new AtomicInteger();
+    private volatile boolean cerrado;
+
+    // Only written by the flush, under the counter monitor
+    private volatile long ultimoLote;
+
+    /**
+     * @param stock Units available
+     * @param pendiente Net change included in the stock but not yet in the database
+     */
+    ContadorStock(long productoId, int stock, long pendiente, long ultimoLote, int stripes) {
+        this.productoId = productoId;
+        this.stripes = Integer.highestOneBit(Math.max(1, stripes));
+        this.unidades = new AtomicIntegerArray(this.stripes * PASO_INT);
+        this.enCurso = new AtomicIntegerArray(this.stripes * PASO_INT);
+        this.deltas = new AtomicLongArray(this.stripes * PASO_LONG);
+        this.ultimoLote = ultimoLote;
+        for (int i = 0; i < this.stripes; i++) {
+            unidades.set(i * PASO_INT, stock / this.stripes + (i < stock % this.stripes ? 1 : 0));
+        }
+        deltas.set(0, pendiente);
+    }
+
+    long productoId() {
+        return productoId;
+    }
+
+    /**
+     * Stripe of the calling thread
+     */
+    int stripe() {
+        return (int) Thread.currentThread().threadId() & (stripes - 1);
+    }
+
+    /**
+     * Start an operation; false when the counter is being closed
+     */
+    boolean entrar(int stripe) {
+        enCurso.incrementAndGet(stripe * PASO_INT);
+        if (cerrado) {
+            enCurso.decrementAndGet(stripe * PASO_INT);
+            return false;
+        }
+        return true;
+    }
+
+    void salir(int stripe) {
+        enCurso.decrementAndGet(stripe * PASO_INT);
+    }
+
+    /**
+     * Take units starting at the given stripe and borrowing from the others if needed
+     * @return false, leaving the stock untouched, when there are not enough units
+     */
+    boolean tomar(int stripe, int cantidad) {
+        int restante = cantidad;
+        int[] tomadas = null;
+        for (int i = 0; i < stripes && restante > 0; i++) {
+            int s = (stripe + i) & (stripes - 1);
+            int slot = s * PASO_INT;
+            while (true) {
+                int actual = unidades.get(slot);
+                int toma = Math.min(actual, restante);
+                if (toma <= 0) {
+                    break;
+                }
+                if (unidades.compareAndSet(slot, actual, actual - toma)) {
+                    restante -= toma;
+                    if (restante > 0 || i > 0) {
+                        if (tomadas == null) {
+                            tomadas = new int[stripes];
+                        }
+                        tomadas[s] += toma;
+                    }
+                    break;
+                }
+            }
+        }
+        if (restante > 0) {
+            if (tomadas != null) {
+                for (int s = 0; s < stripes; s++) {
+                    if (tomadas[s] > 0) {
+                        unidades.addAndGet(s * PASO_INT, tomadas[s]);
+                    }
+                }
+            }
+            return false;
+        }
+        deltas.addAndGet(stripe * PASO_LONG, -cantidad);
+        return true;
+    }
+
+    void devolver(int stripe, int cantidad) {
+        unidades.addAndGet(stripe * PASO_INT, cantidad);
+        deltas.addAndGet(stripe * PASO_LONG, cantidad);
+    }
+
+    /**
+     * Undo a restock; unlike {@link #tomar(int, int)} it never fails, a stripe may go negative
+     */
+    void quitar(int stripe, int cantidad) {
+        unidades.addAndGet(stripe * PASO_INT, -cantidad);
+        deltas.addAndGet(stripe * PASO_LONG, -cantidad);
+    }
+
+    /**
+     * Units available right now (a moving target under concurrent updates)
+     */
+    int disponible() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += unidades.get(i * PASO_INT);
+        }
+        return total;
+    }
+
+    /**
+     * Net change not yet applied to the database, including that of transactions in flight
+     */
+    long pendiente() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += deltas.get(i * PASO_LONG);
+        }
+        return total;
+    }
+
+    long ultimoLote() {
+        return ultimoLote;
+    }
+
+    /**
+     * Record a batch written to the database
+     * @param delta Net change the batch applied
+     */
+    void loteAplicado(long numero, long delta) {
+        ultimoLote = numero;
+        deltas.addAndGet(0, -delta);
+    }
+
+    /**
+     * Register an operation whose transaction has not completed yet; call between
+     * {@link #entrar(int)} and {@link #salir(int)} so that {@link #cerrar()} cannot miss it
+     */
+    void transaccionIniciada() {
+        transaccionesEnCurso.incrementAndGet();
+    }
+
+    void transaccionTerminada() {
+        transaccionesEnCurso.decrementAndGet();
+    }
+
+    /**
+     * Wait for the transactions of the operations registered so far to complete
+     * @return false if some are still running after the timeout
+     */
+    boolean esperarTransacciones(long timeout, TimeUnit unidad) {
+        long limite = System.nanoTime() + unidad.toNanos(timeout);
+        while (transaccionesEnCurso.get() > 0) {
+            if (System.nanoTime() - limite > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting operations and wait for the ones in flight
+     */
+    void cerrar() {
+        cerrado = true;
+        for (int i = 0; i < stripes; i++) {
+            while (enCurso.get(i * PASO_INT) > 0) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    void reabrir() {
+        cerrado = false;
+    }
+
+    boolean isCerrado() {
+        return cerrado;
+    }
+}
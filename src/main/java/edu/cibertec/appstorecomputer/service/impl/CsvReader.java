@@ -0,0 +1,133 @@
+package edu.cibertec.appstorecomputer.service.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming CSV reader (RFC 4180): quoted fields may contain separators, doubled
+ * quotes and line breaks. Only the current record is kept in memory.
+ */
+class CsvReader implements Closeable {
+
+    private static final int NINGUNO = -2;
+
+    private final Reader reader;
+    private final char separador;
+    private final StringBuilder campo = new StringBuilder();
+    private long linea = 1;
+    private long lineaRegistro;
+    private int pendiente = NINGUNO;
+    private boolean inicio = true;
+
+    CsvReader(Reader reader, char separador) {
+        this.reader = reader;
+        this.separador = separador;
+    }
+
+    /**
+     * Guess the separator from the header line: ';' is common in spreadsheets using a comma
+     * as decimal mark
+     */
+    static char detectarSeparador(String cabecera) {
+        return cabecera.indexOf(';') >= 0 && cabecera.indexOf(',') < 0 ? ';' : ',';
+    }
+
+    /**
+     * Line number where the last record returned by {@link #next()} starts
+     */
+    long lineaRegistro() {
+        return lineaRegistro;
+    }
+
+    /**
+     * Next record, or null at the end of the input. Blank lines are skipped
+     */
+    List<String> next() throws IOException {
+        List<String> campos = new ArrayList<>();
+        int c = leer();
+        while (c == '\r' || c == '\n') {
+            saltoDeLinea(c);
+            c = leer();
+        }
+        if (c == -1) {
+            return null;
+        }
+        lineaRegistro = linea;
+        campo.setLength(0);
+        boolean entreComillas = false;
+        while (true) {
+            if (entreComillas) {
+                if (c == -1) {
+                    throw new IOException("Comillas sin cerrar en el registro de la línea " + lineaRegistro);
+                }
+                if (c == '"') {
+                    int d = leer();
+                    if (d == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        c = d;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                campos.add(campo.toString());
+                if (c != -1) {
+                    saltoDeLinea(c);
+                }
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+            c = leer();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int leer() throws IOException {
+        if (pendiente != NINGUNO) {
+            int c = pendiente;
+            pendiente = NINGUNO;
+            return c;
+        }
+        int c = reader.read();
+        // Skip the UTF-8 byte order mark some spreadsheets write
+        if (inicio) {
+            inicio = false;
+            if (c == '\uFEFF') {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Consume the rest of a line break, either "\n", "\r" or "\r\n"
+     */
+    private void saltoDeLinea(int c) throws IOException {
+        linea++;
+        if (c == '\r') {
+            int d = leer();
+            if (d != '\n') {
+                pendiente = d;
+            }
+        }
+    }
+}
@@ -1,30 +1,48 @@
 package edu.cibertec.appstorecomputer.service.impl;
 
+import edu.cibertec.appstorecomputer.config.CacheConfig;
+import edu.cibertec.appstorecomputer.config.MetricsConfig;
+import edu.cibertec.appstorecomputer.dto.ActivacionDTO;
 import edu.cibertec.appstorecomputer.dto.MarcaDTO;
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
 import edu.cibertec.appstorecomputer.exception.ResourceAlreadyExistsException;
 import edu.cibertec.appstorecomputer.exception.ResourceNotFoundException;
+import edu.cibertec.appstorecomputer.exception.VersionConflictException;
 import edu.cibertec.appstorecomputer.mapper.MarcaMapper;
 import edu.cibertec.appstorecomputer.model.Marca;
 import edu.cibertec.appstorecomputer.repository.MarcaRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
 import edu.cibertec.appstorecomputer.service.MarcaService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class MarcaServiceImpl implements MarcaService {
 
     private final MarcaRepository marcaRepository;
+    private final ProductoRepository productoRepository;
     private final MarcaMapper marcaMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.MARCAS, key = "'todas'")
     public List<MarcaDTO> findAll() {
         log.info("Fetching all brands");
         List<Marca> marcas = marcaRepository.findAll();
@@ -33,6 +51,7 @@ public class MarcaServiceImpl implements MarcaService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.MARCAS, key = "'activas'")
     public List<MarcaDTO> findAllActive() {
         log.info("Fetching all active brands");
         List<Marca> marcas = marcaRepository.findByActivoTrue();
@@ -41,6 +60,7 @@ public class MarcaServiceImpl implements MarcaService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.MARCA_POR_ID, key = "#id")
     public MarcaDTO findById(Long id) {
         log.info("Fetching brand with id: {}", id);
         Marca marca = marcaRepository.findById(id)
@@ -50,6 +70,7 @@ public class MarcaServiceImpl implements MarcaService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.MARCA_POR_NOMBRE, key = "#nombre")
     public MarcaDTO findByNombre(String nombre) {
         log.info("Fetching brand with nombre: {}", nombre);
         Marca marca = marcaRepository.findByNombre(nombre)
@@ -59,6 +80,7 @@ public class MarcaServiceImpl implements MarcaService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.MARCAS_POR_PAIS, key = "#paisOrigen")
     public List<MarcaDTO> findByPaisOrigen(String paisOrigen) {
         log.info("Fetching brands from country: {}", paisOrigen);
         List<Marca> marcas = marcaRepository.findByPaisOrigen(paisOrigen);
@@ -66,6 +88,11 @@ public class MarcaServiceImpl implements MarcaService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MARCAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MARCAS_POR_PAIS, key = "#marcaDTO.paisOrigen()",
+                    condition = "#marcaDTO.paisOrigen() != null")
+    })
     public MarcaDTO create(MarcaDTO marcaDTO) {
         log.info("Creating new brand: {}", marcaDTO.nombre());
         
@@ -81,17 +108,28 @@ public class MarcaServiceImpl implements MarcaService {
         }
         
         Marca savedMarca = marcaRepository.save(marca);
+        eventPublisher.publishEvent(new CatalogoEvent.MarcaGuardada(savedMarca.getId(), savedMarca.getNombre()));
         log.info("Brand created with id: {}", savedMarca.getId());
         
         return marcaMapper.toDto(savedMarca);
     }
 
     @Override
-    public MarcaDTO update(Long id, MarcaDTO marcaDTO) {
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MARCAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MARCA_POR_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.MARCA_POR_NOMBRE, key = "#marcaDTO.nombre()"),
+            @CacheEvict(cacheNames = CacheConfig.MARCAS_POR_PAIS, key = "#marcaDTO.paisOrigen()",
+                    condition = "#marcaDTO.paisOrigen() != null")
+    })
+    public MarcaDTO update(Long id, MarcaDTO marcaDTO, Long version) {
         log.info("Updating brand with id: {}", id);
         
         Marca existingMarca = marcaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Marca", "id", id));
+        if (version != null && !version.equals(existingMarca.getVersion())) {
+            throw new VersionConflictException("Marca", id, version, existingMarca.getVersion());
+        }
         
         // Check if name is being changed and if the new name already exists
         if (!existingMarca.getNombre().equals(marcaDTO.nombre()) && 
@@ -99,23 +137,34 @@ public class MarcaServiceImpl implements MarcaService {
             throw new ResourceAlreadyExistsException("Marca", "nombre", marcaDTO.nombre());
         }
         
+        // The entries under the previous name and country are only known here; evicted once the transaction commits
+        evict(CacheConfig.MARCA_POR_NOMBRE, existingMarca.getNombre());
+        evict(CacheConfig.MARCAS_POR_PAIS, existingMarca.getPaisOrigen());
         marcaMapper.updateEntityFromDto(marcaDTO, existingMarca);
         
-        Marca updatedMarca = marcaRepository.save(existingMarca);
+        // Flushed so the returned DTO carries the new version
+        Marca updatedMarca = marcaRepository.saveAndFlush(existingMarca);
+        eventPublisher.publishEvent(new CatalogoEvent.MarcaGuardada(updatedMarca.getId(), updatedMarca.getNombre()));
         log.info("Brand updated: {}", updatedMarca.getId());
         
         return marcaMapper.toDto(updatedMarca);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MARCAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MARCA_POR_ID, key = "#id")
+    })
     public void delete(Long id) {
         log.info("Deleting brand with id: {}", id);
         
         Marca marca = marcaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Marca", "id", id));
+        evict(CacheConfig.MARCA_POR_NOMBRE, marca.getNombre());
+        evict(CacheConfig.MARCAS_POR_PAIS, marca.getPaisOrigen());
         
         // Check if the brand has associated products
-        if (!marca.getProductos().isEmpty()) {
+        if (productoRepository.existsByMarcaId(id)) {
             log.warn("Cannot delete brand with id: {} because it has associated products", id);
             // Instead of deleting, mark as inactive
             marca.setActivo(false);
@@ -123,13 +172,60 @@ public class MarcaServiceImpl implements MarcaService {
             log.info("Brand marked as inactive: {}", id);
         } else {
             marcaRepository.delete(marca);
+            eventPublisher.publishEvent(new CatalogoEvent.MarcaEliminada(id));
             log.info("Brand deleted: {}", id);
         }
     }
 
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MARCAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MARCA_POR_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.MARCA_POR_NOMBRE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MARCAS_POR_PAIS, allEntries = true)
+    })
+    public ActivacionDTO activar(Long id) {
+        return cambiarActivo(id, true);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MARCAS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MARCA_POR_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.MARCA_POR_NOMBRE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MARCAS_POR_PAIS, allEntries = true)
+    })
+    public ActivacionDTO desactivar(Long id) {
+        return cambiarActivo(id, false);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean existsByNombre(String nombre) {
         return marcaRepository.existsByNombre(nombre);
     }
+
+    /**
+     * One UPDATE for the brand by primary key and one for its products through the
+     * foreign key index; no entity or collection is loaded into memory
+     */
+    private ActivacionDTO cambiarActivo(Long id, boolean activo) {
+        log.info("Setting activo={} on brand {} and its products", activo, id);
+        if (marcaRepository.actualizarActivo(id, activo) == 0) {
+            throw new ResourceNotFoundException("Marca", "id", id);
+        }
+        int productos = productoRepository.actualizarActivoPorMarca(id, activo);
+        if (productos > 0) {
+            eventPublisher.publishEvent(new CatalogoEvent.CatalogoModificado());
+        }
+        log.info("Brand {} set to activo={} with {} products", id, activo, productos);
+        return new ActivacionDTO(id, activo, productos);
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
 }
\ No newline at end of file
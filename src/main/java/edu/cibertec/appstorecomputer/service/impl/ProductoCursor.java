@@ -0,0 +1,81 @@
+package edu.cibertec.appstorecomputer.service.impl;
+
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.exception.BusinessException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Position inside a keyset-paginated product listing: the value of the sort key and the id
+ * of the last row returned. Clients only ever see it as an opaque Base64 token.
+ */
+record ProductoCursor(Orden orden, String valor, long id) {
+
+    private static final String SEPARADOR = "|";
+
+    /**
+     * Sort keys supported by keyset pagination; the id is always the tie-breaker.
+     */
+    enum Orden {
+        ID, NOMBRE, PRECIO;
+
+        static Orden of(String orden) {
+            try {
+                return Orden.valueOf(orden.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException ex) {
+                throw new BusinessException("INVALID_SORT", "Orden no soportado: " + orden);
+            }
+        }
+    }
+
+    /**
+     * Cursor positioned before the first row of the listing
+     */
+    static ProductoCursor inicio(Orden orden) {
+        return switch (orden) {
+            case ID, NOMBRE -> new ProductoCursor(orden, "", 0L);
+            case PRECIO -> new ProductoCursor(orden, "-1", 0L);
+        };
+    }
+
+    /**
+     * Cursor positioned right after the given row
+     */
+    static ProductoCursor despuesDe(Orden orden, ProductoDTO producto) {
+        String valor = switch (orden) {
+            case ID -> "";
+            case NOMBRE -> producto.nombre();
+            case PRECIO -> producto.precio().toPlainString();
+        };
+        return new ProductoCursor(orden, valor, producto.id());
+    }
+
+    static ProductoCursor decode(String token, Orden orden) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = raw.split("\\|", 3);
+            ProductoCursor cursor = new ProductoCursor(Orden.valueOf(partes[0]), partes[2], Long.parseLong(partes[1]));
+            if (cursor.orden() != orden) {
+                throw new BusinessException("INVALID_CURSOR", "El cursor no corresponde al orden solicitado");
+            }
+            if (orden == Orden.PRECIO) {
+                cursor.precio();
+            }
+            return cursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            throw new BusinessException("INVALID_CURSOR", "Cursor inválido");
+        }
+    }
+
+    String encode() {
+        String raw = orden.name() + SEPARADOR + id + SEPARADOR + valor;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    BigDecimal precio() {
+        return new BigDecimal(valor);
+    }
+}
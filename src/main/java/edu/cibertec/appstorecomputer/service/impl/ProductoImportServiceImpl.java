@@ -0,0 +1,513 @@
+package edu.cibertec.appstorecomputer.service.impl;
+
+import edu.cibertec.appstorecomputer.config.ImportacionConfig;
+import edu.cibertec.appstorecomputer.config.MetricsConfig;
+import edu.cibertec.appstorecomputer.dto.ImportacionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
+import edu.cibertec.appstorecomputer.exception.BusinessException;
+import edu.cibertec.appstorecomputer.exception.ResourceNotFoundException;
+import edu.cibertec.appstorecomputer.mapper.ProductoMapper;
+import edu.cibertec.appstorecomputer.model.Categoria;
+import edu.cibertec.appstorecomputer.model.Marca;
+import edu.cibertec.appstorecomputer.model.Producto;
+import edu.cibertec.appstorecomputer.repository.CategoriaRepository;
+import edu.cibertec.appstorecomputer.repository.MarcaRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
+import edu.cibertec.appstorecomputer.service.ProductoImportService;
+import edu.cibertec.appstorecomputer.service.StockCalienteService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming CSV import of products.
+ * <p>
+ * The upload is spooled to a temporary file and parsed record by record in the import
+ * executor. Rows are validated against the {@link ProductoDTO} constraints and upserted by
+ * codigo in chunks, each in its own transaction, so memory stays bounded by the chunk size
+ * whatever the size of the file. A chunk that fails to commit marks its rows as failed and
+ * the import goes on with the next one.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Slf4j
+public class ProductoImportServiceImpl implements ProductoImportService {
+
+    private static final List<String> COLUMNAS_OBLIGATORIAS =
+            List.of("nombre", "precio", "stock", "codigo", "categoriaid", "marcaid");
+    private static final int MAX_IMPORTACIONES_TERMINADAS = 50;
+
+    private final ProductoRepository productoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final MarcaRepository marcaRepository;
+    private final ProductoMapper productoMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockCalienteService stockCalienteService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor importacionExecutor;
+    private final int chunkSize;
+    private final int maxErrores;
+
+    private final Map<String, Importacion> importaciones = new ConcurrentHashMap<>();
+
+    public ProductoImportServiceImpl(ProductoRepository productoRepository,
+                                     CategoriaRepository categoriaRepository,
+                                     MarcaRepository marcaRepository,
+                                     ProductoMapper productoMapper,
+                                     Validator validator,
+                                     ApplicationEventPublisher eventPublisher,
+                                     StockCalienteService stockCalienteService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier(ImportacionConfig.IMPORTACION_EXECUTOR) TaskExecutor importacionExecutor,
+                                     @Value("${catalogo.import.chunk-size:500}") int chunkSize,
+                                     @Value("${catalogo.import.max-errores:1000}") int maxErrores) {
+        this.productoRepository = productoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.marcaRepository = marcaRepository;
+        this.productoMapper = productoMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.stockCalienteService = stockCalienteService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importacionExecutor = importacionExecutor;
+        this.chunkSize = chunkSize;
+        this.maxErrores = maxErrores;
+    }
+
+    @Override
+    public ImportacionDTO importCsv(MultipartFile archivo) {
+        log.info("Importing products from file: {}", archivo.getOriginalFilename());
+        if (archivo.isEmpty()) {
+            throw new BusinessException("INVALID_CSV", "El archivo está vacío");
+        }
+
+        // The multipart file is deleted when the request ends, so keep a copy for the import
+        Path temporal;
+        try {
+            temporal = Files.createTempFile("importacion-productos-", ".csv");
+        } catch (IOException ex) {
+            throw new BusinessException("INVALID_CSV", "No se pudo leer el archivo: " + ex.getMessage(), ex);
+        }
+        Cabecera cabecera;
+        try {
+            archivo.transferTo(temporal);
+            cabecera = leerCabecera(temporal);
+        } catch (IOException ex) {
+            eliminar(temporal);
+            throw new BusinessException("INVALID_CSV", "No se pudo leer el archivo: " + ex.getMessage(), ex);
+        } catch (RuntimeException ex) {
+            eliminar(temporal);
+            throw ex;
+        }
+
+        Importacion importacion = new Importacion(UUID.randomUUID().toString(), archivo.getOriginalFilename());
+        limpiarTerminadas();
+        importaciones.put(importacion.id, importacion);
+        try {
+            importacionExecutor.execute(() -> procesar(importacion, temporal, cabecera));
+        } catch (TaskRejectedException ex) {
+            importaciones.remove(importacion.id);
+            eliminar(temporal);
+            throw new BusinessException("IMPORT_BUSY", "Hay demasiadas importaciones en curso, intente más tarde", ex);
+        }
+        return importacion.toDto();
+    }
+
+    @Override
+    public ImportacionDTO findById(String id) {
+        log.info("Fetching import with id: {}", id);
+        Importacion importacion = importaciones.get(id);
+        if (importacion == null) {
+            throw new ResourceNotFoundException("Importacion", "id", id);
+        }
+        return importacion.toDto();
+    }
+
+    private static Cabecera leerCabecera(Path archivo) throws IOException {
+        String linea;
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            linea = reader.readLine();
+        }
+        if (linea == null || linea.isBlank()) {
+            throw new BusinessException("INVALID_CSV", "El archivo no tiene cabecera");
+        }
+        char separador = CsvReader.detectarSeparador(linea);
+        try (CsvReader csv = new CsvReader(new StringReader(linea), separador)) {
+            List<String> cabecera = csv.next();
+            Map<String, Integer> columnas = new HashMap<>();
+            for (int i = 0; i < cabecera.size(); i++) {
+                columnas.put(normalizarColumna(cabecera.get(i)), i);
+            }
+            List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream()
+                    .filter(columna -> !columnas.containsKey(columna))
+                    .toList();
+            if (!faltantes.isEmpty()) {
+                throw new BusinessException("INVALID_CSV", "Faltan columnas obligatorias: " + faltantes);
+            }
+            return new Cabecera(columnas, separador);
+        }
+    }
+
+    private void procesar(Importacion importacion, Path archivo, Cabecera cabecera) {
+        importacion.iniciar();
+        Set<Long> categoriasValidas = new HashSet<>();
+        Set<Long> marcasValidas = new HashSet<>();
+        try (CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(
+                Files.newInputStream(archivo), StandardCharsets.UTF_8), 64 * 1024), cabecera.separador())) {
+            csv.next();
+            List<Fila> chunk = new ArrayList<>(chunkSize);
+            List<String> campos;
+            while ((campos = csv.next()) != null) {
+                Fila fila = parsear(csv.lineaRegistro(), campos, cabecera.columnas());
+                if (fila.error != null) {
+                    importacion.fallo(fila.linea, fila.codigo(), fila.error, maxErrores);
+                } else {
+                    chunk.add(fila);
+                }
+                if (chunk.size() == chunkSize) {
+                    guardarChunk(importacion, chunk, categoriasValidas, marcasValidas);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                guardarChunk(importacion, chunk, categoriasValidas, marcasValidas);
+            }
+            importacion.terminar(ImportacionDTO.COMPLETADO, null);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Import {} failed", importacion.id, ex);
+            importacion.terminar(ImportacionDTO.FALLIDO, ex.getMessage());
+        } finally {
+            eliminar(archivo);
+        }
+
+        ImportacionDTO resultado = importacion.toDto();
+        log.info("Import {} finished as {}: {} rows ({} created, {} updated, {} failed) at {} rows/s",
+                resultado.id(), resultado.estado(), resultado.filasProcesadas(), resultado.creados(),
+                resultado.actualizados(), resultado.fallidos(), Math.round(resultado.filasPorSegundo()));
+        if (resultado.creados() + resultado.actualizados() > 0) {
+            eventPublisher.publishEvent(new CatalogoEvent.CatalogoModificado());
+        }
+    }
+
+    private Fila parsear(long linea, List<String> campos, Map<String, Integer> columnas) {
+        String codigo = campo(campos, columnas, "codigo");
+        ProductoDTO dto;
+        try {
+            String activo = campo(campos, columnas, "activo");
+            dto = new ProductoDTO(
+                    campo(campos, columnas, "nombre"),
+                    campo(campos, columnas, "descripcion"),
+                    decimal(campo(campos, columnas, "precio")),
+                    entero(campo(campos, columnas, "stock")),
+                    codigo,
+                    campo(campos, columnas, "imagenurl"),
+                    activo == null ? null : booleano(activo),
+                    largo(campo(campos, columnas, "categoriaid")),
+                    largo(campo(campos, columnas, "marcaid")));
+        } catch (IllegalArgumentException ex) {
+            return new Fila(linea, null, codigo, ex.getMessage());
+        }
+
+        Set<ConstraintViolation<ProductoDTO>> violaciones = validator.validate(dto);
+        if (!violaciones.isEmpty()) {
+            String error = violaciones.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return new Fila(linea, dto, codigo, error);
+        }
+        return new Fila(linea, dto, codigo, null);
+    }
+
+    private void guardarChunk(Importacion importacion, List<Fila> chunk,
+                              Set<Long> categoriasValidas, Set<Long> marcasValidas) {
+        verificarReferencias(chunk, categoriasValidas, marcasValidas);
+
+        // Later rows with the same codigo win, as if the file were applied line by line
+        Map<String, Fila> porCodigo = new LinkedHashMap<>();
+        for (Fila fila : chunk) {
+            if (!categoriasValidas.contains(fila.producto.categoriaId())) {
+                importacion.fallo(fila.linea, fila.codigo(),
+                        String.format("Categoria not found with id: '%s'", fila.producto.categoriaId()), maxErrores);
+            } else if (!marcasValidas.contains(fila.producto.marcaId())) {
+                importacion.fallo(fila.linea, fila.codigo(),
+                        String.format("Marca not found with id: '%s'", fila.producto.marcaId()), maxErrores);
+            } else {
+                Fila anterior = porCodigo.put(fila.codigo(), fila);
+                if (anterior != null) {
+                    importacion.omitida();
+                }
+            }
+        }
+        if (porCodigo.isEmpty()) {
+            return;
+        }
+
+        try {
+            int[] creadosYActualizados = transactionTemplate.execute(status -> upsert(importacion, porCodigo));
+            importacion.guardadas(creadosYActualizados[0], creadosYActualizados[1]);
+        } catch (RuntimeException ex) {
+            log.warn("Import {} could not save a chunk of {} rows", importacion.id, porCodigo.size(), ex);
+            String error = "No se pudo guardar el bloque: "
+                    + NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            for (Fila fila : porCodigo.values()) {
+                importacion.fallo(fila.linea, fila.codigo(), error, maxErrores);
+            }
+        }
+    }
+
+    /**
+     * Rows that would change the stock of a hot product fail and are removed from the chunk,
+     * so they are not reported twice if the chunk then fails to commit
+     */
+    private int[] upsert(Importacion importacion, Map<String, Fila> porCodigo) {
+        Map<String, Producto> existentes = productoRepository.findByCodigoIn(porCodigo.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getCodigo, producto -> producto));
+        List<Producto> nuevos = new ArrayList<>();
+        int actualizados = 0;
+        for (Iterator<Fila> filas = porCodigo.values().iterator(); filas.hasNext(); ) {
+            Fila fila = filas.next();
+            Producto producto = existentes.get(fila.codigo());
+            if (producto == null) {
+                producto = productoMapper.toEntity(fila.producto);
+                nuevos.add(producto);
+            } else if (stockCalienteService.isActivo(producto.getId())
+                    && !fila.producto.stock().equals(producto.getStock())) {
+                // Same rule as ProductoService.update: only the stock endpoints change hot stock
+                importacion.fallo(fila.linea, fila.codigo(), "El stock del producto " + producto.getId()
+                        + " está en modo caliente; use los endpoints de stock", maxErrores);
+                filas.remove();
+                continue;
+            } else {
+                productoMapper.updateEntityFromDto(fila.producto, producto);
+                actualizados++;
+            }
+            // Both ids were checked in verificarReferencias; references avoid loading them again
+            producto.setCategoria(categoriaRepository.getReferenceById(fila.producto.categoriaId()));
+            producto.setMarca(marcaRepository.getReferenceById(fila.producto.marcaId()));
+        }
+        // Updates are flushed by dirty checking at commit, inserts go out in JDBC batches
+        productoRepository.saveAll(nuevos);
+        return new int[]{nuevos.size(), actualizados};
+    }
+
+    /**
+     * Look up the categorias and marcas not seen in previous chunks
+     */
+    private void verificarReferencias(List<Fila> chunk, Set<Long> categoriasValidas, Set<Long> marcasValidas) {
+        Set<Long> categoriaIds = new HashSet<>();
+        Set<Long> marcaIds = new HashSet<>();
+        for (Fila fila : chunk) {
+            if (!categoriasValidas.contains(fila.producto.categoriaId())) {
+                categoriaIds.add(fila.producto.categoriaId());
+            }
+            if (!marcasValidas.contains(fila.producto.marcaId())) {
+                marcaIds.add(fila.producto.marcaId());
+            }
+        }
+        if (!categoriaIds.isEmpty()) {
+            categoriaRepository.findAllById(categoriaIds).stream()
+                    .map(Categoria::getId)
+                    .forEach(categoriasValidas::add);
+        }
+        if (!marcaIds.isEmpty()) {
+            marcaRepository.findAllById(marcaIds).stream()
+                    .map(Marca::getId)
+                    .forEach(marcasValidas::add);
+        }
+    }
+
+    private void limpiarTerminadas() {
+        List<Importacion> terminadas = importaciones.values().stream()
+                .filter(importacion -> importacion.fechaFin != null)
+                .sorted((a, b) -> a.fechaFin.compareTo(b.fechaFin))
+                .toList();
+        for (int i = 0; i < terminadas.size() - MAX_IMPORTACIONES_TERMINADAS; i++) {
+            importaciones.remove(terminadas.get(i).id);
+        }
+    }
+
+    private static void eliminar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException ex) {
+            log.warn("Could not delete temporary import file {}", archivo, ex);
+        }
+    }
+
+    private static String normalizarColumna(String nombre) {
+        return nombre.trim().replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String campo(List<String> campos, Map<String, Integer> columnas, String columna) {
+        Integer indice = columnas.get(columna);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static BigDecimal decimal(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(valor);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("precio: no es un número válido: " + valor);
+        }
+    }
+
+    private static Integer entero(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("stock: no es un número entero válido: " + valor);
+        }
+    }
+
+    private static Long largo(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("identificador no válido: " + valor);
+        }
+    }
+
+    private static Boolean booleano(String valor) {
+        return switch (valor.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "si", "sí", "s" -> true;
+            case "false", "0", "no", "n" -> false;
+            default -> throw new IllegalArgumentException("activo: valor no válido: " + valor);
+        };
+    }
+
+    /**
+     * Column positions by normalized name, and the separator used in the file
+     */
+    private record Cabecera(Map<String, Integer> columnas, char separador) {
+    }
+
+    /**
+     * Parsed data row; {@code error} is set when the row cannot be imported
+     */
+    private record Fila(long linea, ProductoDTO producto, String codigo, String error) {
+    }
+
+    /**
+     * Mutable progress of an import, updated by the import thread and read by status requests
+     */
+    private static final class Importacion {
+
+        private final String id;
+        private final String archivo;
+        private final AtomicLong procesadas = new AtomicLong();
+        private final AtomicLong creados = new AtomicLong();
+        private final AtomicLong actualizados = new AtomicLong();
+        private final AtomicLong fallidos = new AtomicLong();
+        private final List<ImportacionDTO.ErrorFila> errores = new ArrayList<>();
+        private volatile String estado = ImportacionDTO.EN_COLA;
+        private volatile String mensaje;
+        private volatile LocalDateTime fechaInicio;
+        private volatile LocalDateTime fechaFin;
+        private volatile long inicioNanos;
+        private volatile long finNanos;
+
+        private Importacion(String id, String archivo) {
+            this.id = id;
+            this.archivo = archivo;
+        }
+
+        private void iniciar() {
+            fechaInicio = LocalDateTime.now();
+            inicioNanos = System.nanoTime();
+            estado = ImportacionDTO.PROCESANDO;
+        }
+
+        private void terminar(String estadoFinal, String mensajeFinal) {
+            finNanos = System.nanoTime();
+            mensaje = mensajeFinal;
+            fechaFin = LocalDateTime.now();
+            estado = estadoFinal;
+        }
+
+        private void guardadas(int nuevos, int modificados) {
+            creados.addAndGet(nuevos);
+            actualizados.addAndGet(modificados);
+            procesadas.addAndGet(nuevos + modificados);
+        }
+
+        /**
+         * Row replaced by a later row with the same codigo in the same chunk
+         */
+        private void omitida() {
+            procesadas.incrementAndGet();
+        }
+
+        private void fallo(long linea, String codigo, String error, int maxErrores) {
+            fallidos.incrementAndGet();
+            procesadas.incrementAndGet();
+            synchronized (errores) {
+                if (errores.size() < maxErrores) {
+                    errores.add(new ImportacionDTO.ErrorFila(linea, codigo, error));
+                }
+            }
+        }
+
+        private ImportacionDTO toDto() {
+            long procesadasAhora = procesadas.get();
+            double segundos = inicioNanos == 0 ? 0
+                    : ((finNanos != 0 ? finNanos : System.nanoTime()) - inicioNanos) / 1_000_000_000.0;
+            List<ImportacionDTO.ErrorFila> copia;
+            synchronized (errores) {
+                copia = List.copyOf(errores);
+            }
+            return new ImportacionDTO(id, archivo, estado, procesadasAhora, creados.get(), actualizados.get(),
+                    fallidos.get(), segundos > 0 ? procesadasAhora / segundos : 0,
+                    fechaInicio, fechaFin, mensaje, copia);
+        }
+    }
+}
@@ -1,8 +1,31 @@
 package edu.cibertec.appstorecomputer.service.impl;
 
+import edu.cibertec.appstorecomputer.catalog.CatalogoReadModel;
+import edu.cibertec.appstorecomputer.catalog.CatalogoSnapshot;
+import edu.cibertec.appstorecomputer.catalog.FacetasAcumulador;
+import edu.cibertec.appstorecomputer.catalog.FiltroFacetas;
+import edu.cibertec.appstorecomputer.catalog.ProductoSearchIndex;
+import edu.cibertec.appstorecomputer.config.MetricsConfig;
+import edu.cibertec.appstorecomputer.dto.CursorPageDTO;
+import edu.cibertec.appstorecomputer.dto.ListaVersionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoBatchResultadoDTO;
 import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFacetaGrupoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFacetasDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoFiltroDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoPatchDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionadoDTO;
+import edu.cibertec.appstorecomputer.dto.StockDTO;
+import edu.cibertec.appstorecomputer.dto.StockLineaDTO;
+import edu.cibertec.appstorecomputer.dto.StockVersionadoDTO;
+import edu.cibertec.appstorecomputer.dto.VersionDTO;
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
+import edu.cibertec.appstorecomputer.exception.BusinessException;
 import edu.cibertec.appstorecomputer.exception.ResourceAlreadyExistsException;
 import edu.cibertec.appstorecomputer.exception.ResourceNotFoundException;
+import edu.cibertec.appstorecomputer.exception.VersionConflictException;
+import edu.cibertec.appstorecomputer.exception.StockInsuficienteException;
 import edu.cibertec.appstorecomputer.mapper.ProductoMapper;
 import edu.cibertec.appstorecomputer.model.Categoria;
 import edu.cibertec.appstorecomputer.model.Marca;
@@ -11,101 +34,238 @@ import edu.cibertec.appstorecomputer.repository.CategoriaRepository;
 import edu.cibertec.appstorecomputer.repository.MarcaRepository;
 import edu.cibertec.appstorecomputer.repository.ProductoRepository;
 import edu.cibertec.appstorecomputer.service.ProductoService;
+import edu.cibertec.appstorecomputer.service.StockCalienteService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class ProductoServiceImpl implements ProductoService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+    private static final int EVENT_PATCH_THRESHOLD = 50;
+
     private final ProductoRepository productoRepository;
     private final CategoriaRepository categoriaRepository;
     private final MarcaRepository marcaRepository;
     private final ProductoMapper productoMapper;
+    private final CatalogoReadModel catalogoReadModel;
+    private final ProductoSearchIndex productoSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final StockCalienteService stockCalienteService;
+
+    @Value("${catalogo.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${catalogo.facetas.rangos-precio:100,500,1000,2000,5000}")
+    private List<BigDecimal> rangosPrecio;
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoDTO> findAll() {
+    public Optional<List<ProductoDTO>> findAll(Predicate<ListaVersionDTO> noModificado) {
         log.info("Fetching all products");
-        List<Producto> productos = productoRepository.findAll();
-        return productoMapper.toDtoList(productos);
+        if (noModificado.test(productoRepository.findListaVersion())) {
+            return Optional.empty();
+        }
+        return Optional.of(productoRepository.findAllAsDto());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<ProductoDTO> consumer) {
+        log.info("Exporting all products");
+        try (Stream<ProductoDTO> productos = productoRepository.streamAllAsDto()) {
+            productos.forEach(consumer);
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ProductoDTO> findAllPaginated(Pageable pageable) {
         log.info("Fetching all products with pagination");
-        Page<Producto> productos = productoRepository.findAll(pageable);
-        return productos.map(productoMapper::toDto);
+        return productoRepository.findAllAsDto(pageable);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoDTO> findAllActive() {
+    public Optional<List<ProductoDTO>> findAllActive(Predicate<ListaVersionDTO> noModificado) {
         log.info("Fetching all active products");
-        List<Producto> productos = productoRepository.findByActivoTrue();
-        return productoMapper.toDtoList(productos);
+        if (noModificado.test(productoRepository.findActiveListaVersion())) {
+            return Optional.empty();
+        }
+        return Optional.of(productoRepository.findActiveAsDto());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ProductoDTO> findAllActivePaginated(Pageable pageable) {
         log.info("Fetching all active products with pagination");
-        Page<Producto> productos = productoRepository.findByActivoTrue(pageable);
-        return productos.map(productoMapper::toDto);
+        return productoRepository.findActiveAsDto(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductoDTO> findAllByCursor(String cursor, int size, String orden, boolean incluirTotal) {
+        log.info("Fetching products by cursor ordered by {}", orden);
+        return findByCursor(false, cursor, size, orden, incluirTotal);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductoDTO> findAllActiveByCursor(String cursor, int size, String orden, boolean incluirTotal) {
+        log.info("Fetching active products by cursor ordered by {}", orden);
+        return findByCursor(true, cursor, size, orden, incluirTotal);
+    }
+
+    private CursorPageDTO<ProductoDTO> findByCursor(boolean soloActivos, String cursor, int size,
+                                                    String orden, boolean incluirTotal) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException("INVALID_PAGE_SIZE",
+                    "El tamaño de página debe estar entre 1 y " + MAX_CURSOR_PAGE_SIZE);
+        }
+        ProductoCursor.Orden sortKey = ProductoCursor.Orden.of(orden);
+        ProductoCursor position = cursor == null || cursor.isBlank()
+                ? ProductoCursor.inicio(sortKey)
+                : ProductoCursor.decode(cursor, sortKey);
+
+        // Ask for one extra row to know whether there is a next slice without counting
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<ProductoDTO> productos = switch (sortKey) {
+            case ID -> soloActivos
+                    ? productoRepository.findActiveSliceAfterId(position.id(), limit)
+                    : productoRepository.findSliceAfterId(position.id(), limit);
+            case NOMBRE -> soloActivos
+                    ? productoRepository.findActiveSliceAfterNombre(position.valor(), position.id(), limit)
+                    : productoRepository.findSliceAfterNombre(position.valor(), position.id(), limit);
+            case PRECIO -> soloActivos
+                    ? productoRepository.findActiveSliceAfterPrecio(position.precio(), position.id(), limit)
+                    : productoRepository.findSliceAfterPrecio(position.precio(), position.id(), limit);
+        };
+
+        boolean hasNext = productos.size() > size;
+        List<ProductoDTO> content = hasNext ? productos.subList(0, size) : productos;
+        String nextCursor = hasNext
+                ? ProductoCursor.despuesDe(sortKey, content.get(content.size() - 1)).encode()
+                : null;
+        Long total = null;
+        if (incluirTotal) {
+            total = soloActivos ? productoRepository.countByActivoTrue() : productoRepository.count();
+        }
+        return new CursorPageDTO<>(List.copyOf(content), content.size(), nextCursor, hasNext, total);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ProductoDTO findById(Long id) {
         log.info("Fetching product with id: {}", id);
-        Producto producto = productoRepository.findById(id)
+        return productoRepository.findDtoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ProductoDTO> findById(Long id, Predicate<ProductoVersionDTO> noModificado) {
+        log.info("Fetching product with id: {} unless not modified", id);
+        ProductoVersionDTO version = productoRepository.findVersionConRelacionesById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
-        return productoMapper.toDto(producto);
+        if (noModificado.test(version)) {
+            return Optional.empty();
+        }
+        return Optional.of(productoRepository.findDtoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public ProductoDTO findByCodigo(String codigo) {
         log.info("Fetching product with codigo: {}", codigo);
-        Producto producto = productoRepository.findByCodigo(codigo)
+        return productoRepository.findDtoByCodigo(codigo)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "codigo", codigo));
-        return productoMapper.toDto(producto);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ProductoDTO> findByCategoria(Long categoriaId) {
         log.info("Fetching products by categoria id: {}", categoriaId);
-        Categoria categoria = categoriaRepository.findById(categoriaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Categoria", "id", categoriaId));
-        List<Producto> productos = productoRepository.findByCategoria(categoria);
-        return productoMapper.toDtoList(productos);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            if (!snapshot.containsCategoria(categoriaId)) {
+                throw new ResourceNotFoundException("Categoria", "id", categoriaId);
+            }
+            return snapshot.findByCategoria(categoriaId);
+        }
+        if (!categoriaRepository.existsById(categoriaId)) {
+            throw new ResourceNotFoundException("Categoria", "id", categoriaId);
+        }
+        return productoRepository.findDtoByCategoriaId(categoriaId);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ProductoDTO> findByMarca(Long marcaId) {
         log.info("Fetching products by marca id: {}", marcaId);
-        Marca marca = marcaRepository.findById(marcaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Marca", "id", marcaId));
-        List<Producto> productos = productoRepository.findByMarca(marca);
-        return productoMapper.toDtoList(productos);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            if (!snapshot.containsMarca(marcaId)) {
+                throw new ResourceNotFoundException("Marca", "id", marcaId);
+            }
+            return snapshot.findByMarca(marcaId);
+        }
+        if (!marcaRepository.existsById(marcaId)) {
+            throw new ResourceNotFoundException("Marca", "id", marcaId);
+        }
+        return productoRepository.findDtoByMarcaId(marcaId);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ProductoDTO> findByCategoriaAndMarca(Long categoriaId, Long marcaId) {
         log.info("Fetching products by categoria id: {} and marca id: {}", categoriaId, marcaId);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            if (!snapshot.containsCategoria(categoriaId)) {
+                throw new ResourceNotFoundException("Categoria", "id", categoriaId);
+            }
+            if (!snapshot.containsMarca(marcaId)) {
+                throw new ResourceNotFoundException("Marca", "id", marcaId);
+            }
+            return snapshot.findByCategoriaAndMarca(categoriaId, marcaId);
+        }
+
         // Verify that both categoria and marca exist
         if (!categoriaRepository.existsById(categoriaId)) {
             throw new ResourceNotFoundException("Categoria", "id", categoriaId);
@@ -114,40 +274,187 @@ public class ProductoServiceImpl implements ProductoService {
             throw new ResourceNotFoundException("Marca", "id", marcaId);
         }
         
-        List<Producto> productos = productoRepository.findByCategoriaAndMarca(categoriaId, marcaId);
-        return productoMapper.toDtoList(productos);
+        return productoRepository.findDtoByCategoriaAndMarca(categoriaId, marcaId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductoDTO> findByNombreContaining(String nombre) {
         log.info("Fetching products containing nombre: {}", nombre);
-        List<Producto> productos = productoRepository.findByNombreContainingIgnoreCase(nombre);
-        return productoMapper.toDtoList(productos);
+        return productoRepository.findDtoByNombreContaining(nombre);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Page<ProductoDTO> search(String query, Pageable pageable) {
+        log.info("Searching products for: {}", query);
+        if (!productoSearchIndex.isLoaded()) {
+            return productoRepository.findActiveDtoByTexto(query.trim(), pageable);
+        }
+
+        ProductoSearchIndex.Resultado resultado =
+                productoSearchIndex.search(query, pageable.getOffset(), pageable.getPageSize());
+        if (resultado.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, resultado.total());
+        }
+        // From the read model; hits it does not hold yet (or at all) are read in one query
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        Map<Long, ProductoDTO> porId = new HashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : resultado.ids()) {
+            Optional<ProductoDTO> producto = snapshot != null ? snapshot.findById(id) : Optional.empty();
+            if (producto.isPresent()) {
+                porId.put(id, producto.get());
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            productoRepository.findDtoByIdIn(faltantes).forEach(producto -> porId.put(producto.id(), producto));
+        }
+        List<ProductoDTO> productos = resultado.ids().stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(productos, pageable, resultado.total());
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ProductoDTO> findByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax) {
         log.info("Fetching products with price between {} and {}", precioMin, precioMax);
-        List<Producto> productos = productoRepository.findByPrecioBetween(precioMin, precioMax);
-        return productoMapper.toDtoList(productos);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            return snapshot.findByPrecioBetween(precioMin, precioMax, 0, Integer.MAX_VALUE);
+        }
+        return productoRepository.findDtoByPrecioBetween(precioMin, precioMax);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Page<ProductoDTO> findByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax, Pageable pageable) {
+        log.info("Fetching a page of products with price between {} and {}", precioMin, precioMax);
+        pageable = enOrdenDeIndice(pageable, "precio");
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            List<ProductoDTO> productos = snapshot.findByPrecioBetween(
+                    precioMin, precioMax, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(productos, pageable, snapshot.countByPrecioBetween(precioMin, precioMax));
+        }
+        return productoRepository.findDtoByPrecioBetween(precioMin, precioMax, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public long countByPrecioBetween(BigDecimal precioMin, BigDecimal precioMax) {
+        log.info("Counting products with price between {} and {}", precioMin, precioMax);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            return snapshot.countByPrecioBetween(precioMin, precioMax);
+        }
+        return productoRepository.countByPrecioBetween(precioMin, precioMax);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ProductoDTO> findByStockLessThan(Integer stockMinimo) {
         log.info("Fetching products with stock less than {}", stockMinimo);
-        List<Producto> productos = productoRepository.findByStockLessThan(stockMinimo);
-        return productoMapper.toDtoList(productos);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            return snapshot.findByStockLessThan(stockMinimo, 0, Integer.MAX_VALUE);
+        }
+        return productoRepository.findDtoByStockLessThan(stockMinimo);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Page<ProductoDTO> findByStockLessThan(Integer stockMinimo, Pageable pageable) {
+        log.info("Fetching a page of products with stock less than {}", stockMinimo);
+        pageable = enOrdenDeIndice(pageable, "stock");
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            List<ProductoDTO> productos = snapshot.findByStockLessThan(
+                    stockMinimo, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(productos, pageable, snapshot.countByStockLessThan(stockMinimo));
+        }
+        return productoRepository.findDtoByStockLessThan(stockMinimo, pageable);
+    }
+
+    /**
+     * The page without its sort, once the sort is checked to be the one both paths already
+     * follow: the key, then id, ascending. Any other order is rejected rather than ignored.
+     */
+    private static Pageable enOrdenDeIndice(Pageable pageable, String clave) {
+        List<String> claves = List.of(clave, "id");
+        int i = 0;
+        for (Sort.Order orden : pageable.getSort()) {
+            if (i >= claves.size() || !orden.getProperty().equals(claves.get(i)) || orden.isDescending()) {
+                throw new BusinessException("INVALID_SORT",
+                        "Orden no soportado: " + orden.getProperty() + "; solo " + clave + ",id ascendente");
+            }
+            i++;
+        }
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public long countByStockLessThan(Integer stockMinimo) {
+        log.info("Counting products with stock less than {}", stockMinimo);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            return snapshot.countByStockLessThan(stockMinimo);
+        }
+        return productoRepository.countByStockLessThan(stockMinimo);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ProductoDTO> findAvailableProducts() {
         log.info("Fetching available products");
-        List<Producto> productos = productoRepository.findAvailableProducts();
-        return productoMapper.toDtoList(productos);
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            return snapshot.findAvailable();
+        }
+        return productoRepository.findAvailableDtos();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductoDTO> findByFiltro(ProductoFiltroDTO filtro, Pageable pageable) {
+        log.info("Fetching a page of products filtered by {}", filtro);
+        // Only keys with an index: anything else would sort the whole match in the database
+        for (Sort.Order orden : pageable.getSort()) {
+            if (!ProductoRepository.ORDENES_FILTRO.contains(orden.getProperty())) {
+                throw new BusinessException("INVALID_SORT", "Orden no soportado: " + orden.getProperty());
+            }
+        }
+        return productoRepository.filtrar(filtro, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductoFacetasDTO findFacetas(Long categoriaId, Long marcaId, BigDecimal precioMin, BigDecimal precioMax,
+                                          Boolean enStock, boolean soloActivos) {
+        FiltroFacetas filtro = new FiltroFacetas(categoriaId, marcaId, precioMin, precioMax, enStock, soloActivos);
+        log.info("Fetching product facets for {}", filtro);
+        List<BigDecimal> limites = rangosPrecio.stream().distinct().sorted().toList();
+        CatalogoSnapshot snapshot = catalogoReadModel.current().orElse(null);
+        if (snapshot != null) {
+            return snapshot.facetas(filtro, limites);
+        }
+
+        FacetasAcumulador acumulador = new FacetasAcumulador(filtro, limites);
+        for (ProductoFacetaGrupoDTO grupo : productoRepository.findGruposFacetas()) {
+            acumulador.agregar(grupo.categoriaId(), grupo.marcaId(), grupo.precio(),
+                    Boolean.TRUE.equals(grupo.conStock()), Boolean.TRUE.equals(grupo.activo()), grupo.cantidad());
+        }
+        // Names from the second-level query cache
+        Map<Long, String> categorias = categoriaRepository.findAll().stream()
+                .collect(Collectors.toMap(Categoria::getId, Categoria::getNombre));
+        Map<Long, String> marcas = marcaRepository.findAll().stream()
+                .collect(Collectors.toMap(Marca::getId, Marca::getNombre));
+        return acumulador.resultado(categorias::get, marcas::get);
     }
 
     @Override
@@ -178,15 +485,134 @@ public class ProductoServiceImpl implements ProductoService {
         Producto savedProducto = productoRepository.save(producto);
         log.info("Product created with id: {}", savedProducto.getId());
         
-        return productoMapper.toDto(savedProducto);
+        ProductoDTO result = productoMapper.toDto(savedProducto);
+        eventPublisher.publishEvent(new CatalogoEvent.ProductoGuardado(result, savedProducto.getVersion()));
+        return result;
+    }
+
+    @Override
+    public ProductoBatchResultadoDTO createBatch(List<ProductoDTO> productosDTO) {
+        log.info("Creating {} products in batch", productosDTO.size());
+        if (productosDTO.isEmpty() || productosDTO.size() > maxBatchSize) {
+            throw new BusinessException("INVALID_BATCH_SIZE",
+                    "El lote debe tener entre 1 y " + maxBatchSize + " productos");
+        }
+
+        int total = productosDTO.size();
+        String[] errores = new String[total];
+
+        // Bean validation and codes repeated inside the batch
+        Set<String> codigos = new HashSet<>();
+        Set<Long> categoriaIds = new HashSet<>();
+        Set<Long> marcaIds = new HashSet<>();
+        for (int i = 0; i < total; i++) {
+            ProductoDTO dto = productosDTO.get(i);
+            if (dto == null) {
+                errores[i] = "El producto es obligatorio";
+                continue;
+            }
+            Set<ConstraintViolation<ProductoDTO>> violaciones = validator.validate(dto);
+            if (!violaciones.isEmpty()) {
+                errores[i] = violaciones.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+            } else if (!codigos.add(dto.codigo())) {
+                errores[i] = "Código repetido en el lote: " + dto.codigo();
+            } else {
+                categoriaIds.add(dto.categoriaId());
+                marcaIds.add(dto.marcaId());
+            }
+        }
+
+        // One query each for existing codes, categorias and marcas
+        Set<String> existentes = codigos.isEmpty()
+                ? Set.of()
+                : new HashSet<>(productoRepository.findExistingCodigos(codigos));
+        Map<Long, Categoria> categorias = categoriaRepository.findAllById(categoriaIds).stream()
+                .collect(Collectors.toMap(Categoria::getId, Function.identity()));
+        Map<Long, Marca> marcas = marcaRepository.findAllById(marcaIds).stream()
+                .collect(Collectors.toMap(Marca::getId, Function.identity()));
+
+        Producto[] nuevos = new Producto[total];
+        List<Producto> porGuardar = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            if (errores[i] != null) {
+                continue;
+            }
+            ProductoDTO dto = productosDTO.get(i);
+            Categoria categoria = categorias.get(dto.categoriaId());
+            Marca marca = marcas.get(dto.marcaId());
+            if (existentes.contains(dto.codigo())) {
+                errores[i] = String.format("Producto already exists with codigo: '%s'", dto.codigo());
+            } else if (categoria == null) {
+                errores[i] = String.format("Categoria not found with id: '%s'", dto.categoriaId());
+            } else if (marca == null) {
+                errores[i] = String.format("Marca not found with id: '%s'", dto.marcaId());
+            } else {
+                Producto producto = productoMapper.toEntity(dto);
+                producto.setCategoria(categoria);
+                producto.setMarca(marca);
+                if (producto.getActivo() == null) {
+                    producto.setActivo(true);
+                }
+                nuevos[i] = producto;
+                porGuardar.add(producto);
+            }
+        }
+
+        // Ids come from the pooled table generator, so the inserts are sent in JDBC batches
+        productoRepository.saveAll(porGuardar);
+        productoRepository.flush();
+
+        List<ProductoBatchResultadoDTO.Item> resultados = new ArrayList<>(total);
+        List<CatalogoEvent.ProductoGuardado> creados = new ArrayList<>(porGuardar.size());
+        for (int i = 0; i < total; i++) {
+            ProductoDTO dto = productosDTO.get(i);
+            String codigo = dto != null ? dto.codigo() : null;
+            if (nuevos[i] != null) {
+                ProductoDTO creado = productoMapper.toDto(nuevos[i]);
+                creados.add(new CatalogoEvent.ProductoGuardado(creado, nuevos[i].getVersion()));
+                resultados.add(new ProductoBatchResultadoDTO.Item(
+                        i, codigo, ProductoBatchResultadoDTO.CREADO, creado, null));
+            } else {
+                resultados.add(new ProductoBatchResultadoDTO.Item(
+                        i, codigo, ProductoBatchResultadoDTO.ERROR, null, errores[i]));
+            }
+        }
+        publishGuardados(creados);
+
+        log.info("Batch created {} of {} products", creados.size(), total);
+        return new ProductoBatchResultadoDTO(total, creados.size(), total - creados.size(), resultados);
+    }
+
+    /**
+     * Patch in-memory views one product at a time for small changes, reload them for big ones
+     */
+    private void publishGuardados(List<CatalogoEvent.ProductoGuardado> guardados) {
+        if (guardados.size() > EVENT_PATCH_THRESHOLD) {
+            eventPublisher.publishEvent(new CatalogoEvent.CatalogoModificado());
+        } else {
+            guardados.forEach(eventPublisher::publishEvent);
+        }
     }
 
     @Override
-    public ProductoDTO update(Long id, ProductoDTO productoDTO) {
+    public ProductoDTO update(Long id, ProductoDTO productoDTO, Long version) {
         log.info("Updating product with id: {}", id);
         
-        Producto existingProducto = productoRepository.findById(id)
+        Producto existingProducto = productoRepository.findWithCategoriaAndMarcaById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
+        if (version != null && !version.equals(existingProducto.getVersion())) {
+            throw new VersionConflictException("Producto", id, version, existingProducto.getVersion());
+        }
+        
+        // The stock of a hot product lives in memory, only the stock endpoints may change it
+        if (stockCalienteService.isActivo(id) && productoDTO.stock() != null
+                && !productoDTO.stock().equals(existingProducto.getStock())) {
+            throw new BusinessException("HOT_STOCK",
+                    "El stock del producto " + id + " está en modo caliente; use los endpoints de stock");
+        }
         
         // Check if code is being changed and if the new code already exists
         if (!existingProducto.getCodigo().equals(productoDTO.codigo()) && 
@@ -195,41 +621,60 @@ public class ProductoServiceImpl implements ProductoService {
         }
         
         // Verify that categoria exists if it's being changed
+        Categoria categoria = existingProducto.getCategoria();
         if (productoDTO.categoriaId() != null && 
-                !existingProducto.getCategoria().getId().equals(productoDTO.categoriaId())) {
-            categoriaRepository.findById(productoDTO.categoriaId())
+                !categoria.getId().equals(productoDTO.categoriaId())) {
+            categoria = categoriaRepository.findById(productoDTO.categoriaId())
                     .orElseThrow(() -> new ResourceNotFoundException("Categoria", "id", productoDTO.categoriaId()));
         }
         
         // Verify that marca exists if it's being changed
+        Marca marca = existingProducto.getMarca();
         if (productoDTO.marcaId() != null && 
-                !existingProducto.getMarca().getId().equals(productoDTO.marcaId())) {
-            marcaRepository.findById(productoDTO.marcaId())
+                !marca.getId().equals(productoDTO.marcaId())) {
+            marca = marcaRepository.findById(productoDTO.marcaId())
                     .orElseThrow(() -> new ResourceNotFoundException("Marca", "id", productoDTO.marcaId()));
         }
         
         productoMapper.updateEntityFromDto(productoDTO, existingProducto);
+        existingProducto.setCategoria(categoria);
+        existingProducto.setMarca(marca);
         
-        // Update categoria if it's being changed
-        if (productoDTO.categoriaId() != null && 
-                !existingProducto.getCategoria().getId().equals(productoDTO.categoriaId())) {
-            Categoria categoria = new Categoria();
-            categoria.setId(productoDTO.categoriaId());
-            existingProducto.setCategoria(categoria);
-        }
-        
-        // Update marca if it's being changed
-        if (productoDTO.marcaId() != null && 
-                !existingProducto.getMarca().getId().equals(productoDTO.marcaId())) {
-            Marca marca = new Marca();
-            marca.setId(productoDTO.marcaId());
-            existingProducto.setMarca(marca);
-        }
-        
-        Producto updatedProducto = productoRepository.save(existingProducto);
+        // Flushed here so the event carries the version this update gets
+        Producto updatedProducto = productoRepository.saveAndFlush(existingProducto);
         log.info("Product updated: {}", updatedProducto.getId());
         
-        return productoMapper.toDto(updatedProducto);
+        ProductoDTO result = productoMapper.toDto(updatedProducto);
+        eventPublisher.publishEvent(new CatalogoEvent.ProductoGuardado(result, updatedProducto.getVersion()));
+        return result;
+    }
+
+    @Override
+    public ProductoDTO patch(Long id, ProductoPatchDTO cambios, Long version) {
+        log.info("Patching product with id: {}", id);
+        if (cambios.isEmpty()) {
+            throw new BusinessException("EMPTY_PATCH", "No se indicó ningún campo para actualizar");
+        }
+
+        // No existence or uniqueness checks up front: the constraints of the table decide
+        int actualizados;
+        try {
+            actualizados = productoRepository.patch(id, cambios, version);
+        } catch (DataIntegrityViolationException ex) {
+            throw violacion(ex, id, cambios);
+        }
+        if (actualizados == 0) {
+            // Only on failure: a missing product or a stale version
+            VersionDTO actual = productoRepository.findVersionById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
+            throw new VersionConflictException("Producto", id, version, actual.version());
+        }
+
+        ProductoVersionadoDTO result = productoRepository.findVersionadoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
+        eventPublisher.publishEvent(new CatalogoEvent.ProductoGuardado(result.producto(), result.version()));
+        log.info("Product patched: {}", id);
+        return result.producto();
     }
 
     @Override
@@ -239,10 +684,130 @@ public class ProductoServiceImpl implements ProductoService {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
         
+        if (stockCalienteService.isActivo(id)) {
+            throw new BusinessException("HOT_STOCK",
+                    "Desactive el modo de stock caliente del producto " + id + " antes de eliminarlo");
+        }
+        
         productoRepository.delete(producto);
+        eventPublisher.publishEvent(new CatalogoEvent.ProductoEliminado(id));
         log.info("Product deleted: {}", id);
     }
 
+    @Override
+    public StockDTO descontarStock(Long id, int cantidad) {
+        log.info("Decrementing stock of product {} by {}", id, cantidad);
+        validarCantidad(cantidad);
+        StockVersionadoDTO result = descontar(id, cantidad);
+        publishStock(result);
+        return result.toStockDTO();
+    }
+
+    @Override
+    public StockDTO reponerStock(Long id, int cantidad) {
+        log.info("Restocking product {} with {} units", id, cantidad);
+        validarCantidad(cantidad);
+        StockVersionadoDTO result = reponer(id, cantidad);
+        publishStock(result);
+        return result.toStockDTO();
+    }
+
+    @Override
+    public List<StockDTO> reservarStock(List<StockLineaDTO> lineas) {
+        log.info("Reserving stock for a cart of {} lines", lineas.size());
+        List<StockVersionadoDTO> result = new ArrayList<>();
+        // Any line without stock throws and rolls back the lines already decremented
+        agruparLineas(lineas).forEach((id, cantidad) -> result.add(descontar(id, cantidad)));
+        result.forEach(this::publishStock);
+        return result.stream().map(StockVersionadoDTO::toStockDTO).toList();
+    }
+
+    @Override
+    public List<StockDTO> liberarStock(List<StockLineaDTO> lineas) {
+        log.info("Releasing stock for a cart of {} lines", lineas.size());
+        List<StockVersionadoDTO> result = new ArrayList<>();
+        agruparLineas(lineas).forEach((id, cantidad) -> result.add(reponer(id, cantidad)));
+        result.forEach(this::publishStock);
+        return result.stream().map(StockVersionadoDTO::toStockDTO).toList();
+    }
+
+    /**
+     * Conditional decrement; the row stays locked until commit, so the level and version read
+     * back are ours. Movements of a hot product have no row version
+     */
+    private StockVersionadoDTO descontar(Long id, int cantidad) {
+        Optional<StockDTO> caliente = stockCalienteService.descontar(id, cantidad);
+        if (caliente.isPresent()) {
+            return new StockVersionadoDTO(id, caliente.get().stock(), null);
+        }
+        if (productoRepository.descontarStock(id, cantidad) == 0) {
+            Integer disponible = productoRepository.findStockById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
+            throw new StockInsuficienteException(id, cantidad, disponible);
+        }
+        return productoRepository.findStockVersionadoById(id).orElseThrow();
+    }
+
+    private StockVersionadoDTO reponer(Long id, int cantidad) {
+        Optional<StockDTO> caliente = stockCalienteService.reponer(id, cantidad);
+        if (caliente.isPresent()) {
+            return new StockVersionadoDTO(id, caliente.get().stock(), null);
+        }
+        if (productoRepository.reponerStock(id, cantidad) == 0) {
+            throw new ResourceNotFoundException("Producto", "id", id);
+        }
+        return productoRepository.findStockVersionadoById(id).orElseThrow();
+    }
+
+    /**
+     * Hot products publish their stock when it is flushed, not on every movement
+     */
+    private void publishStock(StockVersionadoDTO stock) {
+        if (stock.version() != null) {
+            eventPublisher.publishEvent(new CatalogoEvent.StockActualizado(
+                    stock.productoId(), stock.stock(), stock.version()));
+        }
+    }
+
+    /**
+     * Turn a constraint violation of a patch into the error of the field that caused it. Only
+     * runs once the update failed, so the lookups cost nothing on the normal path, and does not
+     * depend on the wording of the driver message
+     */
+    private RuntimeException violacion(DataIntegrityViolationException ex, Long id, ProductoPatchDTO cambios) {
+        if (cambios.codigo() != null && productoRepository.findByCodigo(cambios.codigo())
+                .filter(otro -> !otro.getId().equals(id))
+                .isPresent()) {
+            return new ResourceAlreadyExistsException("Producto", "codigo", cambios.codigo());
+        }
+        if (cambios.categoriaId() != null && !categoriaRepository.existsById(cambios.categoriaId())) {
+            return new ResourceNotFoundException("Categoria", "id", cambios.categoriaId());
+        }
+        if (cambios.marcaId() != null && !marcaRepository.existsById(cambios.marcaId())) {
+            return new ResourceNotFoundException("Marca", "id", cambios.marcaId());
+        }
+        return ex;
+    }
+
+    /**
+     * Quantities per product in ascending ID order, so concurrent carts lock rows in the same
+     * order and cannot deadlock each other
+     */
+    private static Map<Long, Integer> agruparLineas(List<StockLineaDTO> lineas) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (StockLineaDTO linea : lineas) {
+            validarCantidad(linea.cantidad());
+            cantidades.merge(linea.productoId(), linea.cantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    private static void validarCantidad(Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new BusinessException("INVALID_QUANTITY", "La cantidad debe ser mayor que cero");
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean existsByCodigo(String codigo) {
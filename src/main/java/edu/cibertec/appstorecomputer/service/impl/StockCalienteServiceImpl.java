@@ -0,0 +1,424 @@
+package edu.cibertec.appstorecomputer.service.impl;
+
+import edu.cibertec.appstorecomputer.config.MetricsConfig;
+import edu.cibertec.appstorecomputer.dto.StockCalienteDTO;
+import edu.cibertec.appstorecomputer.dto.StockDTO;
+import edu.cibertec.appstorecomputer.event.CatalogoEvent;
+import edu.cibertec.appstorecomputer.exception.BusinessException;
+import edu.cibertec.appstorecomputer.exception.ResourceNotFoundException;
+import edu.cibertec.appstorecomputer.exception.StockInsuficienteException;
+import edu.cibertec.appstorecomputer.model.ProductoStockCaliente;
+import edu.cibertec.appstorecomputer.model.ProductoStockMovimiento;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoStockCalienteRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoStockMovimientoRepository;
+import edu.cibertec.appstorecomputer.service.StockCalienteService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hot-SKU stock mode.
+ * <p>
+ * Reservations of a hot product are checked against a striped in-memory counter
+ * ({@link ContadorStock}) without touching its row. Every accepted change is also appended to
+ * productos_stock_movimientos in the transaction that accepts it, so it is durable before it
+ * is acknowledged; the insert takes no lock on the product row. On a fixed delay the committed
+ * movements are summed into productos.stock and deleted in one transaction, counted as a batch
+ * in productos_stock_caliente, so a retried batch can never apply a movement twice. On
+ * startup the counters of the products still registered as hot are rebuilt from their stock
+ * plus the movements left in the log, which loses nothing acknowledged before a crash. A
+ * product is enabled only once the changes already made to its row on the database path have
+ * committed, so the stock the counter starts from includes them. The counters are local to
+ * this instance: with several instances only one of them must serve the hot products.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Slf4j
+public class StockCalienteServiceImpl implements StockCalienteService {
+
+    private static final long ESPERA_CIERRE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long ESPERA_TRANSACCIONES_SEGUNDOS = 5;
+    private static final int MAX_IDS_POR_BORRADO = 1000;
+
+    private final ProductoRepository productoRepository;
+    private final ProductoStockCalienteRepository stockCalienteRepository;
+    private final ProductoStockMovimientoRepository movimientoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int stripes;
+
+    private final Map<Long, ContadorStock> contadores = new ConcurrentHashMap<>();
+    // Products being enabled, and stock changes of products not hot made on the database
+    // whose transaction has not completed
+    private final Set<Long> activando = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> enBaseDeDatos = new ConcurrentHashMap<>();
+
+    public StockCalienteServiceImpl(ProductoRepository productoRepository,
+                                    ProductoStockCalienteRepository stockCalienteRepository,
+                                    ProductoStockMovimientoRepository movimientoRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${catalogo.stock-caliente.stripes:0}") int stripes) {
+        this.productoRepository = productoRepository;
+        this.stockCalienteRepository = stockCalienteRepository;
+        this.movimientoRepository = movimientoRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    @Override
+    public List<StockCalienteDTO> findAll() {
+        log.info("Fetching products in hot stock mode");
+        return contadores.values().stream()
+                .sorted(Comparator.comparingLong(ContadorStock::productoId))
+                .map(contador -> toDto(contador, true))
+                .toList();
+    }
+
+    @Override
+    public StockCalienteDTO activar(Long productoId) {
+        log.info("Enabling hot stock mode for product: {}", productoId);
+        ContadorStock existente = contadores.get(productoId);
+        if (existente != null) {
+            return toDto(existente, true);
+        }
+
+        // From here on new operations wait for the counter instead of going to the database
+        while (!activando.add(productoId)) {
+            LockSupport.parkNanos(ESPERA_CIERRE_NANOS);
+        }
+        try {
+            return cargarContador(productoId);
+        } finally {
+            activando.remove(productoId);
+        }
+    }
+
+    private StockCalienteDTO cargarContador(Long productoId) {
+        ContadorStock existente = contadores.get(productoId);
+        if (existente != null) {
+            return toDto(existente, true);
+        }
+        // Changes already on the database path must commit before the stock is loaded, or the
+        // counter would not see them
+        if (!esperarBaseDeDatos(productoId, ESPERA_TRANSACCIONES_SEGUNDOS, TimeUnit.SECONDS)) {
+            throw new BusinessException("HOT_STOCK_BUSY",
+                    "Hay reservas en curso del producto " + productoId + ", intente más tarde");
+        }
+
+        ContadorStock contador = transactionTemplate.execute(status -> {
+            // The row lock keeps conditional updates out while the counter is loaded
+            Integer stock = productoRepository.findStockByIdForUpdate(productoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", productoId));
+            ProductoStockCaliente registro = stockCalienteRepository.findById(productoId)
+                    .orElseGet(() -> ProductoStockCaliente.builder()
+                            .productoId(productoId)
+                            .ultimoLote(0L)
+                            .build());
+            registro.setActivo(true);
+            registro.setFechaActualizacion(LocalDateTime.now());
+            stockCalienteRepository.save(registro);
+
+            // Disabling applies every movement, so a product starts without pending ones
+            ContadorStock nuevo = new ContadorStock(productoId, stock, 0, registro.getUltimoLote(), stripes);
+            if (contadores.putIfAbsent(productoId, nuevo) != null) {
+                status.setRollbackOnly();
+                return contadores.get(productoId);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado != STATUS_COMMITTED) {
+                        contadores.remove(productoId, nuevo);
+                    }
+                }
+            });
+            return nuevo;
+        });
+        return toDto(contador, true);
+    }
+
+    @Override
+    public StockCalienteDTO desactivar(Long productoId) {
+        log.info("Disabling hot stock mode for product: {}", productoId);
+        ContadorStock contador = contadores.get(productoId);
+        if (contador == null) {
+            throw new ResourceNotFoundException("StockCaliente", "productoId", productoId);
+        }
+
+        synchronized (contador) {
+            // New operations wait until the counter is gone and then go to the database
+            contador.cerrar();
+            // The last batch must see the movements of the transactions still in flight
+            if (!contador.esperarTransacciones(ESPERA_TRANSACCIONES_SEGUNDOS, TimeUnit.SECONDS)) {
+                contador.reabrir();
+                throw new BusinessException("HOT_STOCK_BUSY",
+                        "Hay reservas en curso del producto " + productoId + ", intente más tarde");
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    escribirLote(contador);
+                    stockCalienteRepository.findById(productoId).ifPresent(registro -> {
+                        registro.setActivo(false);
+                        registro.setFechaActualizacion(LocalDateTime.now());
+                    });
+                });
+            } catch (RuntimeException ex) {
+                contador.reabrir();
+                throw new BusinessException("HOT_STOCK_FLUSH_FAILED",
+                        "No se pudo escribir el stock pendiente del producto " + productoId, ex);
+            }
+            contadores.remove(productoId, contador);
+        }
+        return toDto(contador, false);
+    }
+
+    @Override
+    public boolean isActivo(Long productoId) {
+        return contadores.containsKey(productoId);
+    }
+
+    @Override
+    public Optional<StockDTO> descontar(Long productoId, int cantidad) {
+        return operar(productoId, (contador, stripe) -> {
+            if (!contador.tomar(stripe, cantidad)) {
+                throw new StockInsuficienteException(productoId, cantidad, contador.disponible());
+            }
+            registrar(contador, -cantidad);
+        });
+    }
+
+    @Override
+    public Optional<StockDTO> reponer(Long productoId, int cantidad) {
+        return operar(productoId, (contador, stripe) -> {
+            contador.devolver(stripe, cantidad);
+            registrar(contador, cantidad);
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${catalogo.stock-caliente.flush-interval:PT1S}")
+    public void flush() {
+        for (ContadorStock contador : contadores.values()) {
+            synchronized (contador) {
+                if (contador.isCerrado() || contador.pendiente() == 0) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> escribirLote(contador));
+                } catch (RuntimeException ex) {
+                    log.warn("Could not flush hot stock of product {}, will retry", contador.productoId(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild the counters of the products that were hot when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ProductoStockCaliente registro : stockCalienteRepository.findByActivoTrue()) {
+                Long productoId = registro.getProductoId();
+                productoRepository.findStockById(productoId).ifPresent(stock -> {
+                    long pendiente = movimientoRepository.sumDeltaByProductoId(productoId);
+                    int disponible = Math.toIntExact(stock + pendiente);
+                    contadores.put(productoId, new ContadorStock(
+                            productoId, disponible, pendiente, registro.getUltimoLote(), stripes));
+                    log.info("Hot stock of product {} restored with {} units ({} pending) at batch {}",
+                            productoId, disponible, pendiente, registro.getUltimoLote());
+                });
+            }
+        });
+    }
+
+    @PreDestroy
+    public void onShutdown() {
+        flush();
+    }
+
+    private interface Operacion {
+        void aplicar(ContadorStock contador, int stripe);
+    }
+
+    private Optional<StockDTO> operar(Long productoId, Operacion operacion) {
+        while (true) {
+            ContadorStock contador = contadores.get(productoId);
+            if (contador == null) {
+                if (entrarEnBaseDeDatos(productoId)) {
+                    return Optional.empty();
+                }
+            } else {
+                int stripe = contador.stripe();
+                if (contador.entrar(stripe)) {
+                    try {
+                        operacion.aplicar(contador, stripe);
+                        return Optional.of(new StockDTO(productoId, contador.disponible()));
+                    } finally {
+                        contador.salir(stripe);
+                    }
+                }
+            }
+            // Being enabled or disabled: wait for the counter or the last flush, then retry
+            LockSupport.parkNanos(ESPERA_CIERRE_NANOS);
+        }
+    }
+
+    /**
+     * Register a change the caller is about to make on the database, until its transaction
+     * completes, so enabling the hot mode waits for it before loading the stock
+     * @return false if the product is being enabled or already has its counter
+     */
+    private boolean entrarEnBaseDeDatos(Long productoId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // An auto-committed change is done before enabling could read the stock
+            return !activando.contains(productoId) && !contadores.containsKey(productoId);
+        }
+        enBaseDeDatos.merge(productoId, 1, Integer::sum);
+        if (activando.contains(productoId) || contadores.containsKey(productoId)) {
+            salirDeBaseDeDatos(productoId);
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                salirDeBaseDeDatos(productoId);
+            }
+        });
+        return true;
+    }
+
+    private void salirDeBaseDeDatos(Long productoId) {
+        enBaseDeDatos.computeIfPresent(productoId, (id, enCurso) -> enCurso > 1 ? enCurso - 1 : null);
+    }
+
+    /**
+     * Wait for the database changes of a product registered so far to complete; a transaction
+     * that holds one and then asks for the same product again waits for enabling to give up
+     * @return false if some are still running after the timeout
+     */
+    private boolean esperarBaseDeDatos(Long productoId, long timeout, TimeUnit unidad) {
+        long limite = System.nanoTime() + unidad.toNanos(timeout);
+        while (enBaseDeDatos.containsKey(productoId)) {
+            if (System.nanoTime() - limite > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(ESPERA_CIERRE_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Append an accepted change to the movement log before it is acknowledged. Inside a
+     * transaction the row commits with it, and the counter change is undone if it rolls back;
+     * outside one the row is committed right away.
+     */
+    private void registrar(ContadorStock contador, int delta) {
+        boolean enTransaccion = TransactionSynchronizationManager.isSynchronizationActive();
+        if (enTransaccion) {
+            contador.transaccionIniciada();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado == STATUS_ROLLED_BACK) {
+                        log.debug("Undoing hot stock change of {} for product {}", delta, contador.productoId());
+                        deshacer(contador, delta);
+                    }
+                    contador.transaccionTerminada();
+                }
+            });
+        }
+        try {
+            movimientoRepository.save(ProductoStockMovimiento.builder()
+                    .productoId(contador.productoId())
+                    .delta(delta)
+                    .fecha(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException ex) {
+            if (!enTransaccion) {
+                deshacer(contador, delta);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Revert a change whose movement never committed. The database never saw it, so only the
+     * counter is fixed; it is still the counter the change was made on, as disabling waits
+     * for the transactions in flight.
+     */
+    private static void deshacer(ContadorStock contador, int delta) {
+        int stripe = contador.stripe();
+        if (delta < 0) {
+            contador.devolver(stripe, -delta);
+        } else {
+            contador.quitar(stripe, delta);
+        }
+    }
+
+    /**
+     * Apply the committed movements of a counter to productos.stock and remove them as the next
+     * batch; must run inside a transaction. Movements committed after they were read are left
+     * for the following batch.
+     */
+    private void escribirLote(ContadorStock contador) {
+        Long productoId = contador.productoId();
+        List<ProductoStockMovimientoRepository.Pendiente> pendientes = movimientoRepository.findPendientes(productoId);
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        long delta = 0;
+        List<Long> ids = new ArrayList<>(pendientes.size());
+        for (ProductoStockMovimientoRepository.Pendiente pendiente : pendientes) {
+            delta += pendiente.delta();
+            ids.add(pendiente.id());
+        }
+        for (int desde = 0; desde < ids.size(); desde += MAX_IDS_POR_BORRADO) {
+            movimientoRepository.deleteByIdIn(ids.subList(desde, Math.min(ids.size(), desde + MAX_IDS_POR_BORRADO)));
+        }
+        stockCalienteRepository.avanzarLote(productoId);
+        if (delta != 0) {
+            productoRepository.ajustarStock(productoId, Math.toIntExact(delta));
+            // The row is locked until commit, so the version read back is the one just written
+            long version = productoRepository.findVersionById(productoId).orElseThrow().version();
+            eventPublisher.publishEvent(new CatalogoEvent.StockActualizado(productoId, contador.disponible(), version));
+        }
+        long numero = contador.ultimoLote() + 1;
+        long aplicado = delta;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                contador.loteAplicado(numero, aplicado);
+            }
+        });
+    }
+
+    private static StockCalienteDTO toDto(ContadorStock contador, boolean activo) {
+        return new StockCalienteDTO(contador.productoId(), activo, contador.disponible(),
+                contador.pendiente(), contador.ultimoLote());
+    }
+}
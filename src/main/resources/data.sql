@@ -6,7 +6,9 @@ CREATE TABLE IF NOT EXISTS categorias (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     nombre VARCHAR(100) NOT NULL UNIQUE,
     descripcion VARCHAR(255),
-    activo BOOLEAN DEFAULT TRUE
+    activo BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
+    fecha_modificacion DATETIME
 );
 
 -- Marcas table
@@ -15,7 +17,9 @@ CREATE TABLE IF NOT EXISTS marcas (
     nombre VARCHAR(100) NOT NULL UNIQUE,
     pais_origen VARCHAR(100),
     sitio_web VARCHAR(255),
-    activo BOOLEAN DEFAULT TRUE
+    activo BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
+    fecha_modificacion DATETIME
 );
 
 -- Productos table
@@ -29,10 +33,42 @@ CREATE TABLE IF NOT EXISTS productos (
     imagen_url VARCHAR(255),
     fecha_creacion DATETIME,
     activo BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
+    fecha_modificacion DATETIME,
     categoria_id BIGINT NOT NULL,
     marca_id BIGINT NOT NULL,
     FOREIGN KEY (categoria_id) REFERENCES categorias(id),
-    FOREIGN KEY (marca_id) REFERENCES marcas(id)
+    FOREIGN KEY (marca_id) REFERENCES marcas(id),
+    INDEX idx_productos_precio (precio),
+    INDEX idx_productos_stock (stock),
+    INDEX idx_productos_nombre (nombre),
+    INDEX idx_productos_categoria_precio (categoria_id, precio),
+    INDEX idx_productos_marca_precio (marca_id, precio)
+);
+
+-- Id generator table (pooled blocks of 50 ids for productos, lets Hibernate batch inserts)
+CREATE TABLE IF NOT EXISTS id_generadores (
+    entidad VARCHAR(50) NOT NULL PRIMARY KEY,
+    siguiente_id BIGINT NOT NULL
+);
+
+-- Products whose stock is kept in memory (hot-SKU mode) and the last stock batch flushed for each
+CREATE TABLE IF NOT EXISTS productos_stock_caliente (
+    producto_id BIGINT NOT NULL PRIMARY KEY,
+    activo BOOLEAN NOT NULL DEFAULT TRUE,
+    ultimo_lote BIGINT NOT NULL DEFAULT 0,
+    fecha_actualizacion DATETIME,
+    FOREIGN KEY (producto_id) REFERENCES productos(id)
+);
+
+-- Stock changes of hot products accepted but not yet applied to productos.stock
+CREATE TABLE IF NOT EXISTS productos_stock_movimientos (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    delta INT NOT NULL,
+    fecha DATETIME NOT NULL,
+    FOREIGN KEY (producto_id) REFERENCES productos(id),
+    INDEX idx_stock_movimientos_producto (producto_id, id)
 );
 
 -- Insert sample data for Categorias
@@ -72,4 +108,9 @@ INSERT INTO productos (nombre, descripcion, precio, stock, codigo, imagen_url, f
 ('Samsung Odyssey G7', 'Monitor curvo gaming 32" 240Hz', 699.99, 15, 'SAM-ODY-G7', 'https://example.com/images/samsung-odyssey.jpg', NOW(), true, 3, 7),
 ('MSI GeForce RTX 3070', 'Tarjeta gráfica para gaming de alto rendimiento', 599.99, 7, 'MSI-RTX-3070', 'https://example.com/images/msi-rtx.jpg', NOW(), true, 5, 8),
 ('Gigabyte B550 AORUS', 'Placa base para procesadores AMD Ryzen', 179.99, 18, 'GB-B550-AOR', 'https://example.com/images/gigabyte-aorus.jpg', NOW(), true, 5, 9),
-('Logitech MX Master 3', 'Mouse inalámbrico de alta precisión', 99.99, 30, 'LOG-MX-M3', 'https://example.com/images/logitech-mx.jpg', NOW(), true, 4, 10);
\ No newline at end of file
+('Logitech MX Master 3', 'Mouse inalámbrico de alta precisión', 99.99, 30, 'LOG-MX-M3', 'https://example.com/images/logitech-mx.jpg', NOW(), true, 4, 10);
+
+-- Start the productos id generator past the existing rows (the pooled optimizer hands out
+-- the block that ends at the stored value, so leave at least one block of margin)
+INSERT INTO id_generadores (entidad, siguiente_id)
+SELECT 'productos', COALESCE(MAX(id), 0) + 100 FROM productos;
\ No newline at end of file
@@ -0,0 +1,80 @@
+package edu.cibertec.appstorecomputer;
+
+import edu.cibertec.appstorecomputer.catalog.CatalogoReadModel;
+import edu.cibertec.appstorecomputer.catalog.CatalogoVersion;
+import edu.cibertec.appstorecomputer.catalog.ProductoSearchIndex;
+import edu.cibertec.appstorecomputer.config.CatalogoRecargaConfig;
+import edu.cibertec.appstorecomputer.config.ImportacionConfig;
+import edu.cibertec.appstorecomputer.dto.StockCalienteDTO;
+import edu.cibertec.appstorecomputer.service.StockCalienteService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Puts the sample catalog of data.sql back before every test, so no test depends on what
+ * the ones before it wrote into the shared context.
+ * <p>
+ * Imports and background reloads still running are waited for and hot products are switched
+ * off (which writes their pending movements) before the embedded database is recreated from
+ * data.sql; then the caches are emptied and the read model, the search index and the catalog
+ * version are reloaded, as they would be on startup.
+ */
+public class DatosDeEjemploExtension implements BeforeEachCallback {
+
+    private static final long ESPERA_MILLIS = 10_000;
+
+    @Override
+    public void beforeEach(ExtensionContext extensionContext) throws Exception {
+        ApplicationContext context = SpringExtension.getApplicationContext(extensionContext);
+
+        esperar(context.getBean(ImportacionConfig.IMPORTACION_EXECUTOR, ThreadPoolTaskExecutor.class));
+        esperar(context.getBean(CatalogoRecargaConfig.RECARGA_EXECUTOR, ThreadPoolTaskExecutor.class));
+        StockCalienteService stockCalienteService = context.getBean(StockCalienteService.class);
+        for (StockCalienteDTO estado : stockCalienteService.findAll()) {
+            if (estado.activo()) {
+                stockCalienteService.desactivar(estado.productoId());
+            }
+        }
+
+        DataSource dataSource = context.getBean(DataSource.class);
+        new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+        populator.execute(dataSource);
+
+        CacheManager cacheManager = context.getBean(CacheManager.class);
+        for (String nombre : cacheManager.getCacheNames()) {
+            Objects.requireNonNull(cacheManager.getCache(nombre)).clear();
+        }
+        context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictAllRegions();
+        context.getBean(CatalogoReadModel.class).reload();
+        context.getBean(ProductoSearchIndex.class).reload();
+        context.getBean(CatalogoVersion.class).refresh();
+    }
+
+    /**
+     * Wait until the executor has no task running or queued
+     */
+    public static void esperar(ThreadPoolTaskExecutor executor) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MILLIS;
+        while (executor.getActiveCount() > 0 || !executor.getThreadPoolExecutor().getQueue().isEmpty()) {
+            if (System.currentTimeMillis() > limite) {
+                throw new IllegalStateException(executor.getThreadNamePrefix() + " still busy after " + ESPERA_MILLIS + " ms");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
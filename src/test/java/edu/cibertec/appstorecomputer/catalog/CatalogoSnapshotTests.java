@@ -0,0 +1,156 @@
+package edu.cibertec.appstorecomputer.catalog;
+
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoVersionadoDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Patched snapshots answer exactly like a snapshot built from scratch over the same rows.
+ */
+class CatalogoSnapshotTests {
+
+    private static final Map<Long, String> CATEGORIAS = Map.of(1L, "Laptops", 2L, "Monitores");
+    private static final Map<Long, String> MARCAS = Map.of(1L, "HP", 2L, "Dell", 3L, "Lenovo");
+
+    @Test
+    void withStockMueveLaFilaEnElIndiceDeStock() {
+        Random random = new Random(42);
+        List<ProductoDTO> productos = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            productos.add(producto(id, random.nextInt(20)));
+        }
+        CatalogoSnapshot snapshot = CatalogoSnapshot.of(versionados(productos), CATEGORIAS, MARCAS);
+
+        for (int cambio = 0; cambio < 500; cambio++) {
+            int fila = random.nextInt(productos.size());
+            int nivel = random.nextInt(20);
+            productos.set(fila, producto(productos.get(fila).id(), nivel));
+            snapshot = snapshot.withStock(productos.get(fila).id(), nivel, cambio + 1);
+        }
+
+        CatalogoSnapshot reconstruido = CatalogoSnapshot.of(versionados(productos), CATEGORIAS, MARCAS);
+        for (int umbral = 0; umbral <= 20; umbral++) {
+            assertThat(snapshot.countByStockLessThan(umbral)).isEqualTo(reconstruido.countByStockLessThan(umbral));
+            assertThat(snapshot.findByStockLessThan(umbral, 0, Integer.MAX_VALUE))
+                    .isEqualTo(reconstruido.findByStockLessThan(umbral, 0, Integer.MAX_VALUE));
+        }
+        assertThat(snapshot.findAvailable()).isEqualTo(reconstruido.findAvailable());
+        assertThat(snapshot.findByCategoria(1L)).isEqualTo(reconstruido.findByCategoria(1L));
+    }
+
+    @Test
+    void withStockSinCambiosDevuelveElMismoSnapshot() {
+        CatalogoSnapshot snapshot = CatalogoSnapshot.of(versionados(List.of(producto(1L, 5))), CATEGORIAS, MARCAS);
+
+        assertThat(snapshot.withStock(1L, 5, 0)).isSameAs(snapshot);
+        assertThat(snapshot.withStock(99L, 1, 1)).isSameAs(snapshot);
+    }
+
+    @Test
+    void withProductoYWithoutProductoComoReconstruido() {
+        Random random = new Random(7);
+        Map<Long, ProductoDTO> productos = new TreeMap<>();
+        for (long id = 2; id <= 200; id += 2) {
+            productos.put(id, producto(id, random.nextInt(20)));
+        }
+        CatalogoSnapshot snapshot = CatalogoSnapshot.of(versionados(productos.values()), CATEGORIAS, MARCAS);
+
+        Set<Long> eliminados = new HashSet<>();
+        for (int cambio = 0; cambio < 300; cambio++) {
+            // odd ids land between existing rows, so inserts and removals renumber the rows after them
+            long id = 1 + random.nextInt(220);
+            if (random.nextInt(4) == 0) {
+                productos.remove(id);
+                eliminados.add(id);
+                snapshot = snapshot.withoutProducto(id);
+                continue;
+            }
+            long categoriaId = 1 + random.nextInt(2);
+            long marcaId = 1 + random.nextInt(3);
+            ProductoDTO producto = new ProductoDTO(id, "Producto " + id, null,
+                    BigDecimal.valueOf(random.nextInt(5000), 2), random.nextInt(20), "COD-" + id, null, null,
+                    random.nextBoolean(), categoriaId, marcaId, CATEGORIAS.get(categoriaId), MARCAS.get(marcaId));
+            snapshot = snapshot.withProducto(producto, cambio + 1);
+            if (!eliminados.contains(id)) {
+                productos.put(id, producto);
+            }
+        }
+
+        CatalogoSnapshot reconstruido = CatalogoSnapshot.of(versionados(productos.values()), CATEGORIAS, MARCAS);
+        assertThat(snapshot.size()).isEqualTo(reconstruido.size());
+        for (long id = 1; id <= 220; id++) {
+            assertThat(snapshot.findById(id)).isEqualTo(reconstruido.findById(id));
+        }
+        for (int umbral = 0; umbral <= 20; umbral++) {
+            assertThat(snapshot.findByStockLessThan(umbral, 0, Integer.MAX_VALUE))
+                    .isEqualTo(reconstruido.findByStockLessThan(umbral, 0, Integer.MAX_VALUE));
+        }
+        BigDecimal[] limites = {BigDecimal.ZERO, new BigDecimal("9.99"), new BigDecimal("25.00"), new BigDecimal("50.00")};
+        for (int i = 0; i < limites.length; i++) {
+            for (int j = i; j < limites.length; j++) {
+                assertThat(snapshot.findByPrecioBetween(limites[i], limites[j], 0, Integer.MAX_VALUE))
+                        .isEqualTo(reconstruido.findByPrecioBetween(limites[i], limites[j], 0, Integer.MAX_VALUE));
+            }
+        }
+        for (long categoriaId = 1; categoriaId <= 2; categoriaId++) {
+            assertThat(snapshot.findByCategoria(categoriaId)).isEqualTo(reconstruido.findByCategoria(categoriaId));
+            for (long marcaId = 1; marcaId <= 3; marcaId++) {
+                assertThat(snapshot.findByMarca(marcaId)).isEqualTo(reconstruido.findByMarca(marcaId));
+                assertThat(snapshot.findByCategoriaAndMarca(categoriaId, marcaId))
+                        .isEqualTo(reconstruido.findByCategoriaAndMarca(categoriaId, marcaId));
+            }
+        }
+        assertThat(snapshot.findAvailable()).isEqualTo(reconstruido.findAvailable());
+    }
+
+    @Test
+    void cambiosAntiguosSeIgnoran() {
+        CatalogoSnapshot snapshot = CatalogoSnapshot.of(
+                List.of(new ProductoVersionadoDTO(producto(1L, 5), 3L), new ProductoVersionadoDTO(producto(2L, 5), 0L)),
+                CATEGORIAS, MARCAS);
+
+        // listeners of two transactions ran in the opposite order of their commits
+        assertThat(snapshot.withStock(1L, 9, 2)).isSameAs(snapshot);
+        assertThat(snapshot.withProducto(producto(1L, 9), 2)).isSameAs(snapshot);
+        assertThat(snapshot.withStock(1L, 4, 4).withStock(1L, 9, 2).findById(1L))
+                .hasValueSatisfying(producto -> assertThat(producto.stock()).isEqualTo(4));
+        // a deleted product does not come back with an event sent before its deletion
+        assertThat(snapshot.withoutProducto(2L).withProducto(producto(2L, 7), 1).findById(2L)).isEmpty();
+    }
+
+    @Test
+    void withCategoriaNuevaNoTieneProductos() {
+        CatalogoSnapshot snapshot = CatalogoSnapshot.of(versionados(List.of(producto(1L, 5))), CATEGORIAS, MARCAS)
+                .withCategoria(3L, "Gaming");
+
+        assertThat(snapshot.containsCategoria(3L)).isTrue();
+        assertThat(snapshot.findByCategoria(3L)).isEmpty();
+        assertThat(snapshot.findByCategoriaAndMarca(3L, 1L)).isEmpty();
+        assertThat(snapshot.findByCategoria(2L)).extracting(ProductoDTO::id).containsExactly(1L);
+    }
+
+    private static List<ProductoVersionadoDTO> versionados(Iterable<ProductoDTO> productos) {
+        List<ProductoVersionadoDTO> versionados = new ArrayList<>();
+        productos.forEach(producto -> versionados.add(new ProductoVersionadoDTO(producto, 0L)));
+        return versionados;
+    }
+
+    private static ProductoDTO producto(long id, int stock) {
+        long categoriaId = id % 2 + 1;
+        long marcaId = id % 3 + 1;
+        return new ProductoDTO(id, "Producto " + id, null, BigDecimal.valueOf(id * 10 + 0.99), stock,
+                "COD-" + id, null, null, true, categoriaId, marcaId,
+                CATEGORIAS.get(categoriaId), MARCAS.get(marcaId));
+    }
+}
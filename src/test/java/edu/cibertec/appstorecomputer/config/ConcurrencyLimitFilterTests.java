@@ -0,0 +1,49 @@
+package edu.cibertec.appstorecomputer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.AsyncContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Permits of the concurrency limit, with a cap of one request and no wait
+ */
+class ConcurrencyLimitFilterTests {
+
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            1, Duration.ZERO, new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void peticionSincronaDevuelveElPermisoAlTerminar() throws Exception {
+        assertThat(atender(new MockFilterChain()).getStatus()).isEqualTo(200);
+        assertThat(atender(new MockFilterChain()).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void peticionAsincronaRetieneElPermisoHastaCompletar() throws Exception {
+        MockHttpServletRequest exportacion = new MockHttpServletRequest("GET", "/productos/exportar");
+        exportacion.setAsyncSupported(true);
+        filter.doFilter(exportacion, new MockHttpServletResponse(),
+                (request, response) -> request.startAsync());
+        AsyncContext asyncContext = exportacion.getAsyncContext();
+
+        // the streaming response is still being written after the first dispatch returned
+        assertThat(atender(new MockFilterChain()).getStatus()).isEqualTo(503);
+
+        asyncContext.complete();
+        assertThat(atender(new MockFilterChain()).getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse atender(MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/productos"), response, chain);
+        return response;
+    }
+}
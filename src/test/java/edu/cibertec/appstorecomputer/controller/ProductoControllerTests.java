@@ -0,0 +1,394 @@
+package edu.cibertec.appstorecomputer.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cibertec.appstorecomputer.DatosDeEjemploExtension;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Results of the product read endpoints over the sample catalog of data.sql: cursor
+ * pagination, ranked search, the combined filter and its facets. Every test starts from the
+ * sample data.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("loadtest")
+@ExtendWith(DatosDeEjemploExtension.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:productos;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "catalogo.stock-caliente.flush-interval=PT1H"
+})
+class ProductoControllerTests {
+
+    private static final int PRODUCTOS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @ParameterizedTest(name = "orden={0}")
+    @ValueSource(strings = {"id", "nombre", "precio"})
+    void cursorRecorreElCatalogoUnaVezEnOrden(String orden) throws Exception {
+        List<JsonNode> productos = recorrer("/productos/cursor?size=3&orden=" + orden);
+
+        assertThat(productos).extracting(producto -> producto.get("id").asLong())
+                .doesNotHaveDuplicates()
+                .hasSize(PRODUCTOS);
+        // precio has ties (two products at 1999.99), broken by id
+        assertThat(productos).isSortedAccordingTo(orden(orden));
+    }
+
+    @Test
+    void cursorNoSeDesplazaConAltasIntermedias() throws Exception {
+        JsonNode primera = json(get("/productos/cursor?size=4"));
+        crearProducto("CURSOR-NUEVO", new BigDecimal("10.00"));
+
+        List<JsonNode> resto = recorrer("/productos/cursor?size=4&cursor=" + primera.get("nextCursor").asText());
+
+        assertThat(primera.get("content")).extracting(producto -> producto.get("id").asLong())
+                .containsExactly(1L, 2L, 3L, 4L);
+        // the new product sorts after everything read so far, so it comes last and nothing repeats
+        assertThat(resto).extracting(producto -> producto.get("codigo").asText())
+                .hasSize(PRODUCTOS - 4 + 1)
+                .endsWith("CURSOR-NUEVO");
+    }
+
+    @Test
+    void cursorDeActivosYTotal() throws Exception {
+        mockMvc.perform(patch("/productos/3").contentType(MediaType.APPLICATION_JSON).content("{\"activo\": false}"))
+                .andExpect(status().isOk());
+
+        List<JsonNode> activos = recorrer("/productos/activos/cursor?size=4");
+
+        assertThat(activos).extracting(producto -> producto.get("id").asLong())
+                .hasSize(PRODUCTOS - 1)
+                .doesNotContain(3L);
+        mockMvc.perform(get("/productos/activos/cursor?size=4&incluirTotal=true"))
+                .andExpect(jsonPath("$.totalElements").value(PRODUCTOS - 1));
+        mockMvc.perform(get("/productos/cursor?size=4"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void cursorInvalido() throws Exception {
+        String porPrecio = json(get("/productos/cursor?size=2&orden=precio")).get("nextCursor").asText();
+
+        mockMvc.perform(get("/productos/cursor?cursor=no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+        // a cursor only continues the order it was issued for
+        mockMvc.perform(get("/productos/cursor?orden=nombre&cursor=" + porPrecio))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/productos/cursor?size=0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/productos/cursor?orden=stock"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void busquedaOrdenadaPorRelevancia() throws Exception {
+        // RTX is in the nombre and codigo of the MSI card but only in the descripcion of the Asus
+        assertThat(buscar("rtx")).containsExactly(8L, 4L);
+        // every term must match: the MacBook is a laptop without Intel
+        assertThat(buscar("laptop intel")).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(buscar("laptop")).contains(6L);
+    }
+
+    @Test
+    void busquedaSinTildesNiMayusculasYConPrefijo() throws Exception {
+        assertThat(buscar("GRAFICA")).containsExactly(8L);
+        assertThat(buscar("inalámbrico")).containsExactly(10L);
+        // the last term also matches as a prefix, while the user is typing
+        assertThat(buscar("think")).containsExactly(3L);
+        assertThat(buscar("xyz")).isEmpty();
+    }
+
+    @Test
+    void busquedaSigueLosCambios() throws Exception {
+        crearProducto("BUSQ-1", new BigDecimal("59.90"));
+        mockMvc.perform(patch("/productos/8").contentType(MediaType.APPLICATION_JSON).content("{\"activo\": false}"))
+                .andExpect(status().isOk());
+
+        assertThat(buscar("busq")).hasSize(1);
+        // only active products are searched
+        assertThat(buscar("rtx")).containsExactly(4L);
+    }
+
+    @Test
+    void filtroCumpleTodasLasCondiciones() throws Exception {
+        JsonNode pagina = json(get("/productos/filtro?categoriaId=1&min=1000&max=2000&sort=precio,asc"));
+
+        assertThat(pagina.get("content")).extracting(producto -> producto.get("id").asLong())
+                .containsExactly(2L, 3L, 6L);
+        assertThat(pagina.get("totalElements").asLong()).isEqualTo(3);
+        assertThat(ids(json(get("/productos/filtro?stockDesde=10&stockHasta=15&sort=id"))))
+                .containsExactly(2L, 3L, 6L, 7L);
+        assertThat(ids(json(get("/productos/filtro?nombre=Dell")))).containsExactly(2L);
+        assertThat(ids(json(get("/productos/filtro?marcaId=1&categoriaId=3")))).isEmpty();
+    }
+
+    @Test
+    void filtroPaginadoSinHuecos() throws Exception {
+        List<Long> porPaginas = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            porPaginas.addAll(ids(json(get("/productos/filtro?sort=precio,desc&size=3&page=" + page))));
+        }
+        List<Long> completa = ids(json(get("/productos/filtro?sort=precio,desc&size=20")));
+
+        assertThat(porPaginas).isEqualTo(completa).hasSize(PRODUCTOS);
+    }
+
+    @Test
+    void facetasIgnoranSuPropiaCondicion() throws Exception {
+        JsonNode facetas = json(get("/productos/facetas?categoriaId=1&marcaId=1"));
+
+        assertThat(facetas.get("total").asLong()).isEqualTo(1);
+        // categorias counted with the marca condition only, marcas with the categoria one only
+        assertThat(cantidades(facetas.get("categorias"))).isEqualTo(Map.of(1L, 1L));
+        assertThat(cantidades(facetas.get("marcas"))).isEqualTo(Map.of(1L, 1L, 2L, 1L, 3L, 1L, 6L, 1L));
+        assertThat(facetas.get("conStock").asLong() + facetas.get("sinStock").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    void facetasCoincidenConElFiltro() throws Exception {
+        mockMvc.perform(patch("/productos/1").contentType(MediaType.APPLICATION_JSON).content("{\"precio\": 450.00}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/productos/2/stock/descontar?cantidad=15"))
+                .andExpect(status().isOk());
+
+        JsonNode facetas = json(get("/productos/facetas?categoriaId=1"));
+        long filtrados = json(get("/productos/filtro?categoriaId=1&activo=true")).get("totalElements").asLong();
+
+        assertThat(facetas.get("total").asLong()).isEqualTo(filtrados).isEqualTo(4);
+        assertThat(facetas.get("sinStock").asLong()).isEqualTo(1);
+        Map<Long, Long> precios = new HashMap<>();
+        for (JsonNode rango : facetas.get("precios")) {
+            if (rango.get("cantidad").asLong() > 0) {
+                precios.put(rango.get("desde").asLong(), rango.get("cantidad").asLong());
+            }
+        }
+        // 450 falls in [100, 500); 1299.99, 1499.99 and 1999.99 in [1000, 2000)
+        assertThat(precios).isEqualTo(Map.of(100L, 1L, 1000L, 3L));
+    }
+
+    @Test
+    void etagDeProductoCambiaConSuCategoria() throws Exception {
+        String etag = mockMvc.perform(get("/productos/2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/productos/2").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/categorias/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"Portátiles\", \"descripcion\": \"Renombrada\", \"activo\": true}"))
+                .andExpect(status().isOk());
+
+        // the body shows the new name, so the old ETag no longer matches
+        String nuevo = mockMvc.perform(get("/productos/2").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoriaNombre").value("Portátiles"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(nuevo).isNotEqualTo(etag);
+        // If-Match only compares the version of the product itself
+        mockMvc.perform(patch("/productos/2").header("If-Match", nuevo)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"precio\": 1399.99}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/productos/2").header("If-Match", nuevo)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"precio\": 1299.99}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void paginasDePrecioYStockEnOrdenDeIndice() throws Exception {
+        paginasEnOrdenDeIndice(mockMvc, objectMapper);
+    }
+
+    /**
+     * While the read model is not loaded, the paged price and stock ranges come from the
+     * database in the same order
+     */
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:productos-sin-modelo;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+            "catalogo.read-model.enabled=false"
+    })
+    class SinModeloDeLectura {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Test
+        void paginasDePrecioYStockEnOrdenDeIndice() throws Exception {
+            paginasEnOrdenDeIndice(mockMvc, objectMapper);
+        }
+    }
+
+    /**
+     * While the search index is not loaded, search goes to the database over the same
+     * products and fields
+     */
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:productos-sin-indice;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+            "catalogo.search.enabled=false"
+    })
+    class SinIndiceDeBusqueda {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Test
+        void buscaEnActivosPorNombreDescripcionYCodigo() throws Exception {
+            mockMvc.perform(patch("/productos/8").contentType(MediaType.APPLICATION_JSON).content("{\"activo\": false}"))
+                    .andExpect(status().isOk());
+
+            // RTX is only in the descripcion of the Asus once the MSI card is inactive
+            assertThat(buscar("rtx")).containsExactly(4L);
+            assertThat(buscar("pav-15")).containsExactly(1L);
+            assertThat(buscar("Logitech")).containsExactly(10L);
+        }
+
+        private List<Long> buscar(String q) throws Exception {
+            String body = mockMvc.perform(get("/productos/buscar").param("q", q))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            return ids(objectMapper.readTree(body));
+        }
+    }
+
+    private static void paginasEnOrdenDeIndice(MockMvc mockMvc, ObjectMapper objectMapper) throws Exception {
+        List<JsonNode> todos = new ArrayList<>();
+        objectMapper.readTree(mockMvc.perform(get("/productos")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).forEach(todos::add);
+        Comparator<JsonNode> porId = Comparator.comparingLong(producto -> producto.get("id").asLong());
+        List<Long> porPrecio = todos.stream()
+                .sorted(Comparator.<JsonNode, BigDecimal>comparing(producto -> producto.get("precio").decimalValue())
+                        .thenComparing(porId))
+                .map(producto -> producto.get("id").asLong())
+                .toList();
+        List<Long> porStock = todos.stream()
+                .sorted(Comparator.<JsonNode>comparingInt(producto -> producto.get("stock").asInt()).thenComparing(porId))
+                .map(producto -> producto.get("id").asLong())
+                .toList();
+
+        List<Long> paginasPrecio = new ArrayList<>();
+        List<Long> paginasStock = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            paginasPrecio.addAll(ids(leer(mockMvc, objectMapper,
+                    "/productos/precio/pagina?min=0&max=100000&size=3&page=" + page)));
+            paginasStock.addAll(ids(leer(mockMvc, objectMapper,
+                    "/productos/stock-bajo/pagina?stockMinimo=100000&size=3&page=" + page)));
+        }
+
+        assertThat(paginasPrecio).isEqualTo(porPrecio).hasSize(PRODUCTOS);
+        assertThat(paginasStock).isEqualTo(porStock).hasSize(PRODUCTOS);
+        // the index order may be spelled out; any other order is rejected, not ignored
+        assertThat(ids(leer(mockMvc, objectMapper,
+                "/productos/precio/pagina?min=0&max=100000&size=20&sort=precio&sort=id,asc"))).isEqualTo(porPrecio);
+        mockMvc.perform(get("/productos/precio/pagina?min=0&max=100000&sort=precio,desc"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/productos/stock-bajo/pagina?stockMinimo=10&sort=nombre"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static JsonNode leer(MockMvc mockMvc, ObjectMapper objectMapper, String uri) throws Exception {
+        String body = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<JsonNode> recorrer(String uri) throws Exception {
+        List<JsonNode> productos = new ArrayList<>();
+        JsonNode pagina = json(get(uri));
+        while (true) {
+            pagina.get("content").forEach(productos::add);
+            if (!pagina.get("hasNext").asBoolean()) {
+                assertThat(pagina.get("nextCursor").isNull()).isTrue();
+                return productos;
+            }
+            String siguiente = uri.contains("cursor=") ? uri.substring(0, uri.indexOf("&cursor=")) : uri;
+            pagina = json(get(siguiente + "&cursor=" + pagina.get("nextCursor").asText()));
+        }
+    }
+
+    private static Comparator<JsonNode> orden(String orden) {
+        Comparator<JsonNode> porId = Comparator.comparingLong(producto -> producto.get("id").asLong());
+        return switch (orden) {
+            case "nombre" -> Comparator.<JsonNode, String>comparing(producto -> producto.get("nombre").asText())
+                    .thenComparing(porId);
+            case "precio" -> Comparator.<JsonNode, BigDecimal>comparing(producto -> producto.get("precio").decimalValue())
+                    .thenComparing(porId);
+            default -> porId;
+        };
+    }
+
+    private List<Long> buscar(String q) throws Exception {
+        return ids(json(get("/productos/buscar").param("q", q)));
+    }
+
+    private void crearProducto(String codigo, BigDecimal precio) throws Exception {
+        mockMvc.perform(post("/productos").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"nombre": "Producto %1$s", "precio": %2$s, "stock": 5, "codigo": "%1$s",
+                         "categoriaId": 4, "marcaId": 1}
+                        """.formatted(codigo, precio)))
+                .andExpect(status().isCreated());
+    }
+
+    private JsonNode json(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<Long> ids(JsonNode pagina) {
+        List<Long> ids = new ArrayList<>();
+        pagina.get("content").forEach(producto -> ids.add(producto.get("id").asLong()));
+        return ids;
+    }
+
+    private static Map<Long, Long> cantidades(JsonNode faceta) {
+        Map<Long, Long> cantidades = new HashMap<>();
+        for (JsonNode valor : faceta) {
+            if (valor.get("cantidad").asLong() > 0) {
+                cantidades.put(valor.get("id").asLong(), valor.get("cantidad").asLong());
+            }
+        }
+        return cantidades;
+    }
+}
@@ -0,0 +1,121 @@
+package edu.cibertec.appstorecomputer.controller;
+
+import edu.cibertec.appstorecomputer.config.ReadYourWritesFilter;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Replica routing over two embedded H2 databases.
+ * <p>
+ * The primary is loaded from data.sql by the application as usual; the replica is a second
+ * database loaded from the same script before the context starts, with product 1 renamed so
+ * the test can tell which database answered. Nothing replicates between them, which stands
+ * for a replica lagging forever.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("loadtest")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primario;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "catalogo.datasource.replicas.enabled=true",
+        "catalogo.datasource.read-your-writes=PT1M",
+        "catalogo.stock-caliente.flush-interval=PT1H"
+})
+class ReplicaRoutingTests {
+
+    private static final String REPLICA =
+            "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:data.sql' CHARSET 'UTF-8'");
+            statement.executeUpdate("UPDATE productos SET nombre = CONCAT(nombre, ' (replica)') WHERE id = 1");
+        }
+        registry.add("catalogo.datasource.replicas.urls", () -> REPLICA);
+    }
+
+    @Test
+    void lecturasEnReplicaEscriturasEnPrimario() throws Exception {
+        mockMvc.perform(get("/productos/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value(endsWith("(replica)")));
+
+        // the write and the read-back of its response run on the primary
+        MvcResult escritura = mockMvc.perform(patch("/productos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"Escrito en primario\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value("Escrito en primario"))
+                .andReturn();
+        Cookie cookie = escritura.getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+
+        // other clients keep reading the (stale) replica
+        mockMvc.perform(get("/productos/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value(endsWith("(replica)")));
+        // the writer reads its own change within the window
+        mockMvc.perform(get("/productos/1").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value("Escrito en primario"));
+    }
+
+    @Test
+    void listasConVersionDeLaReplica() throws Exception {
+        // the version is read from the rows the list shows, in the same transaction, so the
+        // list is served by the replica under a tag that describes the replica data
+        String etag = mockMvc.perform(get("/productos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == 1)].nombre", everyItem(endsWith("(replica)"))))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/productos").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // a change reaching the replica moves the tag
+        try (Connection connection = DriverManager.getConnection(REPLICA, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE productos SET nombre = 'Replicado (replica)', version = version + 1 WHERE id = 2");
+        }
+        mockMvc.perform(get("/productos").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == 2)].nombre", everyItem(endsWith("Replicado (replica)"))));
+    }
+
+    @Test
+    void coleccionesConEtagDelCatalogoDesdeElPrimario() throws Exception {
+        // the read model was loaded at startup, off any request thread
+        mockMvc.perform(get("/productos/categoria/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == 1)].nombre", hasSize(1)))
+                .andExpect(jsonPath("$[?(@.id == 1)].nombre", everyItem(not(endsWith("(replica)")))));
+    }
+}
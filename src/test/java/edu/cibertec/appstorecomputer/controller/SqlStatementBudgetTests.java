@@ -0,0 +1,394 @@
+package edu.cibertec.appstorecomputer.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.cibertec.appstorecomputer.DatosDeEjemploExtension;
+import edu.cibertec.appstorecomputer.config.SqlStatementBudgetFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Locks in the number of SQL statements each controller method runs.
+ * <p>
+ * Runs against the embedded H2 database of the loadtest profile (schema and sample data from
+ * data.sql) with the budget filter in FAIL mode. Every request must return the
+ * {@value SqlStatementBudgetFilter#HEADER} header with at most the number of statements listed
+ * here; an N+1 or an extra round trip makes the test fail. The export endpoint is not listed:
+ * it streams on another thread after the request returns. Every test starts from the sample
+ * data, whatever the others changed.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("loadtest")
+@ExtendWith(DatosDeEjemploExtension.class)
+@TestPropertySource(properties = {
+        "catalogo.sql-budget.mode=FAIL",
+        "catalogo.stock-caliente.flush-interval=PT1H"
+})
+class SqlStatementBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Reads served by the in-memory read model, search index and caches run no SQL at all;
+    // the full lists read their version ahead of the rows
+    @ParameterizedTest(name = "GET {0} <= {1}")
+    @CsvSource({
+            "/productos, 2",
+            "/productos/pagina?page=0&size=5, 2",
+            "/productos/cursor?size=5, 1",
+            "/productos/cursor?size=5&incluirTotal=true, 2",
+            "/productos/activos, 2",
+            "/productos/activos/pagina?page=0&size=5, 2",
+            "/productos/activos/cursor?size=5, 1",
+            "/productos/1, 2",
+            "/productos/codigo/HP-PAV-15, 1",
+            "/productos/categoria/1, 0",
+            "/productos/marca/1, 0",
+            "/productos/categoria/1/marca/1, 0",
+            "/productos/nombre?nombre=Laptop, 1",
+            "/productos/buscar?q=laptop, 0",
+            "/productos/precio?min=100&max=2000, 0",
+            "/productos/precio/pagina?min=100&max=2000&page=0&size=5, 0",
+            "/productos/precio/conteo?min=100&max=2000, 0",
+            "/productos/stock-bajo?stockMinimo=20, 0",
+            "/productos/stock-bajo/pagina?stockMinimo=20&page=0&size=5, 0",
+            "/productos/stock-bajo/conteo?stockMinimo=20, 0",
+            "/productos/disponibles, 0",
+            "/productos/facetas, 0",
+            "/productos/filtro?nombre=Laptop&activo=true, 2",
+            "'/productos/filtro?categoriaId=1&min=100&max=5000&sort=precio,desc&page=0&size=5', 2",
+            "/productos/facetas?categoriaId=1&min=100&max=2000&enStock=true, 0",
+            "/productos/stock/caliente, 0",
+            "/categorias, 1",
+            "/categorias/activas, 1",
+            "/categorias/1, 1",
+            "/categorias/nombre/Laptops, 1",
+            "/marcas, 1",
+            "/marcas/activas, 1",
+            "/marcas/1, 1",
+            "/marcas/nombre/HP, 1",
+            "/marcas/pais/Estados Unidos, 1",
+            "/cache/estadisticas, 0",
+            "/cache/estadisticas/hibernate, 0"
+    })
+    void lecturas(String uri, int maximo) throws Exception {
+        mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(maximo));
+    }
+
+    @Test
+    void createProducto() throws Exception {
+        // exists by codigo, categoria, marca, insert
+        crearProducto("SQL-CREATE", 4);
+    }
+
+    @Test
+    void facetasCoincidenConElFiltro() throws Exception {
+        MvcResult porCategoria = mockMvc.perform(get("/productos/categoria/1")).andReturn();
+        long activos = 0;
+        for (JsonNode producto : objectMapper.readTree(porCategoria.getResponse().getContentAsString())) {
+            activos += producto.get("activo").asBoolean() ? 1 : 0;
+        }
+        MvcResult resultado = mockMvc.perform(get("/productos/facetas?categoriaId=1"))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode facetas = objectMapper.readTree(resultado.getResponse().getContentAsString());
+        assertThat(facetas.get("total").asLong()).isEqualTo(activos);
+        // the categoria facet ignores the categoria condition, so it lists the other categorias too
+        assertThat(facetas.get("categorias").size()).isGreaterThan(1);
+        long porRango = 0;
+        for (JsonNode rango : facetas.get("precios")) {
+            porRango += rango.get("cantidad").asLong();
+        }
+        assertThat(porRango).isEqualTo(activos);
+        assertThat(facetas.get("conStock").asLong() + facetas.get("sinStock").asLong()).isEqualTo(activos);
+    }
+
+    @Test
+    void filtroCombinado() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/productos/filtro?categoriaId=1&stockDesde=1&sort=precio,desc&size=3"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(2))
+                .andReturn();
+        JsonNode contenido = objectMapper.readTree(resultado.getResponse().getContentAsString()).get("content");
+        assertThat(contenido.size()).isPositive();
+        double anterior = Double.MAX_VALUE;
+        for (JsonNode producto : contenido) {
+            assertThat(producto.get("categoriaId").asLong()).isEqualTo(1);
+            assertThat(producto.get("stock").asInt()).isPositive();
+            assertThat(producto.get("precio").asDouble()).isLessThanOrEqualTo(anterior);
+            anterior = producto.get("precio").asDouble();
+        }
+        // sort keys without an index are rejected before any SQL
+        mockMvc.perform(get("/productos/filtro?sort=descripcion"))
+                .andExpect(status().isBadRequest())
+                .andExpect(sentencias(0));
+    }
+
+    @Test
+    void referenciasDesdeCacheDeSegundoNivel() throws Exception {
+        crearProducto("SQL-L2-1", 4);
+        // categoria and marca now come from the second-level cache: exists by codigo, insert
+        crearProducto("SQL-L2-2", 2);
+    }
+
+    @Test
+    void createProductosBatch() throws Exception {
+        // existing codigos, categorias, marcas and the inserts in one JDBC batch
+        String lote = "[" + producto("SQL-BATCH-1") + "," + producto("SQL-BATCH-2") + "]";
+        mockMvc.perform(post("/productos/batch").contentType(MediaType.APPLICATION_JSON).content(lote))
+                .andExpect(status().isCreated())
+                .andExpect(sentencias(5));
+    }
+
+    @Test
+    void updateProducto() throws Exception {
+        // product joined with categoria and marca, update
+        MvcResult actual = mockMvc.perform(get("/productos/3")).andReturn();
+        ObjectNode producto = (ObjectNode) objectMapper.readTree(actual.getResponse().getContentAsString());
+        producto.put("nombre", producto.get("nombre").asText() + " v2");
+        mockMvc.perform(put("/productos/3").contentType(MediaType.APPLICATION_JSON).content(producto.toString()))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(2));
+    }
+
+    @Test
+    void patchProducto() throws Exception {
+        // targeted update, product read back for the response and the read model
+        mockMvc.perform(patch("/productos/7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"precio\": 123.45, \"activo\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(2));
+        // no SELECTs up front: the failed update, then one lookup to name the violated field
+        mockMvc.perform(patch("/productos/7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoriaId\": 999999}"))
+                .andExpect(status().isNotFound())
+                .andExpect(sentencias(2));
+        mockMvc.perform(patch("/productos/7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"codigo\": \"HP-PAV-15\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(sentencias(2));
+        // update of no row, version lookup
+        mockMvc.perform(patch("/productos/999999").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"activo\": false}"))
+                .andExpect(status().isNotFound())
+                .andExpect(sentencias(2));
+    }
+
+    @Test
+    void deleteProducto() throws Exception {
+        long id = crearProducto("SQL-DELETE", 4).get("id").asLong();
+        // find, delete
+        mockMvc.perform(delete("/productos/" + id))
+                .andExpect(status().isNoContent())
+                .andExpect(sentencias(2));
+    }
+
+    @Test
+    void movimientosDeStock() throws Exception {
+        // conditional update and the stock read back, per product
+        mockMvc.perform(post("/productos/4/stock/reponer?cantidad=2"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(2));
+        mockMvc.perform(post("/productos/4/stock/descontar?cantidad=1"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(2));
+
+        String carrito = """
+                {"lineas": [{"productoId": 4, "cantidad": 1}, {"productoId": 6, "cantidad": 1}]}
+                """;
+        mockMvc.perform(post("/productos/stock/liberar").contentType(MediaType.APPLICATION_JSON).content(carrito))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(4));
+        mockMvc.perform(post("/productos/stock/reservar").contentType(MediaType.APPLICATION_JSON).content(carrito))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(4));
+    }
+
+    @Test
+    void stockCaliente() throws Exception {
+        // locked stock read, registration lookup, merge and insert
+        mockMvc.perform(post("/productos/5/stock/caliente"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(4));
+        // the counter is updated in memory; only the movement is appended, the row is not locked
+        mockMvc.perform(post("/productos/5/stock/descontar?cantidad=1"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(1));
+        // last batch (movements read and deleted, batch count and stock updates, version read back
+        // for the catalog event), registration lookup and update
+        mockMvc.perform(delete("/productos/5/stock/caliente"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(7));
+    }
+
+    @Test
+    void importarProductos() throws Exception {
+        // The upload is spooled and the rows are imported on the import executor
+        MockMultipartFile archivo = new MockMultipartFile("archivo", "productos.csv", "text/csv",
+                ("nombre,precio,stock,codigo,categoriaId,marcaId\n"
+                        + "Mouse importado,25.50,10,SQL-IMPORT-1,4,1\n").getBytes(StandardCharsets.UTF_8));
+        MvcResult resultado = mockMvc.perform(multipart("/productos/importar").file(archivo))
+                .andExpect(status().isAccepted())
+                .andExpect(sentencias(0))
+                .andReturn();
+        String id = objectMapper.readTree(resultado.getResponse().getContentAsString()).get("id").asText();
+        mockMvc.perform(get("/productos/importar/" + id))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(0));
+    }
+
+    @Test
+    void categorias() throws Exception {
+        // exists by nombre, insert
+        MvcResult creada = mockMvc.perform(post("/categorias").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"SQL Categoria\", \"descripcion\": \"Prueba\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(sentencias(2))
+                .andReturn();
+        long id = objectMapper.readTree(creada.getResponse().getContentAsString()).get("id").asLong();
+        // find, exists by the new nombre, update
+        mockMvc.perform(put("/categorias/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"SQL Categoria 2\", \"descripcion\": \"Prueba\", \"activo\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(3));
+        // find, products check, product collection cascade, delete
+        mockMvc.perform(delete("/categorias/" + id))
+                .andExpect(status().isNoContent())
+                .andExpect(sentencias(4));
+    }
+
+    @Test
+    void marcas() throws Exception {
+        MvcResult creada = mockMvc.perform(post("/marcas").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"SQL Marca\", \"paisOrigen\": \"Perú\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(sentencias(2))
+                .andReturn();
+        long id = objectMapper.readTree(creada.getResponse().getContentAsString()).get("id").asLong();
+        mockMvc.perform(put("/marcas/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"SQL Marca 2\", \"paisOrigen\": \"Perú\", \"activo\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(3));
+        mockMvc.perform(delete("/marcas/" + id))
+                .andExpect(status().isNoContent())
+                .andExpect(sentencias(4));
+    }
+
+    @Test
+    void actualizacionCondicional() throws Exception {
+        MvcResult creada = mockMvc.perform(post("/categorias").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"SQL If-Match\", \"descripcion\": \"Prueba\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(creada.getResponse().getContentAsString()).get("id").asLong();
+        String etag = mockMvc.perform(get("/categorias/" + id)).andReturn().getResponse().getHeader("ETag");
+        String cambio = "{\"nombre\": \"SQL If-Match 2\", \"descripcion\": \"Prueba\", \"activo\": true}";
+
+        // find, exists by the new nombre, versioned update
+        String nueva = mockMvc.perform(put("/categorias/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .header("If-Match", etag).content(cambio))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(3))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(nueva).isNotNull().isNotEqualTo(etag);
+        // A stale ETag is rejected after the lookup, before any write
+        mockMvc.perform(put("/categorias/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .header("If-Match", etag).content(cambio))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(sentencias(1));
+    }
+
+    @Test
+    void activacionDeMarca() throws Exception {
+        // marca by primary key, its products by foreign key, then the read model and search index reload
+        MvcResult resultado = mockMvc.perform(post("/marcas/10/desactivar"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(6))
+                .andReturn();
+        assertThat(objectMapper.readTree(resultado.getResponse().getContentAsString())
+                .get("productosActualizados").asInt()).isPositive();
+        mockMvc.perform(post("/marcas/10/activar"))
+                .andExpect(status().isOk())
+                .andExpect(sentencias(6));
+        // an unknown id stops after the first update
+        mockMvc.perform(post("/categorias/999999/desactivar"))
+                .andExpect(status().isNotFound())
+                .andExpect(sentencias(1));
+    }
+
+    @Test
+    void deleteMarcaConProductos() throws Exception {
+        // find, products check, soft delete; the product collection is never loaded
+        mockMvc.perform(delete("/marcas/10"))
+                .andExpect(status().isNoContent())
+                .andExpect(sentencias(3));
+    }
+
+    @Test
+    void lecturasCondicionales() throws Exception {
+        // A matching ETag costs the version lookup only, and nothing for cached or versioned lists
+        for (String uri : new String[]{"/productos/2", "/productos", "/productos/categoria/1", "/categorias/1", "/marcas"}) {
+            String etag = mockMvc.perform(get(uri))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(etag).as("ETag of %s", uri).isNotNull();
+            mockMvc.perform(get(uri).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(sentencias(uri.equals("/productos/2") || uri.equals("/productos") ? 1 : 0));
+        }
+    }
+
+    private JsonNode crearProducto(String codigo, int maximo) throws Exception {
+        MvcResult resultado = mockMvc.perform(post("/productos").contentType(MediaType.APPLICATION_JSON)
+                        .content(producto(codigo)))
+                .andExpect(status().isCreated())
+                .andExpect(sentencias(maximo))
+                .andReturn();
+        return objectMapper.readTree(resultado.getResponse().getContentAsString());
+    }
+
+    private static String producto(String codigo) {
+        return """
+                {"nombre": "Producto %1$s", "precio": 99.90, "stock": 5, "codigo": "%1$s",
+                 "categoriaId": 4, "marcaId": 1}
+                """.formatted(codigo);
+    }
+
+    private static ResultMatcher sentencias(int maximo) {
+        return result -> {
+            String cabecera = result.getResponse().getHeader(SqlStatementBudgetFilter.HEADER);
+            assertThat(cabecera).as("%s header", SqlStatementBudgetFilter.HEADER).isNotNull();
+            assertThat(Integer.parseInt(cabecera)).as("SQL statements").isLessThanOrEqualTo(maximo);
+        };
+    }
+}
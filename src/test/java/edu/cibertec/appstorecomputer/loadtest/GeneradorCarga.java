@@ -0,0 +1,110 @@
+package edu.cibertec.appstorecomputer.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load generator: every client is a virtual thread that picks an operation
+ * of the mix by weight, sends it, waits for the answer and sends the next one.
+ * <p>
+ * 2xx, 404 and 409 answers count as successes (missing ids and stock conflicts are normal
+ * outcomes of a random mix); anything else, including I/O errors and timeouts, is an error.
+ */
+final class GeneradorCarga {
+
+    private final HttpClient client;
+    private final List<Operacion> operaciones;
+    private final int[] pesosAcumulados;
+
+    GeneradorCarga(List<Operacion> operaciones) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.operaciones = List.copyOf(operaciones);
+        this.pesosAcumulados = new int[operaciones.size()];
+        int total = 0;
+        for (int i = 0; i < operaciones.size(); i++) {
+            total += operaciones.get(i).peso();
+            pesosAcumulados[i] = total;
+        }
+    }
+
+    List<Operacion> operaciones() {
+        return operaciones;
+    }
+
+    /**
+     * Run the mix and discard the measurements
+     */
+    void calentar(int clientes, Duration duracion) throws InterruptedException {
+        ejecutar(clientes, duracion, null);
+    }
+
+    /**
+     * Run the mix and return the latencies of every operation
+     */
+    ResultadosCarga medir(int clientes, Duration duracion) throws InterruptedException {
+        ResultadosCarga resultados = new ResultadosCarga(operaciones, duracion);
+        ejecutar(clientes, duracion, resultados);
+        return resultados;
+    }
+
+    private void ejecutar(int clientes, Duration duracion, ResultadosCarga resultados) throws InterruptedException {
+        if (pesosAcumulados.length == 0 || pesosAcumulados[pesosAcumulados.length - 1] == 0) {
+            return;
+        }
+        long fin = System.nanoTime() + duracion.toNanos();
+        CountDownLatch terminados = new CountDownLatch(clientes);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                executor.submit(() -> {
+                    ResultadosCarga.Muestras muestras = new ResultadosCarga.Muestras(operaciones.size());
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        while (System.nanoTime() < fin) {
+                            int operacion = elegir(random);
+                            HttpRequest request = operaciones.get(operacion).request().apply(random);
+                            long inicio = System.nanoTime();
+                            boolean ok;
+                            try {
+                                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                                ok = status < 300 || status == 404 || status == 409;
+                            } catch (IOException ex) {
+                                ok = false;
+                            }
+                            muestras.registrar(operacion, System.nanoTime() - inicio, ok);
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        if (resultados != null) {
+                            resultados.agregar(muestras);
+                        }
+                        terminados.countDown();
+                    }
+                });
+            }
+            terminados.await();
+        }
+    }
+
+    private int elegir(ThreadLocalRandom random) {
+        int valor = random.nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (valor < pesosAcumulados[i]) {
+                return i;
+            }
+        }
+        return pesosAcumulados.length - 1;
+    }
+}
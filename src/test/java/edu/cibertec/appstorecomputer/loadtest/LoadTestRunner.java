@@ -0,0 +1,281 @@
+package edu.cibertec.appstorecomputer.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cibertec.appstorecomputer.AppstorecomputerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Self-contained load test: starts the application in-process on a random port against an
+ * in-memory H2 database in MySQL mode (profile {@code loadtest}, schema and sample data from
+ * data.sql), seeds extra products through the batch endpoint and drives a read/write mix over
+ * /productos, /categorias and /marcas with {@link GeneradorCarga}.
+ * <p>
+ * Results are printed, appended to {@code <salida>/resultados.csv} and written as a Markdown
+ * report to {@code <salida>/<etiqueta>.md}. The label defaults to the short hash of the current
+ * commit, so running it on two commits gives two comparable rows per operation.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--clientes=200 --escrituras=20 --duracion=PT60S"
+ * </pre>
+ * Options: {@code --productos} (seeded products), {@code --clientes}, {@code --calentamiento},
+ * {@code --duracion}, {@code --escrituras} (percentage of writes), {@code --perfiles} (extra
+ * Spring profiles, e.g. {@code virtual}), {@code --etiqueta} and {@code --salida}.
+ */
+public class LoadTestRunner {
+
+    private static final int TAMANO_LOTE = 1000;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = ProductoReadBenchmark.parsear(args);
+        int productos = Integer.parseInt(opciones.getOrDefault("productos", "5000"));
+        int clientes = Integer.parseInt(opciones.getOrDefault("clientes", "100"));
+        Duration calentamiento = Duration.parse(opciones.getOrDefault("calentamiento", "PT10S"));
+        Duration duracion = Duration.parse(opciones.getOrDefault("duracion", "PT30S"));
+        int escrituras = Integer.parseInt(opciones.getOrDefault("escrituras", "10"));
+        String perfiles = opciones.getOrDefault("perfiles", "");
+        String etiqueta = opciones.getOrDefault("etiqueta", commitActual());
+        Path salida = Path.of(opciones.getOrDefault("salida", "target/loadtest"));
+        if (escrituras < 0 || escrituras > 100) {
+            throw new IllegalArgumentException("--escrituras must be between 0 and 100");
+        }
+
+        List<String> activos = new ArrayList<>(List.of("loadtest"));
+        for (String perfil : perfiles.split(",")) {
+            if (!perfil.isBlank()) {
+                activos.add(perfil.trim());
+            }
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AppstorecomputerApplication.class)
+                .profiles(activos.toArray(String[]::new))
+                .run("--server.port=0");
+        try {
+            int puerto = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String url = "http://localhost:" + puerto
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+            HttpClient client = HttpClient.newHttpClient();
+
+            Catalogo catalogo = Catalogo.cargar(client, url);
+            catalogo.sembrar(client, url, productos);
+            System.out.printf("Load test '%s': %d products, %d clients, %d%% writes, profiles %s (warm-up %s, measure %s)%n",
+                    etiqueta, catalogo.productoIds.size(), clientes, escrituras, activos, calentamiento, duracion);
+
+            GeneradorCarga generador = new GeneradorCarga(mezcla(url, catalogo, escrituras));
+            generador.calentar(clientes, calentamiento);
+            ResultadosCarga resultados = generador.medir(clientes, duracion);
+
+            String tabla = resultados.tabla(etiqueta);
+            System.out.println(tabla);
+            resultados.escribirCsv(salida.resolve("resultados.csv"), etiqueta);
+            Files.writeString(salida.resolve(etiqueta + ".md"), String.format(
+                    "# Load test %s%n%n- Fecha: %s%n- Productos: %d%n- Clientes: %d%n- Escrituras: %d%%%n"
+                            + "- Perfiles: %s%n- Calentamiento: %s%n- Medición: %s%n%n%s",
+                    etiqueta, LocalDateTime.now(), catalogo.productoIds.size(), clientes, escrituras,
+                    String.join(",", activos), calentamiento, duracion, tabla), StandardCharsets.UTF_8);
+            System.out.printf("Report written to %s%n", salida.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Reads and writes weighted so that writes are {@code escrituras} percent of all requests
+     */
+    private static List<Operacion> mezcla(String url, Catalogo catalogo, int escrituras) {
+        AtomicLong secuencia = new AtomicLong();
+        String prefijo = "LT-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+        List<Operacion> lecturas = List.of(
+                new Operacion("GET /productos/{id}", 1, random -> get(url
+                        + "/productos/" + catalogo.productoAleatorio(random))),
+                new Operacion("GET /productos/pagina", 1, random -> get(url
+                        + "/productos/pagina?page=" + random.nextInt(10) + "&size=20")),
+                new Operacion("GET /productos/activos/cursor", 1, random -> get(url
+                        + "/productos/activos/cursor?size=20")),
+                new Operacion("GET /productos/categoria/{id}", 1, random -> get(url
+                        + "/productos/categoria/" + catalogo.categoriaAleatoria(random))),
+                new Operacion("GET /productos/buscar", 1, random -> get(url
+                        + "/productos/buscar?q=laptop&page=0&size=20")),
+                new Operacion("GET /categorias", 1, random -> get(url + "/categorias")),
+                new Operacion("GET /categorias/{id}", 1, random -> get(url
+                        + "/categorias/" + catalogo.categoriaAleatoria(random))),
+                new Operacion("GET /marcas/activas", 1, random -> get(url + "/marcas/activas")),
+                new Operacion("GET /marcas/{id}", 1, random -> get(url
+                        + "/marcas/" + catalogo.marcaAleatoria(random))));
+
+        List<Operacion> escrituraOps = List.of(
+                new Operacion("POST /productos", 1, random -> send(url + "/productos", "POST",
+                        catalogo.producto(random, prefijo + secuencia.incrementAndGet()))),
+                new Operacion("PUT /productos/{id}", 1, random -> {
+                    int indice = random.nextInt(catalogo.productoIds.size());
+                    return send(url + "/productos/" + catalogo.productoIds.get(indice), "PUT",
+                            catalogo.producto(random, catalogo.productoCodigos.get(indice)));
+                }),
+                new Operacion("POST /productos/{id}/stock/descontar", 1, random -> send(url + "/productos/"
+                        + catalogo.productoAleatorio(random) + "/stock/descontar?cantidad=1", "POST", null)),
+                new Operacion("POST /productos/{id}/stock/reponer", 1, random -> send(url + "/productos/"
+                        + catalogo.productoAleatorio(random) + "/stock/reponer?cantidad=1", "POST", null)),
+                new Operacion("PUT /categorias/{id}", 1, random -> {
+                    JsonNode categoria = catalogo.categorias.get(random.nextInt(catalogo.categorias.size()));
+                    return send(url + "/categorias/" + categoria.get("id").asLong(), "PUT", categoria.toString());
+                }));
+
+        List<Operacion> mezcla = new ArrayList<>();
+        for (Operacion lectura : lecturas) {
+            mezcla.add(new Operacion(lectura.nombre(), (100 - escrituras) * escrituraOps.size(), lectura.request()));
+        }
+        for (Operacion escritura : escrituraOps) {
+            mezcla.add(new Operacion(escritura.nombre(), escrituras * lecturas.size(), escritura.request()));
+        }
+        return mezcla;
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT).GET().build();
+    }
+
+    private static HttpRequest send(String url, String metodo, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(metodo, json == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static String commitActual() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String hash = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 && !hash.isEmpty() ? hash : "local";
+        } catch (IOException ex) {
+            return "local";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "local";
+        }
+    }
+
+    /**
+     * Ids the mix draws from: categories and brands of data.sql and every product in the database
+     */
+    private static final class Catalogo {
+
+        private static final String[] TIPOS = {"Laptop", "Desktop", "Monitor", "Teclado", "Mouse", "Impresora"};
+
+        private final List<JsonNode> categorias;
+        private final List<Long> marcaIds;
+        private final List<Long> productoIds = new ArrayList<>();
+        private final List<String> productoCodigos = new ArrayList<>();
+
+        private Catalogo(List<JsonNode> categorias, List<Long> marcaIds) {
+            this.categorias = categorias;
+            this.marcaIds = marcaIds;
+        }
+
+        static Catalogo cargar(HttpClient client, String url) throws IOException, InterruptedException {
+            List<JsonNode> categorias = new ArrayList<>();
+            leer(client, get(url + "/categorias")).forEach(categorias::add);
+            List<Long> marcaIds = new ArrayList<>();
+            leer(client, get(url + "/marcas")).forEach(marca -> marcaIds.add(marca.get("id").asLong()));
+            Catalogo catalogo = new Catalogo(categorias, marcaIds);
+            for (JsonNode producto : leer(client, get(url + "/productos"))) {
+                catalogo.agregar(producto);
+            }
+            return catalogo;
+        }
+
+        /**
+         * Create products through POST /productos/batch until the catalog has {@code total} of them
+         */
+        void sembrar(HttpClient client, String url, int total) throws IOException, InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int secuencia = 0;
+            while (productoIds.size() < total) {
+                int lote = Math.min(TAMANO_LOTE, total - productoIds.size());
+                StringBuilder json = new StringBuilder("[");
+                for (int i = 0; i < lote; i++) {
+                    json.append(i == 0 ? "" : ",").append(producto(random, "LT-SEED-" + ++secuencia));
+                }
+                JsonNode resultado = leer(client, send(url + "/productos/batch", "POST", json.append(']').toString()));
+                for (JsonNode item : resultado.get("resultados")) {
+                    if (item.hasNonNull("producto")) {
+                        agregar(item.get("producto"));
+                    }
+                }
+                if (resultado.get("creados").asInt() == 0) {
+                    throw new IllegalStateException("Seeding created no products: " + resultado);
+                }
+            }
+        }
+
+        String producto(ThreadLocalRandom random, String codigo) {
+            String tipo = TIPOS[random.nextInt(TIPOS.length)];
+            Map<String, Object> producto = new LinkedHashMap<>();
+            producto.put("nombre", tipo + " carga " + codigo);
+            producto.put("descripcion", tipo + " generado por la prueba de carga");
+            producto.put("precio", BigDecimal.valueOf(random.nextDouble(50, 5000)).setScale(2, RoundingMode.HALF_UP));
+            producto.put("stock", random.nextInt(0, 500));
+            producto.put("codigo", codigo);
+            producto.put("activo", true);
+            producto.put("categoriaId", categoriaAleatoria(random));
+            producto.put("marcaId", marcaAleatoria(random));
+            try {
+                return MAPPER.writeValueAsString(producto);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        long productoAleatorio(ThreadLocalRandom random) {
+            return productoIds.get(random.nextInt(productoIds.size()));
+        }
+
+        long categoriaAleatoria(ThreadLocalRandom random) {
+            return categorias.get(random.nextInt(categorias.size())).get("id").asLong();
+        }
+
+        long marcaAleatoria(ThreadLocalRandom random) {
+            return marcaIds.get(random.nextInt(marcaIds.size()));
+        }
+
+        private void agregar(JsonNode producto) {
+            productoIds.add(producto.get("id").asLong());
+            productoCodigos.add(producto.get("codigo").asText());
+        }
+
+        private static JsonNode leer(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (response.statusCode() >= 300 && response.statusCode() != 207) {
+                throw new IllegalStateException(request.method() + " " + request.uri()
+                        + " answered " + response.statusCode() + ": " + response.body());
+            }
+            return MAPPER.readTree(response.body());
+        }
+    }
+}
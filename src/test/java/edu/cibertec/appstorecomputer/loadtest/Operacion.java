@@ -0,0 +1,11 @@
+package edu.cibertec.appstorecomputer.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * One kind of request of a load mix; {@code peso} is its relative frequency
+ */
+record Operacion(String nombre, int peso, Function<ThreadLocalRandom, HttpRequest> request) {
+}
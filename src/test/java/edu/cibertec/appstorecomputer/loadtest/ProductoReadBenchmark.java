@@ -0,0 +1,76 @@
+package edu.cibertec.appstorecomputer.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Closed-loop load generator for the read endpoints of ProductoController.
+ * <p>
+ * Start the application in the mode to measure (default platform threads, or with
+ * {@code --spring.profiles.active=virtual}) and run this class against it; every client is a
+ * virtual thread that sends a request, waits for the answer and sends the next one. After a
+ * warm-up it prints throughput and latency percentiles per endpoint, and appends the same
+ * rows to a CSV file when {@code --salida} is given so runs in both modes can be compared.
+ * <pre>
+ * java -cp target/test-classes edu.cibertec.appstorecomputer.loadtest.ProductoReadBenchmark \
+ *     --url=http://localhost:8080/api/v1 --etiqueta=virtual --clientes=400 --duracion=PT60S --salida=benchmark.csv
+ * </pre>
+ */
+public class ProductoReadBenchmark {
+
+    private static final List<String> ENDPOINTS = List.of(
+            "/productos/{id}",
+            "/productos/pagina?page=0&size=20",
+            "/productos/activos/cursor?size=20",
+            "/productos/categoria/1",
+            "/productos/precio/pagina?min=100&max=2000&page=0&size=20",
+            "/productos/stock-bajo/conteo?stockMinimo=10",
+            "/productos/buscar?q=laptop&page=0&size=20",
+            "/productos/disponibles");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = parsear(args);
+        String url = opciones.getOrDefault("url", "http://localhost:8080/api/v1");
+        String etiqueta = opciones.getOrDefault("etiqueta", "sin-etiqueta");
+        int clientes = Integer.parseInt(opciones.getOrDefault("clientes", "200"));
+        Duration calentamiento = Duration.parse(opciones.getOrDefault("calentamiento", "PT10S"));
+        Duration duracion = Duration.parse(opciones.getOrDefault("duracion", "PT30S"));
+        int maxId = Integer.parseInt(opciones.getOrDefault("max-id", "20"));
+        String salida = opciones.get("salida");
+
+        List<Operacion> operaciones = ENDPOINTS.stream()
+                .map(ruta -> new Operacion(ruta, 1, random -> HttpRequest.newBuilder(URI.create(url
+                                + ruta.replace("{id}", String.valueOf(random.nextInt(1, maxId + 1)))))
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build()))
+                .toList();
+        GeneradorCarga generador = new GeneradorCarga(operaciones);
+
+        System.out.printf("Benchmark '%s': %d clients against %s (warm-up %s, measure %s)%n",
+                etiqueta, clientes, url, calentamiento, duracion);
+        generador.calentar(clientes, calentamiento);
+        ResultadosCarga resultados = generador.medir(clientes, duracion);
+
+        System.out.println(resultados.tabla(etiqueta));
+        if (salida != null) {
+            resultados.escribirCsv(Path.of(salida), etiqueta);
+        }
+    }
+
+    static Map<String, String> parsear(String[] args) {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int igual = arg.indexOf('=');
+                opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+            }
+        }
+        return opciones;
+    }
+}
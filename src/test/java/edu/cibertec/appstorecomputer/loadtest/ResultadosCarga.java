@@ -0,0 +1,154 @@
+package edu.cibertec.appstorecomputer.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Latencies of a load run, merged from all clients, and the reports built from them
+ */
+final class ResultadosCarga {
+
+    static final String CABECERA_CSV = "etiqueta,operacion,peticiones,errores,req_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    private final List<Operacion> operaciones;
+    private final Duration duracion;
+    private final List<List<long[]>> porOperacion = new ArrayList<>();
+    private final int[] errores;
+
+    ResultadosCarga(List<Operacion> operaciones, Duration duracion) {
+        this.operaciones = operaciones;
+        this.duracion = duracion;
+        for (int i = 0; i < operaciones.size(); i++) {
+            porOperacion.add(new ArrayList<>());
+        }
+        this.errores = new int[operaciones.size()];
+    }
+
+    synchronized void agregar(Muestras muestras) {
+        for (int i = 0; i < errores.length; i++) {
+            porOperacion.get(i).add(Arrays.copyOf(muestras.latencias[i], muestras.cuenta[i]));
+            errores[i] += muestras.errores[i];
+        }
+    }
+
+    /**
+     * One line per operation plus a TOTAL line
+     */
+    synchronized List<Fila> filas() {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        List<Fila> filas = new ArrayList<>();
+        List<long[]> todas = new ArrayList<>();
+        int erroresTotales = 0;
+        for (int i = 0; i < errores.length; i++) {
+            long[] latencias = unir(porOperacion.get(i));
+            todas.add(latencias);
+            erroresTotales += errores[i];
+            filas.add(Fila.of(operaciones.get(i).nombre(), latencias, errores[i], segundos));
+        }
+        filas.add(Fila.of("TOTAL", unir(todas), erroresTotales, segundos));
+        return filas;
+    }
+
+    /**
+     * Append the rows to a CSV file, writing the header if the file is new
+     */
+    void escribirCsv(Path archivo, String etiqueta) throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        if (Files.notExists(archivo)) {
+            Files.writeString(archivo, CABECERA_CSV + System.lineSeparator(), StandardCharsets.UTF_8);
+        }
+        List<String> lineas = filas().stream().map(fila -> fila.csv(etiqueta)).toList();
+        Files.write(archivo, lineas, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Human-readable table of the rows
+     */
+    String tabla(String etiqueta) {
+        StringBuilder tabla = new StringBuilder();
+        tabla.append("## ").append(etiqueta).append(System.lineSeparator()).append(System.lineSeparator());
+        tabla.append("| Operación | Peticiones | Errores | req/s | p50 ms | p90 ms | p99 ms | p99.9 ms | max ms |")
+                .append(System.lineSeparator());
+        tabla.append("|---|---:|---:|---:|---:|---:|---:|---:|---:|").append(System.lineSeparator());
+        for (Fila fila : filas()) {
+            tabla.append(String.format(Locale.ROOT, "| %s | %d | %d | %.1f | %.2f | %.2f | %.2f | %.2f | %.2f |",
+                    fila.operacion(), fila.peticiones(), fila.errores(), fila.reqPorSegundo(),
+                    fila.p50(), fila.p90(), fila.p99(), fila.p999(), fila.max())).append(System.lineSeparator());
+        }
+        return tabla.toString();
+    }
+
+    private static long[] unir(List<long[]> partes) {
+        long[] todas = new long[partes.stream().mapToInt(parte -> parte.length).sum()];
+        int posicion = 0;
+        for (long[] parte : partes) {
+            System.arraycopy(parte, 0, todas, posicion, parte.length);
+            posicion += parte.length;
+        }
+        return todas;
+    }
+
+    /**
+     * Summary of one operation; latencies in milliseconds
+     */
+    record Fila(String operacion, int peticiones, int errores, double reqPorSegundo,
+                double p50, double p90, double p99, double p999, double max) {
+
+        static Fila of(String operacion, long[] latencias, int errores, double segundos) {
+            Arrays.sort(latencias);
+            return new Fila(operacion, latencias.length, errores, latencias.length / segundos,
+                    percentil(latencias, 0.50), percentil(latencias, 0.90), percentil(latencias, 0.99),
+                    percentil(latencias, 0.999), latencias.length == 0 ? 0.0 : latencias[latencias.length - 1] / 1_000_000.0);
+        }
+
+        String csv(String etiqueta) {
+            return String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f", etiqueta,
+                    operacion.replace(',', ';'), peticiones, errores, reqPorSegundo, p50, p90, p99, p999, max);
+        }
+
+        private static double percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0.0;
+            }
+            int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, indice)] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Latencies of one client, per operation; successful requests only
+     */
+    static final class Muestras {
+
+        private final long[][] latencias;
+        private final int[] cuenta;
+        private final int[] errores;
+
+        Muestras(int operaciones) {
+            latencias = new long[operaciones][1024];
+            cuenta = new int[operaciones];
+            errores = new int[operaciones];
+        }
+
+        void registrar(int operacion, long nanos, boolean ok) {
+            if (!ok) {
+                errores[operacion]++;
+                return;
+            }
+            if (cuenta[operacion] == latencias[operacion].length) {
+                latencias[operacion] = Arrays.copyOf(latencias[operacion], cuenta[operacion] * 2);
+            }
+            latencias[operacion][cuenta[operacion]++] = nanos;
+        }
+    }
+}
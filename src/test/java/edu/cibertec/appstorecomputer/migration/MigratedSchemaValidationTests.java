@@ -0,0 +1,78 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import edu.cibertec.appstorecomputer.model.Producto;
+import edu.cibertec.appstorecomputer.repository.CategoriaRepository;
+import edu.cibertec.appstorecomputer.repository.MarcaRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The application started on a database with the schema as first shipped: Flyway upgrades it
+ * before Hibernate validates the mappings, and new products take ids from the seeded generator.
+ */
+@SpringBootTest
+@ActiveProfiles("loadtest")
+@TestPropertySource(properties = {
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=true"
+})
+class MigratedSchemaValidationTests {
+
+    private static final String URL =
+            "jdbc:h2:mem:esquema-inicial;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private MarcaRepository marcaRepository;
+
+    @DynamicPropertySource
+    static void esquemaInicial(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:esquema-inicial.sql' CHARSET 'UTF-8'");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Test
+    void validaElEsquemaMigrado() {
+        assertThat(productoRepository.count()).isPositive();
+        assertThat(productoRepository.findAll()).allSatisfy(producto ->
+                assertThat(producto.getVersion()).isZero());
+    }
+
+    @Test
+    void asignaIdsDespuesDeLosExistentes() {
+        long maxId = productoRepository.findAll().stream().mapToLong(Producto::getId).max().orElseThrow();
+
+        Producto producto = productoRepository.save(Producto.builder()
+                .nombre("Producto migrado")
+                .precio(new BigDecimal("10.00"))
+                .stock(1)
+                .codigo("MIG-001")
+                .categoria(categoriaRepository.findById(1L).orElseThrow())
+                .marca(marcaRepository.findById(1L).orElseThrow())
+                .build());
+
+        assertThat(producto.getId()).isGreaterThan(maxId);
+    }
+}
@@ -0,0 +1,130 @@
+package edu.cibertec.appstorecomputer.migration;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flyway over embedded H2 databases in MySQL mode: one with the schema as first shipped,
+ * which must be brought up to date, and one created from the current data.sql, where every
+ * step must find its change already in place.
+ */
+class SchemaMigrationTests {
+
+    private static final String URL =
+            "jdbc:h2:mem:migracion;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    @AfterEach
+    void dropDatabase() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    void actualizaElEsquemaInicial() throws SQLException {
+        runScript("esquema-inicial.sql");
+
+        MigrateResult result = migrate();
+
+        assertThat(result.success).isTrue();
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            for (String table : new String[]{"categorias", "marcas", "productos"}) {
+                assertThat(hasColumn(connection, table, "version")).as(table).isTrue();
+                assertThat(hasColumn(connection, table, "fecha_modificacion")).as(table).isTrue();
+            }
+            assertThat(hasIndex(connection, "productos", "idx_productos_precio")).isTrue();
+            for (String index : new String[]{"idx_productos_stock", "idx_productos_nombre",
+                    "idx_productos_categoria_precio", "idx_productos_marca_precio"}) {
+                assertThat(hasIndex(connection, "productos", index)).as(index).isTrue();
+            }
+            assertThat(siguienteId(connection, "productos")).isEqualTo(maxId(connection) + 100);
+            assertThat(hasColumn(connection, "productos_stock_caliente", "ultimo_lote")).isTrue();
+            assertThat(hasIndex(connection, "productos_stock_movimientos", "idx_stock_movimientos_producto")).isTrue();
+        }
+        // the baseline is version 0, so a second run has nothing left to do
+        assertThat(migrate().migrationsExecuted).isZero();
+    }
+
+    @Test
+    void noCambiaElEsquemaActual() throws SQLException {
+        runScript("data.sql");
+        List<String> before = schema();
+
+        MigrateResult result = migrate();
+
+        assertThat(result.success).isTrue();
+        assertThat(result.migrationsExecuted).isPositive();
+        assertThat(schema()).isEqualTo(before);
+    }
+
+    private MigrateResult migrate() {
+        return Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:edu/cibertec/appstorecomputer/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    // DDL of the application tables, without the Flyway history
+    private List<String> schema() throws SQLException {
+        List<String> ddl = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet script = statement.executeQuery("SCRIPT NODATA")) {
+            while (script.next()) {
+                String sql = script.getString(1);
+                if (!sql.contains("flyway_schema_history")) {
+                    ddl.add(sql);
+                }
+            }
+        }
+        return ddl;
+    }
+
+    private void runScript(String script) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:" + script + "' CHARSET 'UTF-8'");
+        }
+    }
+
+    private static long siguienteId(Connection connection, String entidad) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery(
+                     "SELECT siguiente_id FROM id_generadores WHERE entidad = '" + entidad + "'")) {
+            assertThat(row.next()).as(entidad).isTrue();
+            return row.getLong(1);
+        }
+    }
+
+    private static long maxId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery("SELECT MAX(id) FROM productos")) {
+            row.next();
+            return row.getLong(1);
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        return SchemaMetadata.hasColumn(connection, SchemaMetadata.table(connection, table).orElseThrow(), column);
+    }
+
+    private static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        return SchemaMetadata.hasIndex(connection, SchemaMetadata.table(connection, table).orElseThrow(), index);
+    }
+}
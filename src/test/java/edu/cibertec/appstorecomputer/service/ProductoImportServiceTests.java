@@ -0,0 +1,160 @@
+package edu.cibertec.appstorecomputer.service;
+
+import edu.cibertec.appstorecomputer.DatosDeEjemploExtension;
+import edu.cibertec.appstorecomputer.config.CatalogoRecargaConfig;
+import edu.cibertec.appstorecomputer.config.ImportacionConfig;
+import edu.cibertec.appstorecomputer.dto.ImportacionDTO;
+import edu.cibertec.appstorecomputer.dto.ProductoDTO;
+import edu.cibertec.appstorecomputer.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CSV import against the embedded database: rows are created or updated by codigo, bad rows
+ * are reported by line without stopping the import, and the read side sees the result.
+ */
+@SpringBootTest
+@ActiveProfiles("loadtest")
+@ExtendWith(DatosDeEjemploExtension.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:importacion;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "catalogo.stock-caliente.flush-interval=PT1H"
+})
+class ProductoImportServiceTests {
+
+    private static final String CABECERA = "nombre,descripcion,precio,stock,codigo,categoriaId,marcaId\n";
+
+    @Autowired
+    private ProductoImportService productoImportService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private StockCalienteService stockCalienteService;
+
+    @Autowired
+    @Qualifier(ImportacionConfig.IMPORTACION_EXECUTOR)
+    private ThreadPoolTaskExecutor importacionExecutor;
+
+    @Autowired
+    @Qualifier(CatalogoRecargaConfig.RECARGA_EXECUTOR)
+    private ThreadPoolTaskExecutor recargaExecutor;
+
+    @Test
+    void creaYActualizaPorCodigo() throws Exception {
+        ImportacionDTO resultado = importar(CABECERA
+                + "Teclado mecánico,Switches rojos,149.90,40,IMP-TEC-1,4,10\n"
+                + "HP Pavilion 15,Renovado,799.99,25,HP-PAV-15,1,1\n");
+
+        assertThat(resultado.estado()).isEqualTo(ImportacionDTO.COMPLETADO);
+        assertThat(resultado.creados()).isEqualTo(1);
+        assertThat(resultado.actualizados()).isEqualTo(1);
+        assertThat(resultado.fallidos()).isZero();
+        ProductoDTO actualizado = productoService.findByCodigo("HP-PAV-15");
+        assertThat(actualizado.id()).isEqualTo(1L);
+        assertThat(actualizado.precio()).isEqualByComparingTo("799.99");
+        assertThat(actualizado.descripcion()).isEqualTo("Renovado");
+        // the read model and the search index are refreshed once the import ends
+        assertThat(productoService.findByCategoria(4L)).extracting(ProductoDTO::codigo).contains("IMP-TEC-1");
+        assertThat(productoService.search("teclado", PageRequest.of(0, 10)).getContent())
+                .extracting(ProductoDTO::codigo)
+                .containsExactly("IMP-TEC-1");
+    }
+
+    @Test
+    void filasInvalidasSeReportanPorLinea() throws Exception {
+        ImportacionDTO resultado = importar(CABECERA
+                + "Sin precio,,,5,IMP-ERR-1,4,1\n"
+                + "Categoria inexistente,,10.00,5,IMP-ERR-2,999,1\n"
+                + "Valido,,10.00,5,IMP-OK-1,4,1\n"
+                + "Stock negativo,,10.00,-1,IMP-ERR-3,4,1\n");
+
+        assertThat(resultado.estado()).isEqualTo(ImportacionDTO.COMPLETADO);
+        assertThat(resultado.creados()).isEqualTo(1);
+        assertThat(resultado.fallidos()).isEqualTo(3);
+        // the header is line 1
+        assertThat(resultado.errores()).extracting(ImportacionDTO.ErrorFila::fila).containsExactlyInAnyOrder(2L, 3L, 5L);
+        assertThat(resultado.errores()).extracting(ImportacionDTO.ErrorFila::codigo)
+                .containsExactlyInAnyOrder("IMP-ERR-1", "IMP-ERR-2", "IMP-ERR-3");
+        assertThat(productoService.findByCodigo("IMP-OK-1").precio()).isEqualByComparingTo(BigDecimal.TEN);
+    }
+
+    @Test
+    void separadorPuntoYComaYCodigoRepetido() throws Exception {
+        ImportacionDTO resultado = importar("codigo;nombre;precio;stock;categoriaId;marcaId\n"
+                + "IMP-PC-1;Primera versión;10.00;1;4;1\n"
+                + "IMP-PC-1;Segunda versión;20.00;2;4;1\n");
+
+        // as if the file were applied line by line, the later row with the same codigo wins
+        assertThat(resultado.estado()).isEqualTo(ImportacionDTO.COMPLETADO);
+        assertThat(resultado.creados()).isEqualTo(1);
+        ProductoDTO producto = productoService.findByCodigo("IMP-PC-1");
+        assertThat(producto.nombre()).isEqualTo("Segunda versión");
+        assertThat(producto.stock()).isEqualTo(2);
+    }
+
+    @Test
+    void noCambiaElStockDeUnProductoCaliente() throws Exception {
+        stockCalienteService.activar(7L);
+        productoService.descontarStock(7L, 2);
+
+        ImportacionDTO resultado = importar(CABECERA
+                + "Samsung Odyssey G7,Monitor curvo gaming,699.99,50,SAM-ODY-G7,3,7\n"
+                + "Acer Predator,Monitor gaming,329.99,20,ACER-PRED-27,3,5\n");
+
+        assertThat(resultado.actualizados()).isEqualTo(1);
+        assertThat(resultado.errores()).singleElement()
+                .satisfies(error -> {
+                    assertThat(error.codigo()).isEqualTo("SAM-ODY-G7");
+                    assertThat(error.error()).contains("modo caliente");
+                });
+        // the reservation made through the hot counter is still there once written
+        stockCalienteService.desactivar(7L);
+        assertThat(productoService.findById(7L).stock()).isEqualTo(13);
+        assertThat(productoService.findById(5L).precio()).isEqualByComparingTo("329.99");
+    }
+
+    @Test
+    void cabeceraSinColumnasObligatorias() {
+        MockMultipartFile archivo = csv("nombre,precio\nMouse,10.00\n");
+
+        assertThatThrownBy(() -> productoImportService.importCsv(archivo))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("codigo");
+    }
+
+    private ImportacionDTO importar(String contenido) throws InterruptedException {
+        ImportacionDTO importacion = productoImportService.importCsv(csv(contenido));
+        long limite = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < limite) {
+            ImportacionDTO actual = productoImportService.findById(importacion.id());
+            // the import thread asks for the reload of the read model and the search index once
+            // it ends; they run in the background
+            if (actual.fechaFin() != null && importacionExecutor.getActiveCount() == 0) {
+                DatosDeEjemploExtension.esperar(recargaExecutor);
+                return actual;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Import " + importacion.id() + " did not finish");
+    }
+
+    private static MockMultipartFile csv(String contenido) {
+        return new MockMultipartFile("archivo", "productos.csv", "text/csv", contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,189 @@
+package edu.cibertec.appstorecomputer.service;
+
+import edu.cibertec.appstorecomputer.DatosDeEjemploExtension;
+import edu.cibertec.appstorecomputer.dto.StockCalienteDTO;
+import edu.cibertec.appstorecomputer.exception.StockInsuficienteException;
+import edu.cibertec.appstorecomputer.repository.ProductoRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoStockCalienteRepository;
+import edu.cibertec.appstorecomputer.repository.ProductoStockMovimientoRepository;
+import edu.cibertec.appstorecomputer.service.impl.StockCalienteServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hot-SKU stock mode against the embedded database, with the scheduled flush out of the way
+ * so each test decides when batches are written.
+ */
+@SpringBootTest
+@ActiveProfiles("loadtest")
+@ExtendWith(DatosDeEjemploExtension.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-caliente;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "catalogo.stock-caliente.flush-interval=PT1H"
+})
+class StockCalienteServiceTests {
+
+    private static final long PRODUCTO = 7L;
+
+    @Autowired
+    private StockCalienteService stockCalienteService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoStockCalienteRepository stockCalienteRepository;
+
+    @Autowired
+    private ProductoStockMovimientoRepository movimientoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reservaRegistraElMovimientoAntesDeResponder() {
+        int inicial = stockEnBase();
+        stockCalienteService.activar(PRODUCTO);
+
+        productoService.descontarStock(PRODUCTO, 3);
+
+        assertThat(stockEnBase()).isEqualTo(inicial);
+        assertThat(movimientoRepository.sumDeltaByProductoId(PRODUCTO)).isEqualTo(-3);
+        assertThat(estado().disponible()).isEqualTo(inicial - 3);
+        assertThat(estado().pendiente()).isEqualTo(-3);
+    }
+
+    @Test
+    void flushAplicaLosMovimientosYLosElimina() {
+        int inicial = stockEnBase();
+        stockCalienteService.activar(PRODUCTO);
+        productoService.descontarStock(PRODUCTO, 3);
+        productoService.reponerStock(PRODUCTO, 1);
+
+        stockCalienteService.flush();
+
+        assertThat(stockEnBase()).isEqualTo(inicial - 2);
+        assertThat(movimientoRepository.sumDeltaByProductoId(PRODUCTO)).isZero();
+        assertThat(estado().pendiente()).isZero();
+        assertThat(estado().ultimoLote()).isEqualTo(
+                stockCalienteRepository.findById(PRODUCTO).orElseThrow().getUltimoLote());
+    }
+
+    @Test
+    void reservaRevertidaNoDejaMovimiento() {
+        int inicial = stockEnBase();
+        stockCalienteService.activar(PRODUCTO);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productoService.descontarStock(PRODUCTO, 2);
+            status.setRollbackOnly();
+        });
+
+        assertThat(estado().disponible()).isEqualTo(inicial);
+        assertThat(estado().pendiente()).isZero();
+        assertThat(movimientoRepository.sumDeltaByProductoId(PRODUCTO)).isZero();
+    }
+
+    @Test
+    void reinicioRecuperaLasReservasSinEscribir() {
+        int inicial = stockEnBase();
+        stockCalienteService.activar(PRODUCTO);
+        productoService.descontarStock(PRODUCTO, 4);
+
+        // A new instance stands for the application restarted after a crash, before any flush
+        StockCalienteServiceImpl reiniciado = new StockCalienteServiceImpl(productoRepository,
+                stockCalienteRepository, movimientoRepository, eventPublisher, transactionManager, 2);
+        reiniciado.onApplicationReady();
+
+        StockCalienteDTO recuperado = reiniciado.findAll().stream()
+                .filter(estado -> estado.productoId() == PRODUCTO)
+                .findFirst()
+                .orElseThrow();
+        assertThat(recuperado.disponible()).isEqualTo(inicial - 4);
+        assertThat(recuperado.pendiente()).isEqualTo(-4);
+    }
+
+    @Test
+    void desactivarEscribeTodoLoPendiente() {
+        int inicial = stockEnBase();
+        stockCalienteService.activar(PRODUCTO);
+        productoService.descontarStock(PRODUCTO, 5);
+
+        StockCalienteDTO estado = stockCalienteService.desactivar(PRODUCTO);
+
+        assertThat(estado.activo()).isFalse();
+        assertThat(stockEnBase()).isEqualTo(inicial - 5);
+        assertThat(movimientoRepository.sumDeltaByProductoId(PRODUCTO)).isZero();
+        assertThat(stockCalienteRepository.findById(PRODUCTO).orElseThrow().getActivo()).isFalse();
+    }
+
+    @Test
+    void activarDuranteVentasNoVendeDeMas() throws Exception {
+        productoService.reponerStock(PRODUCTO, 200 - stockEnBase());
+        int hilos = 8;
+        AtomicInteger vendidas = new AtomicInteger();
+        CountDownLatch primerasVentas = new CountDownLatch(20);
+        List<Future<?>> vendedores = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos)) {
+            for (int i = 0; i < hilos; i++) {
+                vendedores.add(executor.submit(() -> {
+                    // more attempts than units, so the stock runs out either way
+                    for (int intento = 0; intento < 50; intento++) {
+                        try {
+                            productoService.descontarStock(PRODUCTO, 1);
+                            vendidas.incrementAndGet();
+                            primerasVentas.countDown();
+                        } catch (StockInsuficienteException ex) {
+                            // sold out
+                        }
+                    }
+                }));
+            }
+            // enabled while sales are still going through the database
+            assertThat(primerasVentas.await(10, TimeUnit.SECONDS)).isTrue();
+            stockCalienteService.activar(PRODUCTO);
+            for (Future<?> vendedor : vendedores) {
+                vendedor.get(30, TimeUnit.SECONDS);
+            }
+        }
+        stockCalienteService.desactivar(PRODUCTO);
+
+        assertThat(vendidas.get()).isEqualTo(200);
+        assertThat(stockEnBase()).isZero();
+    }
+
+    private int stockEnBase() {
+        return productoRepository.findStockById(PRODUCTO).orElseThrow();
+    }
+
+    private StockCalienteDTO estado() {
+        return stockCalienteService.findAll().stream()
+                .filter(estado -> estado.productoId() == PRODUCTO)
+                .findFirst()
+                .orElseThrow();
+    }
+}